@@ -17,11 +17,15 @@ public class Application {
     public static void main(String[] args) {
         System.out.println("=== Application de Réservation de Services ===\n");
 
-        // Initialisation des repositories
-        UserRepository userRepository = new UserRepository();
-        ServiceRepository serviceRepository = new ServiceRepository();
-        ReservationRepository reservationRepository = new ReservationRepository();
-        PaymentRepository paymentRepository = new PaymentRepository();
+        // Initialisation des repositories (chargement parallèle, paiements et réservations différés)
+        RepositoryBootstrap bootstrap = RepositoryBootstrap.start();
+        bootstrap.registerShutdownHook();
+        UserRepository userRepository = bootstrap.users().join();
+        ServiceRepository serviceRepository = bootstrap.services().join();
+        ReservationRepository reservationRepository = bootstrap.reservations().join();
+        PaymentRepository paymentRepository = bootstrap.payments().join();
+        // Paiements et réservations lus en arrière-plan (ou au premier accès)
+        bootstrap.loadDeferredInBackground();
 
         // Initialisation des services
         UserService userService = new UserService(userRepository);
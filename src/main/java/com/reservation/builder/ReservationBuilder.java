@@ -2,6 +2,7 @@ package com.reservation.builder;
 
 import com.reservation.model.Reservation;
 import com.reservation.model.ReservationStatus;
+import com.reservation.storage.IdPool;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -65,7 +66,10 @@ public class ReservationBuilder {
             dateTime == null || totalAmount == null) {
             throw new IllegalStateException("Tous les paramètres requis doivent être fournis");
         }
-        return new Reservation(id, clientId, serviceId, prestataireId, dateTime, totalAmount);
+        // Les identifiants référencés partagent l'instance déjà chargée (client, service, prestataire)
+        IdPool ids = IdPool.shared();
+        return new Reservation(id, ids.intern(clientId), ids.intern(serviceId), ids.intern(prestataireId),
+            dateTime, totalAmount);
     }
 }
 
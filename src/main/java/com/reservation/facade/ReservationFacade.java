@@ -52,12 +52,12 @@ public class ReservationFacade {
             clientId, serviceId, prestataireId, dateTime
         );
 
-        // 2. Configurer la stratégie de paiement
+        // 2. Choisir la stratégie de paiement
         PaymentStrategy strategy = getPaymentStrategy(paymentMethod);
-        paymentService.setPaymentStrategy(strategy);
 
         // 3. Traiter le paiement
         Payment payment = paymentService.processPayment(
+            strategy,
             reservation.getId(),
             reservation.getTotalAmount(),
             paymentMethod,
@@ -83,11 +83,13 @@ public class ReservationFacade {
         // 1. Annuler la réservation
         reservationService.cancelReservation(reservationId);
 
-        // 2. Rembourser le paiement
+        // 2. Rembourser les paiements effectués (les tentatives échouées n'ont rien encaissé)
         PaymentRepository paymentRepo = paymentService.getPaymentRepository();
-        paymentRepo.findByReservationId(reservationId).ifPresent(payment -> {
-            paymentService.refundPayment(payment.getId());
-        });
+        for (Payment payment : paymentRepo.findAllByReservationId(reservationId)) {
+            if (payment.getStatus() == PaymentStatus.COMPLETED) {
+                paymentService.refundPayment(payment.getId());
+            }
+        }
     }
 
     /**
@@ -6,6 +6,7 @@ import java.util.Objects;
 
 /**
  * Représente une réservation
+ * Les méthodes passent par les accesseurs, que redéfinit la vue sur le stockage hors tas.
  */
 public class Reservation {
     private String id;
@@ -60,22 +61,23 @@ public class Reservation {
     }
 
     public void cancel() {
-        if (this.status == ReservationStatus.CONFIRMED || this.status == ReservationStatus.PENDING) {
-            this.status = ReservationStatus.CANCELLED;
+        ReservationStatus current = getStatus();
+        if (current == ReservationStatus.CONFIRMED || current == ReservationStatus.PENDING) {
+            setStatus(ReservationStatus.CANCELLED);
         }
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Reservation)) return false;
         Reservation that = (Reservation) o;
-        return Objects.equals(id, that.id);
+        return Objects.equals(getId(), that.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Objects.hash(getId());
     }
 }
 
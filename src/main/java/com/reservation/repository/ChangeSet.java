@@ -0,0 +1,64 @@
+package com.reservation.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Modifications d'un repository non encore persistées
+ * Seul le dernier état de chaque identifiant est conservé (null = suppression) :
+ * la persistance coûte le nombre d'identifiants modifiés, pas la taille des données.
+ * Utilisable sans verrou : drain retire chaque modification de façon atomique, si bien qu'une
+ * modification enregistrée pendant un drain est soit rendue par celui-ci, soit gardée pour le suivant.
+ * @param <T> Type de l'entité
+ */
+final class ChangeSet<T> {
+
+    /**
+     * Modification enregistrée ; comparée par identité, pour qu'un drain ne retire jamais
+     * une version plus récente égale au sens d'equals
+     */
+    private static final class Change<T> {
+        private final T entity;
+
+        private Change(T entity) {
+            this.entity = entity;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Change<T>> changes = new ConcurrentHashMap<>();
+
+    /**
+     * Enregistre une insertion ou une mise à jour
+     */
+    void put(String id, T entity) {
+        changes.put(id, new Change<>(entity));
+    }
+
+    /**
+     * Enregistre une suppression
+     */
+    void delete(String id) {
+        changes.put(id, new Change<>(null));
+    }
+
+    /**
+     * Remet des modifications dont l'écriture a échoué, sans écraser les modifications enregistrées depuis
+     */
+    void restore(Map<String, T> failed) {
+        failed.forEach((id, entity) -> changes.putIfAbsent(id, new Change<>(entity)));
+    }
+
+    /**
+     * Retourne les modifications en attente et les retire de l'ensemble
+     */
+    Map<String, T> drain() {
+        Map<String, T> drained = new HashMap<>();
+        for (Map.Entry<String, Change<T>> entry : changes.entrySet()) {
+            if (changes.remove(entry.getKey(), entry.getValue())) {
+                drained.put(entry.getKey(), entry.getValue().entity);
+            }
+        }
+        return drained;
+    }
+}
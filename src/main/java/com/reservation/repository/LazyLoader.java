@@ -0,0 +1,55 @@
+package com.reservation.repository;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Chargement différé d'un repository, exécuté une seule fois
+ * Déclenché par le premier accès ou en arrière-plan ; les appelants concurrents
+ * attendent la fin du chargement en cours au lieu de le relancer.
+ */
+final class LazyLoader {
+    private final Runnable loadAction;
+    private volatile boolean loaded;
+
+    LazyLoader(Runnable loadAction) {
+        this.loadAction = loadAction;
+    }
+
+    /**
+     * Chargeur d'un repository déjà chargé (rien à lire)
+     */
+    static LazyLoader alreadyLoaded() {
+        LazyLoader loader = new LazyLoader(() -> { });
+        loader.loaded = true;
+        return loader;
+    }
+
+    /**
+     * Charge si nécessaire, puis rend la main une fois le chargement terminé
+     */
+    void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                loadAction.run();
+                loaded = true;
+            }
+        }
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Lance le chargement sur un thread d'arrière-plan
+     */
+    CompletableFuture<Void> loadInBackground() {
+        if (loaded) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(this::ensureLoaded);
+    }
+}
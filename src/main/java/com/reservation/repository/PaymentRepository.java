@@ -1,71 +1,303 @@
 package com.reservation.repository;
 
 import com.reservation.model.Payment;
-import com.reservation.storage.PaymentCsvStorage;
+import com.reservation.model.PaymentStatus;
+import com.reservation.storage.CsvStorageBackend;
+import com.reservation.storage.EntityStore;
+import com.reservation.storage.LogCompactor;
+import com.reservation.storage.StorageBackend;
+import com.reservation.storage.WriteBehindFlusher;
+import com.reservation.storage.paged.PagedStore;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implémentation du Repository pour les paiements
+ * Seules les modifications depuis la dernière écriture (ChangeSet) sont ajoutées au journal ;
+ * ces écritures sont différées et regroupées par WriteBehindFlusher
+ * Le stockage n'est lu qu'au premier accès (ou en arrière-plan via loadInBackground) :
+ * l'historique des paiements ne ralentit pas le démarrage.
+ * Un index réservation → paiements (une réservation peut avoir plusieurs tentatives, par exemple
+ * un échec suivi d'une nouvelle tentative) sert les recherches par réservation sans parcourir les paiements.
+ * Thread-safe : chaque écriture verrouille son seul identifiant ; les lectures ne prennent aucun verrou,
+ * sauf en mode paginé où elles partagent le verrou de lecture du PagedStore.
  */
 public class PaymentRepository implements Repository<Payment, String> {
-    private final Map<String, Payment> payments = new HashMap<>();
-    private final PaymentCsvStorage csvStorage;
+    private final Map<String, Payment> payments;
+    // Identifiant de réservation → identifiants de ses paiements par ordre d'enregistrement (listes immuables,
+    // remplacées par compute : quelques tentatives par réservation)
+    private final ConcurrentHashMap<String, List<String>> paymentIdsByReservation = new ConcurrentHashMap<>();
+    private final StripedLocks locks = new StripedLocks();
+    // Modifications pas encore écrites dans le journal
+    private final ChangeSet<Payment> pendingChanges = new ChangeSet<>();
+    // Liste renvoyée par findAll, recopiée seulement après une écriture
+    private final VersionedSnapshot<Payment> published = new VersionedSnapshot<>();
+    private final EntityStore<Payment> store;
+    // Moteur paginé utilisé à la place du stockage (null sinon)
+    private final PagedStore<Payment> pagedStore;
+    private final WriteBehindFlusher flusher;
+    // Compactage du journal en arrière-plan (null en mode paginé)
+    private final LogCompactor compactor;
+    private final LazyLoader loader;
+    // Construction de l'index par réservation en mode paginé (déjà fait par le chargement sinon)
+    private final LazyLoader reservationIndex;
 
     public PaymentRepository() {
-        this.csvStorage = new PaymentCsvStorage();
-        loadFromCsv();
+        this(WriteBehindFlusher.configuredInterval());
     }
 
-    private void loadFromCsv() {
-        List<Payment> loadedPayments = csvStorage.loadAll();
-        for (Payment payment : loadedPayments) {
-            payments.put(payment.getId(), payment);
+    /**
+     * @param flushIntervalMs délai maximal avant écriture dans le journal (0 pour une écriture synchrone)
+     */
+    public PaymentRepository(long flushIntervalMs) {
+        this(new CsvStorageBackend(), flushIntervalMs);
+    }
+
+    /**
+     * @param backend stockage injecté (CSV, mémoire...)
+     * @param flushIntervalMs délai maximal avant écriture dans le stockage (0 pour une écriture synchrone)
+     */
+    public PaymentRepository(StorageBackend backend, long flushIntervalMs) {
+        this.payments = new ConcurrentHashMap<>();
+        this.store = backend.paymentStore();
+        this.pagedStore = null;
+        this.flusher = new WriteBehindFlusher("payments", this::persistChanges, flushIntervalMs);
+        this.compactor = new LogCompactor("payments", () -> store.compact(this::copyValues));
+        this.loader = new LazyLoader(this::loadFromStore);
+        this.reservationIndex = LazyLoader.alreadyLoaded();
+    }
+
+    /**
+     * Repository adossé au moteur paginé (arbre B+ sur disque) au lieu du CSV
+     * Rien n'est chargé au démarrage : les entités sont lues et écrites directement dans le fichier de pages.
+     * L'index par réservation est construit par un parcours des pages, à la première recherche par réservation
+     * ou par loadInBackground.
+     */
+    public PaymentRepository(PagedStore<Payment> pagedStore) {
+        this.payments = pagedStore.asMap();
+        this.store = null;
+        this.pagedStore = pagedStore;
+        this.flusher = new WriteBehindFlusher("payments", this::persistChanges, WriteBehindFlusher.configuredInterval());
+        this.compactor = null;
+        this.loader = LazyLoader.alreadyLoaded();
+        // Les enregistrements concurrents indexent eux-mêmes leur paiement : le parcours peut laisser
+        // une entrée périmée, écartée par findAllByReservationId
+        this.reservationIndex = new LazyLoader(() -> payments.values().forEach(this::index));
+    }
+
+    /**
+     * Lance le chargement du stockage (ou, en mode paginé, la construction de l'index par réservation)
+     * en arrière-plan, par exemple une fois l'interface affichée
+     */
+    public CompletableFuture<Void> loadInBackground() {
+        return loader.loadInBackground().thenCompose(ignored -> reservationIndex.loadInBackground());
+    }
+
+    public boolean isLoaded() {
+        return loader.isLoaded();
+    }
+
+    /**
+     * Charge le stockage (LazyLoader : les autres accès attendent la fin du chargement)
+     */
+    private void loadFromStore() {
+        store.loadAll(payment -> reindex(payments.put(payment.getId(), payment), payment),
+            id -> unindex(payments.remove(id)));
+    }
+
+    /**
+     * Met l'index à jour pour un paiement ajouté ou remplacé (verrou de son identifiant détenu)
+     * Un paiement mis à jour (remboursement) garde sa place parmi les tentatives de sa réservation.
+     */
+    private void reindex(Payment previous, Payment payment) {
+        if (previous != null && !Objects.equals(previous.getReservationId(), payment.getReservationId())) {
+            unindex(previous);
         }
+        index(payment);
     }
 
-    private void saveToCsv() {
-        csvStorage.saveAll(payments.values().stream().collect(java.util.stream.Collectors.toList()));
+    /**
+     * Ajoute un paiement à l'index par réservation
+     */
+    private void index(Payment payment) {
+        if (payment.getReservationId() != null) {
+            paymentIdsByReservation.compute(payment.getReservationId(), (reservationId, ids) -> {
+                if (ids == null) {
+                    return List.of(payment.getId());
+                }
+                if (ids.contains(payment.getId())) {
+                    return ids;
+                }
+                List<String> updated = new ArrayList<>(ids);
+                updated.add(payment.getId());
+                return List.copyOf(updated);
+            });
+        }
+    }
+
+    private void unindex(Payment payment) {
+        if (payment == null || payment.getReservationId() == null) {
+            return;
+        }
+        paymentIdsByReservation.computeIfPresent(payment.getReservationId(), (reservationId, ids) -> {
+            List<String> updated = new ArrayList<>(ids);
+            updated.remove(payment.getId());
+            return updated.isEmpty() ? null : List.copyOf(updated);
+        });
+    }
+
+    /**
+     * Ajoute les modifications en attente au journal, puis demande le compactage du journal s'il est devenu trop gros
+     */
+    private void persistChanges() {
+        Map<String, Payment> changes = pendingChanges.drain();
+        if (pagedStore != null) {
+            // Les modifications sont déjà dans les pages : il suffit de les écrire sur disque
+            pagedStore.flush();
+            return;
+        }
+        try {
+            store.appendChanges(changes);
+        } catch (RuntimeException e) {
+            // Les modifications seront réécrites à la prochaine tentative
+            pendingChanges.restore(changes);
+            throw e;
+        }
+        if (store.needsCompaction()) {
+            compactor.request();
+        }
+    }
+
+    /**
+     * Copie faiblement cohérente des paiements, prise sans bloquer les écritures
+     * (toute modification déjà écrite dans le journal y figure)
+     */
+    private List<Payment> copyValues() {
+        return new ArrayList<>(payments.values());
     }
 
     @Override
     public Payment save(Payment payment) {
-        payments.put(payment.getId(), payment);
-        saveToCsv();
+        saveAsync(payment);
         return payment;
     }
 
+    @Override
+    public CompletableFuture<Void> saveAsync(Payment payment) {
+        loader.ensureLoaded();
+        synchronized (locks.lockFor(payment.getId())) {
+            reindex(payments.put(payment.getId(), payment), payment);
+            pendingChanges.put(payment.getId(), payment);
+            published.changed();
+        }
+        return flusher.markDirty();
+    }
+
     @Override
     public Optional<Payment> findById(String id) {
+        loader.ensureLoaded();
         return Optional.ofNullable(payments.get(id));
     }
 
     @Override
     public List<Payment> findAll() {
-        return List.copyOf(payments.values());
+        loader.ensureLoaded();
+        if (pagedStore != null) {
+            // Aucune copie conservée : le moteur paginé ne garde en mémoire que les pages utilisées
+            return List.copyOf(payments.values());
+        }
+        return published.values(payments::values);
+    }
+
+    @Override
+    public long version() {
+        return published.version();
     }
 
     @Override
     public void deleteById(String id) {
-        payments.remove(id);
-        saveToCsv();
+        deleteByIdAsync(id);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByIdAsync(String id) {
+        loader.ensureLoaded();
+        synchronized (locks.lockFor(id)) {
+            Payment removed = payments.remove(id);
+            if (removed == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            unindex(removed);
+            pendingChanges.delete(id);
+            published.changed();
+        }
+        return flusher.markDirty();
     }
 
     @Override
     public boolean existsById(String id) {
+        loader.ensureLoaded();
         return payments.containsKey(id);
     }
 
     /**
-     * Trouve le paiement d'une réservation
+     * Écrit l'instantané binaire des paiements, relu en priorité au prochain démarrage
+     */
+    public void writeSnapshot() {
+        if (!loader.isLoaded()) {
+            return;
+        }
+        flush();
+        if (pagedStore != null) {
+            return;
+        }
+        store.writeSnapshot(this::copyValues);
+    }
+
+    @Override
+    public void flush() {
+        flusher.flush();
+    }
+
+    /**
+     * Trouve le paiement d'une réservation : le paiement effectué s'il y en a un, sinon la dernière tentative
      */
     public Optional<Payment> findByReservationId(String reservationId) {
-        return payments.values().stream()
-                .filter(payment -> payment.getReservationId().equals(reservationId))
-                .findFirst();
+        List<Payment> attempts = findAllByReservationId(reservationId);
+        for (Payment payment : attempts) {
+            if (payment.getStatus() == PaymentStatus.COMPLETED) {
+                return Optional.of(payment);
+            }
+        }
+        return attempts.isEmpty() ? Optional.empty() : Optional.of(attempts.get(attempts.size() - 1));
+    }
+
+    /**
+     * Trouve tous les paiements d'une réservation, par ordre d'enregistrement
+     */
+    public List<Payment> findAllByReservationId(String reservationId) {
+        loader.ensureLoaded();
+        reservationIndex.ensureLoaded();
+        // Clé nulle refusée par ConcurrentHashMap : aucun paiement n'est indexé sans réservation
+        List<String> ids = reservationId == null ? null : paymentIdsByReservation.get(reservationId);
+        if (ids == null) {
+            return List.of();
+        }
+        List<Payment> found = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Payment payment = payments.get(id);
+            // Réservation revérifiée : une entrée peut survivre au déplacement du paiement
+            if (payment != null && reservationId.equals(payment.getReservationId())) {
+                found.add(payment);
+            }
+        }
+        return found;
     }
 }
 
@@ -2,6 +2,7 @@ package com.reservation.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface générique pour les repositories
@@ -15,6 +16,14 @@ public interface Repository<T, ID> {
      * Sauvegarde une entité
      */
     T save(T entity);
+
+    /**
+     * Sauvegarde une entité sans attendre sa persistance
+     * Peut bloquer le temps de charger les données concernées au premier accès, ou d'écrire si l'intervalle
+     * d'écriture différée est nul ou négatif.
+     * @return futur terminé une fois la modification durable, en échec si l'écriture a échoué
+     */
+    CompletableFuture<Void> saveAsync(T entity);
     
     /**
      * Trouve une entité par son ID
@@ -23,17 +32,36 @@ public interface Repository<T, ID> {
     
     /**
      * Trouve toutes les entités
+     * La liste retournée est immuable et partagée : tant qu'aucune écriture n'a eu lieu, les appels
+     * successifs renvoient la même liste sans la recopier.
      */
     List<T> findAll();
+
+    /**
+     * Numéro de version des données, incrémenté à chaque modification
+     * Permet de savoir sans rien relire si findAll a changé depuis une lecture précédente.
+     */
+    long version();
     
     /**
      * Supprime une entité
      */
     void deleteById(ID id);
+
+    /**
+     * Supprime une entité sans attendre la persistance de la suppression
+     * @return futur terminé une fois la suppression durable (immédiatement si l'entité n'existait pas)
+     */
+    CompletableFuture<Void> deleteByIdAsync(ID id);
     
     /**
      * Vérifie si une entité existe
      */
     boolean existsById(ID id);
+
+    /**
+     * Force l'écriture des modifications en attente de persistance
+     */
+    void flush();
 }
 
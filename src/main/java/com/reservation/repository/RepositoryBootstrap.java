@@ -0,0 +1,223 @@
+package com.reservation.repository;
+
+import com.reservation.storage.CsvStorageBackend;
+import com.reservation.storage.CsvStorageService;
+import com.reservation.storage.IdPool;
+import com.reservation.storage.InMemoryStorageBackend;
+import com.reservation.storage.PaymentCsvStorage;
+import com.reservation.storage.ReservationCsvStorage;
+import com.reservation.storage.ServiceCsvStorage;
+import com.reservation.storage.SnapshotCodec;
+import com.reservation.storage.StorageBackend;
+import com.reservation.storage.UserCsvStorage;
+import com.reservation.storage.WriteBehindFlusher;
+import com.reservation.storage.paged.PagedStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Démarrage parallèle des repositories
+ * Les quatre stockages sont chargés en même temps : le temps de démarrage est celui du
+ * plus gros fichier et non la somme des quatre. Chaque repository est exposé par un
+ * futur de disponibilité, ce qui permet d'utiliser les services dès leur chargement.
+ * Les paiements et les réservations ne sont lus qu'au premier accès, ou par loadDeferredInBackground
+ * une fois l'interface affichée ; avec reservation.archive.onstartup=true, les réservations anciennes
+ * ou terminées sont ensuite archivées.
+ * La propriété reservation.storage=paged remplace les fichiers CSV par le moteur paginé (fichiers *.db),
+ * reservation.storage=memory par un stockage en mémoire sans aucun accès disque.
+ * Avec reservation.memory.report=true, une estimation du tas utilisé avant et après chargement est affichée,
+ * avec le bilan du pool d'identifiants.
+ */
+public class RepositoryBootstrap {
+    public static final String STORAGE_PROPERTY = "reservation.storage";
+    public static final String PAGED_STORAGE = "paged";
+    public static final String MEMORY_STORAGE = "memory";
+    public static final String MEMORY_REPORT_PROPERTY = "reservation.memory.report";
+
+    private final ExecutorService executor;
+    private final CompletableFuture<UserRepository> users;
+    private final CompletableFuture<ServiceRepository> services;
+    private final CompletableFuture<ReservationRepository> reservations;
+    private final CompletableFuture<PaymentRepository> payments;
+    // Stockages paginés ouverts, fermés à l'arrêt
+    private final List<PagedStore<?>> pagedStores = new CopyOnWriteArrayList<>();
+    private final long heapBeforeLoad;
+    // Lecture des paiements et des réservations, lancée par loadDeferredInBackground
+    private CompletableFuture<PaymentRepository> paymentsLoaded;
+    private CompletableFuture<ReservationRepository> reservationsLoaded;
+
+    RepositoryBootstrap(String storage) {
+        this.heapBeforeLoad = usedHeap();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "repository-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (PAGED_STORAGE.equals(storage)) {
+            this.users = load(() -> new UserRepository(openPaged("users.db", UserCsvStorage.SNAPSHOT_CODEC)));
+            this.services = load(() -> new ServiceRepository(openPaged("services.db", ServiceCsvStorage.SNAPSHOT_CODEC)));
+            this.reservations = load(() -> new ReservationRepository(
+                openPaged("reservations.db", ReservationCsvStorage.SNAPSHOT_CODEC)));
+            this.payments = load(() -> new PaymentRepository(openPaged("payments.db", PaymentCsvStorage.SNAPSHOT_CODEC)));
+        } else {
+            StorageBackend backend = MEMORY_STORAGE.equals(storage) ? new InMemoryStorageBackend() : new CsvStorageBackend();
+            long flushIntervalMs = WriteBehindFlusher.configuredInterval();
+            int hotMonths = Integer.getInteger(ReservationRepository.HOT_MONTHS_PROPERTY, ReservationRepository.DEFAULT_HOT_MONTHS);
+            this.users = load(() -> new UserRepository(backend, flushIntervalMs));
+            this.services = load(() -> new ServiceRepository(backend, flushIntervalMs));
+            boolean coldOffHeap = Boolean.getBoolean(ReservationRepository.COLD_OFF_HEAP_PROPERTY);
+            this.reservations = load(() -> new ReservationRepository(backend, flushIntervalMs, hotMonths, coldOffHeap));
+            this.payments = load(() -> new PaymentRepository(backend, flushIntervalMs));
+        }
+        allReady().whenComplete((ignored, error) -> executor.shutdown());
+    }
+
+    /**
+     * Lance le chargement des quatre repositories en parallèle
+     */
+    public static RepositoryBootstrap start() {
+        return new RepositoryBootstrap(System.getProperty(STORAGE_PROPERTY));
+    }
+
+    private <T> PagedStore<T> openPaged(String filename, SnapshotCodec<T> codec) {
+        try {
+            PagedStore<T> store = PagedStore.open(new CsvStorageService().resolve(filename), codec);
+            pagedStores.add(store);
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ouverture du stockage paginé " + filename + " impossible", e);
+        }
+    }
+
+    private <R> CompletableFuture<R> load(Supplier<R> constructor) {
+        return CompletableFuture.supplyAsync(constructor, executor);
+    }
+
+    public CompletableFuture<UserRepository> users() {
+        return users;
+    }
+
+    public CompletableFuture<ServiceRepository> services() {
+        return services;
+    }
+
+    public CompletableFuture<ReservationRepository> reservations() {
+        return reservations;
+    }
+
+    public CompletableFuture<PaymentRepository> payments() {
+        return payments;
+    }
+
+    /**
+     * Charge en arrière-plan les repositories à chargement différé (paiements, réservations),
+     * puis archive les réservations anciennes ou terminées si reservation.archive.onstartup est activée
+     * Sans effet si le chargement est déjà lancé.
+     */
+    public synchronized void loadDeferredInBackground() {
+        if (reservationsLoaded != null) {
+            return;
+        }
+        paymentsLoaded = payments.thenCompose(repository -> repository.loadInBackground().thenApply(ignored -> repository));
+        reservationsLoaded = reservations.thenCompose(repository -> repository.loadInBackground()
+            .thenApply(ignored -> repository));
+        // Archivage sur un autre thread : les dépendants de reservationsLoaded n'attendent pas sa fin
+        CompletableFuture<Void> archived = Boolean.getBoolean(ReservationRepository.ARCHIVE_ON_STARTUP_PROPERTY)
+            ? reservationsLoaded.thenAcceptAsync(ReservationRepository::archiveExpired)
+            : reservationsLoaded.thenAccept(repository -> { });
+        if (Boolean.getBoolean(MEMORY_REPORT_PROPERTY)) {
+            CompletableFuture.allOf(paymentsLoaded, archived).thenRun(this::reportMemory);
+        }
+    }
+
+    /**
+     * Futur terminé une fois les réservations lues, et non seulement le repository construit
+     * Lance le chargement différé s'il ne l'est pas encore.
+     */
+    public synchronized CompletableFuture<ReservationRepository> reservationsLoaded() {
+        loadDeferredInBackground();
+        return reservationsLoaded;
+    }
+
+    /**
+     * Futur terminé une fois les paiements lus (lance le chargement différé s'il ne l'est pas encore)
+     */
+    public synchronized CompletableFuture<PaymentRepository> paymentsLoaded() {
+        loadDeferredInBackground();
+        return paymentsLoaded;
+    }
+
+    /**
+     * Affiche le tas utilisé avant et après chargement, et les copies d'identifiants évitées par le pool
+     * Ce n'est qu'une estimation : System.gc() n'est qu'une demande et le tas mesuré inclut tout ce que
+     * l'application a alloué entre-temps, pas seulement les entités chargées. Un histogramme du tas
+     * (jcmd GC.class_histogram) reste nécessaire pour mesurer le gain du pool.
+     */
+    private void reportMemory() {
+        long heapAfterLoad = usedHeap();
+        System.out.println(String.format("Mémoire (estimation après System.gc()) : %d Mio avant chargement, %d Mio après (+%d Mio)",
+            heapBeforeLoad >> 20, heapAfterLoad >> 20, (heapAfterLoad - heapBeforeLoad) >> 20));
+        System.out.println(IdPool.shared().report());
+    }
+
+    /**
+     * Tas utilisé après un ramasse-miettes, pour ne compter que les objets vivants
+     */
+    private static long usedHeap() {
+        if (!Boolean.getBoolean(MEMORY_REPORT_PROPERTY)) {
+            return 0;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Futur terminé lorsque tous les repositories sont construits
+     * (les paiements et les réservations peuvent ne pas encore être lus)
+     */
+    public CompletableFuture<Void> allReady() {
+        return CompletableFuture.allOf(users, services, reservations, payments);
+    }
+
+    /**
+     * Enregistre l'écriture des modifications différées et des instantanés binaires à l'arrêt,
+     * puis la fermeture des stockages paginés (leur journal est alors recopié et vidé)
+     * Seuls les repositories effectivement chargés sont sauvegardés.
+     */
+    public void registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            ifLoaded(users, UserRepository::writeSnapshot);
+            ifLoaded(services, ServiceRepository::writeSnapshot);
+            ifLoaded(reservations, ReservationRepository::writeSnapshot);
+            ifLoaded(payments, PaymentRepository::writeSnapshot);
+            closePagedStores();
+        }, "snapshot-writer"));
+    }
+
+    private void closePagedStores() {
+        for (PagedStore<?> store : pagedStores) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Erreur lors de la fermeture du stockage paginé: " + e.getMessage());
+            }
+        }
+    }
+
+    private static <R> void ifLoaded(CompletableFuture<R> repository, Consumer<R> action) {
+        if (repository.isDone() && !repository.isCompletedExceptionally()) {
+            action.accept(repository.join());
+        }
+    }
+}
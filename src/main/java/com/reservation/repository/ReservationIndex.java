@@ -0,0 +1,95 @@
+package com.reservation.repository;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationStatus;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index secondaires des réservations : client, prestataire et statut → identifiants
+ * Tenu à jour à chaque ajout ou retrait dans le repository ; une recherche coûte la taille du résultat.
+ * Le statut d'une réservation est mutable (cancel modifie l'instance avant son enregistrement) :
+ * un retrait efface donc l'identifiant de tous les statuts plutôt que du seul statut courant.
+ * Thread-safe ; les opérations sur une même réservation sont sérialisées par le verrou de son identifiant.
+ */
+final class ReservationIndex {
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+
+    private final ConcurrentHashMap<String, Set<String>> byClient = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> byPrestataire = new ConcurrentHashMap<>();
+    // Une entrée par statut, créée une fois pour toutes
+    private final Map<ReservationStatus, Set<String>> byStatus = new EnumMap<>(ReservationStatus.class);
+
+    ReservationIndex() {
+        for (ReservationStatus status : STATUSES) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * Indexe une réservation ajoutée ou remplacée
+     * @param previous réservation remplacée (null pour un ajout)
+     */
+    void update(Reservation previous, Reservation reservation) {
+        if (previous != null) {
+            remove(previous);
+        }
+        add(byClient, reservation.getClientId(), reservation.getId());
+        add(byPrestataire, reservation.getPrestataireId(), reservation.getId());
+        if (reservation.getStatus() != null) {
+            byStatus.get(reservation.getStatus()).add(reservation.getId());
+        }
+    }
+
+    void remove(Reservation reservation) {
+        String id = reservation.getId();
+        remove(byClient, reservation.getClientId(), id);
+        remove(byPrestataire, reservation.getPrestataireId(), id);
+        for (ReservationStatus status : STATUSES) {
+            byStatus.get(status).remove(id);
+        }
+    }
+
+    Set<String> clientIds(String clientId) {
+        return ids(byClient, clientId);
+    }
+
+    Set<String> prestataireIds(String prestataireId) {
+        return ids(byPrestataire, prestataireId);
+    }
+
+    /**
+     * Identifiants d'une entrée d'index ; une clé nulle (refusée par ConcurrentHashMap) n'a aucun résultat
+     */
+    private static Set<String> ids(ConcurrentHashMap<String, Set<String>> index, String key) {
+        return key == null ? Collections.emptySet() : index.getOrDefault(key, Collections.emptySet());
+    }
+
+    Set<String> statusIds(ReservationStatus status) {
+        return status == null ? Collections.emptySet() : byStatus.get(status);
+    }
+
+    /**
+     * Ajout et retrait par compute, atomique par clé : une entrée vidée n'est jamais supprimée
+     * pendant qu'un autre thread y ajoute une réservation
+     */
+    private static void add(ConcurrentHashMap<String, Set<String>> index, String key, String id) {
+        if (key != null) {
+            index.compute(key, (ignored, ids) -> {
+                Set<String> updated = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                updated.add(id);
+                return updated;
+            });
+        }
+    }
+
+    private static void remove(ConcurrentHashMap<String, Set<String>> index, String key, String id) {
+        if (key != null) {
+            index.computeIfPresent(key, (ignored, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids);
+        }
+    }
+}
@@ -2,90 +2,702 @@ package com.reservation.repository;
 
 import com.reservation.model.Reservation;
 import com.reservation.model.ReservationStatus;
-import com.reservation.storage.ReservationCsvStorage;
+import com.reservation.storage.CsvStorageBackend;
+import com.reservation.storage.LogCompactor;
+import com.reservation.storage.ReservationArchive;
+import com.reservation.storage.ReservationStore;
+import com.reservation.storage.StorageBackend;
+import com.reservation.storage.WriteBehindFlusher;
+import com.reservation.storage.offheap.OffHeapReservationStore;
+import com.reservation.storage.paged.PagedStore;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Implémentation du Repository pour les réservations
+ * Chaque mutation est ajoutée au journal de sa partition mensuelle (coût O(1)) au lieu de réécrire tout le fichier.
+ * Les ajouts au journal sont différés et regroupés par WriteBehindFlusher.
+ * Seules les partitions récentes (fenêtre configurable) sont chargées au démarrage ; les plus anciennes
+ * sont chargées à la demande (recherche par période, identifiant inconnu, client, prestataire, statut, findAll).
+ * Les recherches par client, prestataire ou statut passent par des index secondaires (ReservationIndex)
+ * pour les réservations du tas, le moteur paginé et le stockage hors tas étant parcourus.
+ * Les réservations anciennes ou terminées peuvent être déplacées vers l'archive froide compressée
+ * (ReservationArchive), consultable séparément.
+ * Les partitions ne sont lues qu'au premier accès (ou en arrière-plan via loadInBackground).
+ * Avec reservation.partition.cold.offheap=true, les partitions antérieures à la fenêtre chaude sont chargées
+ * hors du tas (OffHeapReservationStore) et lues à travers des vues ; une réservation ancienne modifiée
+ * revient dans le tas.
+ * Thread-safe : les écritures sur une même réservation sont sérialisées par un verrou par identifiant
+ * (StripedLocks), le chargement des partitions par un verrou dédié ; les lectures ne prennent aucun verrou,
+ * sauf le verrou de lecture partagé du PagedStore en mode paginé.
  */
 public class ReservationRepository implements Repository<Reservation, String> {
-    private final Map<String, Reservation> reservations = new HashMap<>();
-    private final ReservationCsvStorage csvStorage;
+    public static final String HOT_MONTHS_PROPERTY = "reservation.partition.hot.months";
+    public static final int DEFAULT_HOT_MONTHS = 12;
+    public static final String COLD_OFF_HEAP_PROPERTY = "reservation.partition.cold.offheap";
+    public static final String ARCHIVE_AGE_PROPERTY = "reservation.archive.age.days";
+    public static final int DEFAULT_ARCHIVE_AGE_DAYS = 365;
+    public static final String ARCHIVE_TERMINAL_AGE_PROPERTY = "reservation.archive.terminal.age.days";
+    public static final int DEFAULT_ARCHIVE_TERMINAL_AGE_DAYS = 30;
+    public static final String ARCHIVE_ON_STARTUP_PROPERTY = "reservation.archive.onstartup";
+    private static final Set<ReservationStatus> TERMINAL_STATUSES =
+        EnumSet.of(ReservationStatus.CANCELLED, ReservationStatus.COMPLETED);
+
+    private final Map<String, Reservation> reservations;
+    private final StripedLocks locks = new StripedLocks();
+    // Index des réservations du tas (null en mode paginé), modifié sous le verrou de l'identifiant
+    private final ReservationIndex index;
+    // Réservations des partitions froides, hors du tas (null si désactivé) ; modifiées sous le verrou de l'identifiant
+    private final OffHeapReservationStore coldReservations;
+    // Premier mois de la fenêtre chaude (null si toutes les partitions sont chaudes)
+    private final YearMonth firstHotMonth;
+    // Modifications pas encore écrites dans les journaux, par partition
+    private final ConcurrentHashMap<YearMonth, ChangeSet<Reservation>> pendingChanges = new ConcurrentHashMap<>();
+    // Liste renvoyée par findAll, recopiée seulement après une écriture ou le chargement d'une partition
+    private final VersionedSnapshot<Reservation> published = new VersionedSnapshot<>();
+    // Partitions connues et chargées, protégées par partitionLock
+    private final Object partitionLock = new Object();
+    private final Set<YearMonth> knownPartitions = new HashSet<>();
+    private final Set<YearMonth> loadedPartitions = new HashSet<>();
+    // Partitions dont l'instantané est à réécrire
+    private final Set<YearMonth> staleSnapshots = ConcurrentHashMap.newKeySet();
+    private volatile boolean allPartitionsLoaded;
+    private final ReservationStore store;
+    // Moteur paginé utilisé à la place des partitions (null sinon)
+    private final PagedStore<Reservation> pagedStore;
+    private final ReservationArchive archive;
+    private final WriteBehindFlusher flusher;
+    // Compactage des journaux de partition en arrière-plan (null en mode paginé)
+    private final LogCompactor compactor;
+    private final Set<YearMonth> partitionsToCompact = ConcurrentHashMap.newKeySet();
+    private final LazyLoader loader;
 
     public ReservationRepository() {
-        this.csvStorage = new ReservationCsvStorage();
-        loadFromCsv();
+        this(WriteBehindFlusher.configuredInterval());
+    }
+
+    /**
+     * @param flushIntervalMs délai maximal avant écriture dans le journal (0 pour une écriture synchrone)
+     */
+    public ReservationRepository(long flushIntervalMs) {
+        this(flushIntervalMs, Integer.getInteger(HOT_MONTHS_PROPERTY, DEFAULT_HOT_MONTHS));
+    }
+
+    /**
+     * @param flushIntervalMs délai maximal avant écriture dans le journal (0 pour une écriture synchrone)
+     * @param hotMonths nombre de mois (mois courant compris) chargés au démarrage, 0 pour tout charger
+     */
+    public ReservationRepository(long flushIntervalMs, int hotMonths) {
+        this(new CsvStorageBackend(), flushIntervalMs, hotMonths);
+    }
+
+    /**
+     * @param backend stockage injecté (CSV, mémoire...)
+     * @param flushIntervalMs délai maximal avant écriture dans le stockage (0 pour une écriture synchrone)
+     * @param hotMonths nombre de mois (mois courant compris) chargés au démarrage, 0 pour tout charger
+     */
+    public ReservationRepository(StorageBackend backend, long flushIntervalMs, int hotMonths) {
+        this(backend, flushIntervalMs, hotMonths, false);
+    }
+
+    /**
+     * @param backend stockage injecté (CSV, mémoire...)
+     * @param flushIntervalMs délai maximal avant écriture dans le stockage (0 pour une écriture synchrone)
+     * @param hotMonths nombre de mois (mois courant compris) chargés au démarrage, 0 pour tout charger
+     * @param coldOffHeap charge les partitions plus anciennes que la fenêtre chaude hors du tas
+     */
+    public ReservationRepository(StorageBackend backend, long flushIntervalMs, int hotMonths, boolean coldOffHeap) {
+        this.reservations = new ConcurrentHashMap<>();
+        this.index = new ReservationIndex();
+        this.firstHotMonth = hotMonths > 0 ? YearMonth.now().minusMonths(hotMonths - 1) : null;
+        this.coldReservations = coldOffHeap && firstHotMonth != null ? new OffHeapReservationStore() : null;
+        this.store = backend.reservationStore();
+        this.pagedStore = null;
+        this.archive = backend.reservationArchive();
+        this.flusher = new WriteBehindFlusher("reservations", this::appendPendingChanges, flushIntervalMs);
+        this.compactor = new LogCompactor("reservations", this::compactPartitions);
+        this.loader = new LazyLoader(this::loadFromStore);
+    }
+
+    /**
+     * Repository adossé au moteur paginé (arbre B+ sur disque) au lieu des partitions CSV
+     * Rien n'est chargé au démarrage : les réservations sont lues et écrites directement dans le fichier de pages.
+     */
+    public ReservationRepository(PagedStore<Reservation> pagedStore) {
+        this.reservations = pagedStore.asMap();
+        this.index = null;
+        this.coldReservations = null;
+        this.firstHotMonth = null;
+        this.store = null;
+        this.pagedStore = pagedStore;
+        this.archive = new CsvStorageBackend().reservationArchive();
+        this.flusher = new WriteBehindFlusher("reservations", this::appendPendingChanges, WriteBehindFlusher.configuredInterval());
+        this.compactor = null;
+        this.loader = LazyLoader.alreadyLoaded();
+        this.allPartitionsLoaded = true;
+    }
+
+    /**
+     * Lance le chargement des partitions récentes en arrière-plan (par exemple une fois l'interface affichée)
+     */
+    public CompletableFuture<Void> loadInBackground() {
+        return loader.loadInBackground();
+    }
+
+    public boolean isLoaded() {
+        return loader.isLoaded();
+    }
+
+    private void loadFromStore() {
+        SortedSet<YearMonth> months = store.listPartitions();
+        synchronized (partitionLock) {
+            knownPartitions.addAll(months);
+            for (YearMonth month : months) {
+                if (firstHotMonth == null || !month.isBefore(firstHotMonth)) {
+                    loadPartition(month);
+                }
+            }
+            allPartitionsLoaded = loadedPartitions.containsAll(knownPartitions);
+        }
+    }
+
+    /**
+     * Charge une partition si ce n'est pas déjà fait
+     * Les autres threads qui en ont besoin attendent la fin de la lecture ; chaque ligne est appliquée
+     * sous le verrou de son identifiant, comme une écriture.
+     */
+    private void loadPartition(YearMonth month) {
+        if (pagedStore != null) {
+            return;
+        }
+        synchronized (partitionLock) {
+            if (!loadedPartitions.add(month)) {
+                return;
+            }
+            knownPartitions.add(month);
+            boolean cold = coldReservations != null && month.isBefore(firstHotMonth);
+            Consumer<Reservation> onLoad = reservation -> {
+                synchronized (locks.lockFor(reservation.getId())) {
+                    if (cold) {
+                        putCold(reservation);
+                    } else {
+                        putOnHeap(reservation);
+                    }
+                    published.changed();
+                }
+            };
+            Consumer<String> onDelete = id -> {
+                synchronized (locks.lockFor(id)) {
+                    if (cold) {
+                        coldReservations.remove(id);
+                    }
+                    removeFromHeap(id);
+                    published.changed();
+                }
+            };
+            // Une partition froide est recopiée hors du tas : ses identifiants ne doivent pas rester dans le pool
+            boolean fromSnapshot = cold
+                    ? store.loadColdPartition(month, onLoad, onDelete)
+                    : store.loadPartition(month, onLoad, onDelete);
+            if (!fromSnapshot) {
+                staleSnapshots.add(month);
+            }
+        }
+    }
+
+    /**
+     * Range une réservation lue d'une partition froide hors du tas, ou dans le tas si elle n'y est pas
+     * représentable ou s'y trouve déjà (verrou de l'identifiant détenu)
+     */
+    private void putCold(Reservation reservation) {
+        if (reservations.containsKey(reservation.getId()) || !coldReservations.put(reservation)) {
+            coldReservations.remove(reservation.getId());
+            putOnHeap(reservation);
+        }
+    }
+
+    /**
+     * Ajoute ou remplace une réservation du tas en tenant l'index à jour (verrou de l'identifiant détenu)
+     * @return la réservation remplacée, null s'il s'agit d'un ajout
+     */
+    private Reservation putOnHeap(Reservation reservation) {
+        Reservation previous = reservations.put(reservation.getId(), reservation);
+        if (index != null) {
+            index.update(previous, reservation);
+        }
+        return previous;
+    }
+
+    /**
+     * Retire une réservation du tas si elle y est toujours associée à son identifiant
+     */
+    private boolean removeFromHeap(Reservation expected) {
+        if (!reservations.remove(expected.getId(), expected)) {
+            return false;
+        }
+        if (index != null) {
+            index.remove(expected);
+        }
+        return true;
+    }
+
+    private Reservation removeFromHeap(String id) {
+        Reservation removed = reservations.remove(id);
+        if (removed != null && index != null) {
+            index.remove(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Charge toutes les partitions, y compris les plus anciennes
+     */
+    public void loadAllPartitions() {
+        loader.ensureLoaded();
+        if (allPartitionsLoaded) {
+            return;
+        }
+        synchronized (partitionLock) {
+            for (YearMonth month : new ArrayList<>(knownPartitions)) {
+                loadPartition(month);
+            }
+            allPartitionsLoaded = true;
+        }
+    }
+
+    /**
+     * Ajoute les modifications en attente au journal de leur partition, puis demande le compactage
+     * des partitions dont le journal est devenu plus gros que le CSV
+     */
+    private void appendPendingChanges() {
+        TreeMap<YearMonth, Map<String, Reservation>> changes = new TreeMap<>();
+        pendingChanges.forEach((month, changeSet) -> {
+            Map<String, Reservation> drained = changeSet.drain();
+            if (!drained.isEmpty()) {
+                changes.put(month, drained);
+            }
+        });
+        if (pagedStore != null) {
+            // Les modifications sont déjà dans les pages : il suffit de les écrire sur disque
+            pagedStore.flush();
+            return;
+        }
+        for (Map.Entry<YearMonth, Map<String, Reservation>> entry : changes.entrySet()) {
+            try {
+                store.appendChanges(entry.getKey(), entry.getValue());
+                // Le journal a changé : l'instantané de la partition n'est plus valide, même s'il contenait déjà ces modifications
+                staleSnapshots.add(entry.getKey());
+            } catch (RuntimeException e) {
+                // Cette partition et les suivantes seront réécrites à la prochaine tentative
+                changes.tailMap(entry.getKey()).forEach((month, failed) ->
+                    pendingChanges.computeIfAbsent(month, key -> new ChangeSet<>()).restore(failed));
+                throw e;
+            }
+        }
+
+        for (YearMonth month : changes.keySet()) {
+            if (store.needsCompaction(month)) {
+                partitionsToCompact.add(month);
+                compactor.request();
+            }
+        }
+    }
+
+    /**
+     * Compacte les partitions demandées (thread de LogCompactor)
+     */
+    private void compactPartitions() {
+        for (YearMonth month : new ArrayList<>(partitionsToCompact)) {
+            partitionsToCompact.remove(month);
+            store.compactPartition(month, () -> partitionValues(month));
+            // Le CSV a changé : l'instantané de la partition est à réécrire
+            staleSnapshots.add(month);
+        }
+    }
+
+    /**
+     * Enregistre une modification à écrire dans le journal d'une partition (verrou de l'identifiant détenu)
+     */
+    private void recordChange(YearMonth month, String id, Reservation reservation) {
+        ChangeSet<Reservation> changeSet = pendingChanges.computeIfAbsent(month, key -> new ChangeSet<>());
+        if (reservation == null) {
+            changeSet.delete(id);
+        } else {
+            changeSet.put(id, reservation);
+        }
+        published.changed();
+    }
+
+    /**
+     * Copie de toutes les réservations chargées, du tas et hors tas, prise sans bloquer les écritures
+     */
+    private List<Reservation> copyValues() {
+        return withCold(coldReservations::values, () -> new ArrayList<>(reservations.values()));
     }
 
-    private void loadFromCsv() {
-        List<Reservation> loadedReservations = csvStorage.loadAll();
-        for (Reservation reservation : loadedReservations) {
-            reservations.put(reservation.getId(), reservation);
+    private List<Reservation> partitionValues(YearMonth month) {
+        Supplier<List<Reservation>> heap = () -> reservations.values().stream()
+                .filter(reservation -> ReservationStore.partitionOf(reservation).equals(month))
+                .collect(Collectors.toList());
+        if (coldReservations == null || !month.isBefore(firstHotMonth)) {
+            return heap.get();
         }
+        return withCold(() -> coldReservations.findByDateRange(month.atDay(1).atStartOfDay(),
+            month.plusMonths(1).atDay(1).atStartOfDay()), heap);
     }
 
-    private void saveToCsv() {
-        csvStorage.saveAll(reservations.values().stream().collect(Collectors.toList()));
+    /**
+     * Réunit les réservations trouvées hors tas et dans le tas, chacune une seule fois
+     * Une réservation ne fait que quitter le stockage froid pour le tas, où elle est ajoutée avant d'être
+     * retirée du premier : lu en premier, le stockage froid ne peut la manquer sans que le tas la contienne.
+     * Présente des deux côtés, c'est sa version du tas qui est retenue.
+     * @param heap résultat modifiable de la recherche dans le tas
+     */
+    private List<Reservation> withCold(Supplier<List<Reservation>> cold, Supplier<List<Reservation>> heap) {
+        if (coldReservations == null) {
+            return heap.get();
+        }
+        List<Reservation> coldFound = cold.get();
+        coldFound.removeIf(reservation -> reservations.containsKey(reservation.getId()));
+        List<Reservation> found = heap.get();
+        if (!coldFound.isEmpty()) {
+            // Déplacée entre les deux lectures : elle figure aussi dans le résultat du tas
+            Set<String> heapIds = found.stream().map(Reservation::getId).collect(Collectors.toSet());
+            for (Reservation reservation : coldFound) {
+                if (!heapIds.contains(reservation.getId())) {
+                    found.add(reservation);
+                }
+            }
+        }
+        return found;
     }
 
     @Override
     public Reservation save(Reservation reservation) {
-        reservations.put(reservation.getId(), reservation);
-        saveToCsv();
+        saveAsync(reservation);
         return reservation;
     }
 
+    /**
+     * Bloque le temps de lire la partition du mois visé si elle n'est pas encore chargée :
+     * l'écriture doit être visible des lectures qui suivent immédiatement l'appel.
+     */
+    @Override
+    public CompletableFuture<Void> saveAsync(Reservation saved) {
+        loader.ensureLoaded();
+        // Une vue sur le stockage froid est recopiée : gardée dans le tas, elle retiendrait son bloc hors tas
+        Reservation reservation = OffHeapReservationStore.detach(saved);
+        YearMonth month = ReservationStore.partitionOf(reservation);
+        // La partition cible doit être chargée pour que son contenu ne masque pas cette écriture plus tard
+        loadPartition(month);
+        synchronized (locks.lockFor(reservation.getId())) {
+            Reservation previous = putOnHeap(reservation);
+            if (previous == null && coldReservations != null) {
+                previous = coldReservations.remove(reservation.getId());
+            }
+            if (previous != null) {
+                YearMonth previousMonth = ReservationStore.partitionOf(previous);
+                if (!previousMonth.equals(month)) {
+                    // Changement de mois : la réservation quitte son ancienne partition
+                    recordChange(previousMonth, reservation.getId(), null);
+                }
+            }
+            recordChange(month, reservation.getId(), reservation);
+        }
+        return flusher.markDirty();
+    }
+
     @Override
     public Optional<Reservation> findById(String id) {
-        return Optional.ofNullable(reservations.get(id));
+        loader.ensureLoaded();
+        Reservation reservation = get(id);
+        if (reservation == null && !allPartitionsLoaded) {
+            loadAllPartitions();
+            reservation = get(id);
+        }
+        return Optional.ofNullable(reservation);
+    }
+
+    private Reservation get(String id) {
+        Reservation reservation = reservations.get(id);
+        return reservation == null && coldReservations != null ? coldReservations.get(id) : reservation;
     }
 
     @Override
     public List<Reservation> findAll() {
-        return List.copyOf(reservations.values());
+        loadAllPartitions();
+        if (pagedStore != null) {
+            // Aucune copie conservée : le moteur paginé ne garde en mémoire que les pages utilisées
+            return List.copyOf(reservations.values());
+        }
+        return published.values(coldReservations == null ? reservations::values : this::copyValues);
+    }
+
+    @Override
+    public long version() {
+        return published.version();
     }
 
     @Override
     public void deleteById(String id) {
-        reservations.remove(id);
-        saveToCsv();
+        deleteByIdAsync(id);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByIdAsync(String id) {
+        loader.ensureLoaded();
+        if (!allPartitionsLoaded && get(id) == null) {
+            loadAllPartitions();
+        }
+        synchronized (locks.lockFor(id)) {
+            Reservation removed = removeFromHeap(id);
+            if (removed == null && coldReservations != null) {
+                removed = coldReservations.remove(id);
+            }
+            if (removed == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            recordChange(ReservationStore.partitionOf(removed), id, null);
+        }
+        return flusher.markDirty();
     }
 
     @Override
     public boolean existsById(String id) {
-        return reservations.containsKey(id);
+        return findById(id).isPresent();
+    }
+
+    /**
+     * Écrit l'instantané binaire des partitions modifiées ou lues depuis leur CSV,
+     * relus en priorité au prochain démarrage ; les partitions inchangées ne sont pas réécrites
+     */
+    public void writeSnapshot() {
+        if (!loader.isLoaded()) {
+            return;
+        }
+        flush();
+        if (pagedStore != null) {
+            return;
+        }
+        for (YearMonth month : new ArrayList<>(staleSnapshots)) {
+            // Retiré avant la copie : un ajout concurrent au journal marque à nouveau la partition
+            staleSnapshots.remove(month);
+            store.writeSnapshot(month, () -> partitionValues(month));
+        }
+    }
+
+    @Override
+    public void flush() {
+        flusher.flush();
+    }
+
+    /**
+     * Archive les réservations plus anciennes que reservation.archive.age.days jours (365 par défaut,
+     * 0 pour ne pas archiver selon l'âge), ainsi que les réservations annulées ou terminées dont la date
+     * remonte à plus de reservation.archive.terminal.age.days jours (30 par défaut) : celles-ci restent
+     * quelque temps dans l'historique courant du client.
+     * Seules les partitions pouvant contenir de telles réservations et pas encore entièrement archivées
+     * sont chargées ; une réservation enregistrée plus tard dans un mois archivé reste dans le stockage courant.
+     * @return nombre de réservations archivées
+     */
+    public int archiveExpired() {
+        int ageDays = Integer.getInteger(ARCHIVE_AGE_PROPERTY, DEFAULT_ARCHIVE_AGE_DAYS);
+        int terminalAgeDays = Integer.getInteger(ARCHIVE_TERMINAL_AGE_PROPERTY, DEFAULT_ARCHIVE_TERMINAL_AGE_DAYS);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime ageLimit = now.minusDays(ageDays);
+        LocalDateTime terminalLimit = now.minusDays(terminalAgeDays);
+        Predicate<Reservation> eligible = reservation -> (ageDays > 0 && reservation.getDateTime().isBefore(ageLimit))
+                || (TERMINAL_STATUSES.contains(reservation.getStatus()) && reservation.getDateTime().isBefore(terminalLimit));
+        if (pagedStore != null) {
+            return archiveWhere(eligible);
+        }
+
+        loader.ensureLoaded();
+        YearMonth archivedThrough = archive.archivedThrough();
+        YearMonth lastMonth = YearMonth.from(ageDays > 0 && ageLimit.isAfter(terminalLimit) ? ageLimit : terminalLimit);
+        List<YearMonth> months;
+        synchronized (partitionLock) {
+            months = knownPartitions.stream()
+                    .filter(month -> (archivedThrough == null || month.isAfter(archivedThrough)) && !month.isAfter(lastMonth))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        List<Reservation> candidates = new ArrayList<>();
+        for (YearMonth month : months) {
+            loadPartition(month);
+            partitionValues(month).stream().filter(eligible).forEach(candidates::add);
+        }
+        int archived = moveToArchive(candidates);
+
+        // Les mois entièrement antérieurs à la limite d'âge sont vides, sauf si une réservation a changé entre-temps
+        YearMonth fullyArchived = YearMonth.from(ageLimit).minusMonths(1);
+        if (ageDays > 0 && archived == candidates.size()
+                && (archivedThrough == null || fullyArchived.isAfter(archivedThrough))) {
+            try {
+                archive.setArchivedThrough(fullyArchived);
+            } catch (IOException e) {
+                System.err.println("Erreur lors de l'enregistrement des mois archivés: " + e.getMessage());
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Déplace vers l'archive froide les réservations satisfaisant le critère, toutes partitions confondues
+     * @return nombre de réservations archivées
+     */
+    public int archiveWhere(Predicate<Reservation> eligible) {
+        loadAllPartitions();
+        return moveToArchive(copyValues().stream()
+                .filter(eligible)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Déplace des réservations vers l'archive froide
+     * Le segment d'archive est écrit avant la suppression du stockage courant : une interruption
+     * laisse au pire une réservation présente aux deux endroits, jamais perdue.
+     * @return nombre de réservations archivées
+     */
+    private int moveToArchive(List<Reservation> archived) {
+        if (archived.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            archive.append(archived);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'archivage des réservations: " + e.getMessage());
+            return 0;
+        }
+
+        int removed = 0;
+        for (Reservation reservation : archived) {
+            synchronized (locks.lockFor(reservation.getId())) {
+                // Une réservation modifiée depuis sa copie reste dans le stockage courant
+                if (removeFromHeap(reservation)
+                        || (coldReservations != null && coldReservations.remove(reservation))) {
+                    recordChange(ReservationStore.partitionOf(reservation), reservation.getId(), null);
+                    removed++;
+                }
+            }
+        }
+        flusher.markDirty();
+        return removed;
+    }
+
+    /**
+     * Trouve une réservation dans l'archive froide
+     */
+    public Optional<Reservation> findArchivedById(String id) {
+        return archive.findById(id);
+    }
+
+    /**
+     * Trouve toutes les réservations d'un client, partitions anciennes et archive comprises
+     * Une réservation présente à la fois dans le stockage courant et dans l'archive n'est retournée qu'une fois.
+     */
+    public List<Reservation> findByClientIdWithArchive(String clientId) {
+        loadAllPartitions();
+        Map<String, Reservation> history = new LinkedHashMap<>();
+        for (Reservation reservation : archive.findByClientId(clientId)) {
+            history.put(reservation.getId(), reservation);
+        }
+        for (Reservation reservation : findByClientId(clientId)) {
+            history.put(reservation.getId(), reservation);
+        }
+        return new ArrayList<>(history.values());
+    }
+
+    /**
+     * Trouve les réservations dont la date est comprise entre from (inclus) et to (exclu)
+     * Seules les partitions des mois couverts par la période sont chargées.
+     */
+    public List<Reservation> findByDateRange(LocalDateTime from, LocalDateTime to) {
+        loader.ensureLoaded();
+        YearMonth firstMonth = YearMonth.from(from);
+        YearMonth lastMonth = YearMonth.from(to);
+        synchronized (partitionLock) {
+            for (YearMonth month : new ArrayList<>(knownPartitions)) {
+                if (!month.isBefore(firstMonth) && !month.isAfter(lastMonth)) {
+                    loadPartition(month);
+                }
+            }
+        }
+        return withCold(() -> coldReservations.findByDateRange(from, to),
+            () -> reservations.values().stream()
+                .filter(reservation -> !reservation.getDateTime().isBefore(from)
+                        && reservation.getDateTime().isBefore(to))
+                .collect(Collectors.toList()));
     }
 
     /**
      * Trouve les réservations d'un client
+     * Les partitions anciennes pas encore chargées le sont d'abord.
      */
     public List<Reservation> findByClientId(String clientId) {
-        return reservations.values().stream()
-                .filter(reservation -> reservation.getClientId().equals(clientId))
-                .collect(Collectors.toList());
+        loadAllPartitions();
+        return withCold(() -> coldReservations.findByClientId(clientId),
+            () -> find(index -> index.clientIds(clientId), reservation -> reservation.getClientId().equals(clientId)));
     }
 
     /**
      * Trouve les réservations d'un prestataire
      */
     public List<Reservation> findByPrestataireId(String prestataireId) {
-        return reservations.values().stream()
-                .filter(reservation -> reservation.getPrestataireId().equals(prestataireId))
-                .collect(Collectors.toList());
+        loadAllPartitions();
+        return withCold(() -> coldReservations.findByPrestataireId(prestataireId),
+            () -> find(index -> index.prestataireIds(prestataireId),
+                reservation -> reservation.getPrestataireId().equals(prestataireId)));
     }
 
     /**
      * Trouve les réservations par statut
      */
     public List<Reservation> findByStatus(ReservationStatus status) {
-        return reservations.values().stream()
-                .filter(reservation -> reservation.getStatus() == status)
-                .collect(Collectors.toList());
+        loadAllPartitions();
+        return withCold(() -> coldReservations.findByStatus(status),
+            () -> find(index -> index.statusIds(status), reservation -> reservation.getStatus() == status));
     }
-}
 
+    /**
+     * Réservations du tas satisfaisant le critère, lues par l'index (coût proportionnel au résultat)
+     * ou, en mode paginé, par un parcours complet
+     * Le critère est réappliqué aux réservations de l'index : un statut modifié mais pas encore enregistré
+     * n'est pas encore indexé sous sa nouvelle valeur, et ne doit plus sortir sous l'ancienne.
+     */
+    private List<Reservation> find(Function<ReservationIndex, Set<String>> indexed, Predicate<Reservation> filter) {
+        if (index == null) {
+            return reservations.values().stream()
+                    .filter(filter)
+                    .collect(Collectors.toList());
+        }
+        List<Reservation> found = new ArrayList<>();
+        for (String id : indexed.apply(index)) {
+            Reservation reservation = reservations.get(id);
+            if (reservation != null && filter.test(reservation)) {
+                found.add(reservation);
+            }
+        }
+        return found;
+    }
+}
@@ -1,44 +1,193 @@
 package com.reservation.repository;
 
 import com.reservation.model.Service;
-import com.reservation.storage.ServiceCsvStorage;
+import com.reservation.storage.CsvStorageBackend;
+import com.reservation.storage.EntityStore;
+import com.reservation.storage.LogCompactor;
+import com.reservation.storage.StorageBackend;
+import com.reservation.storage.WriteBehindFlusher;
+import com.reservation.storage.paged.PagedStore;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Implémentation du Repository pour les services
+ * Seules les modifications depuis la dernière écriture (ChangeSet) sont ajoutées au journal ;
+ * ces écritures sont différées et regroupées par WriteBehindFlusher
+ * Les recherches par catégorie et par prestataire, la liste des catégories et leurs effectifs
+ * sont servis par des index tenus à jour à chaque enregistrement, sans parcours du catalogue.
+ * Thread-safe : chaque écriture verrouille son seul identifiant ; les lectures ne prennent aucun verrou
+ * hors mode paginé (PagedStore les fait passer par son verrou de lecture, partagé entre lecteurs).
  */
 public class ServiceRepository implements Repository<Service, String> {
-    private final Map<String, Service> services = new HashMap<>();
-    private final ServiceCsvStorage csvStorage;
+    private final Map<String, Service> services;
+    // Index catégorie → services et prestataire → services
+    private final ConcurrentHashMap<String, Set<String>> serviceIdsByCategory = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> serviceIdsByPrestataire = new ConcurrentHashMap<>();
+    private final StripedLocks locks = new StripedLocks();
+    // Modifications pas encore écrites dans le journal
+    private final ChangeSet<Service> pendingChanges = new ChangeSet<>();
+    // Liste renvoyée par findAll, recopiée seulement après une écriture
+    private final VersionedSnapshot<Service> published = new VersionedSnapshot<>();
+    private final EntityStore<Service> store;
+    // Moteur paginé utilisé à la place du stockage (null sinon)
+    private final PagedStore<Service> pagedStore;
+    private final WriteBehindFlusher flusher;
+    // Compactage du journal en arrière-plan (null en mode paginé)
+    private final LogCompactor compactor;
 
     public ServiceRepository() {
-        this.csvStorage = new ServiceCsvStorage();
-        loadFromCsv();
+        this(WriteBehindFlusher.configuredInterval());
     }
 
-    private void loadFromCsv() {
-        List<Service> loadedServices = csvStorage.loadAll();
-        for (Service service : loadedServices) {
-            services.put(service.getId(), service);
+    /**
+     * @param flushIntervalMs délai maximal avant écriture dans le journal (0 pour une écriture synchrone)
+     */
+    public ServiceRepository(long flushIntervalMs) {
+        this(new CsvStorageBackend(), flushIntervalMs);
+    }
+
+    /**
+     * @param backend stockage injecté (CSV, mémoire...)
+     * @param flushIntervalMs délai maximal avant écriture dans le stockage (0 pour une écriture synchrone)
+     */
+    public ServiceRepository(StorageBackend backend, long flushIntervalMs) {
+        this.services = new ConcurrentHashMap<>();
+        this.store = backend.serviceStore();
+        this.pagedStore = null;
+        this.flusher = new WriteBehindFlusher("services", this::persistChanges, flushIntervalMs);
+        this.compactor = new LogCompactor("services", () -> store.compact(this::copyValues));
+        loadFromStore();
+    }
+
+    /**
+     * Repository adossé au moteur paginé (arbre B+ sur disque) au lieu du CSV
+     * Les entités sont lues et écrites directement dans le fichier de pages ; seuls les index par catégorie
+     * et par prestataire (catalogue de taille modeste) sont construits au démarrage.
+     */
+    public ServiceRepository(PagedStore<Service> pagedStore) {
+        this.services = pagedStore.asMap();
+        this.store = null;
+        this.pagedStore = pagedStore;
+        this.flusher = new WriteBehindFlusher("services", this::persistChanges, WriteBehindFlusher.configuredInterval());
+        this.compactor = null;
+        // Seuls les index sont construits au démarrage, par un parcours des pages
+        services.values().forEach(this::index);
+    }
+
+    /**
+     * Charge le stockage (constructeur : aucun accès concurrent)
+     */
+    private void loadFromStore() {
+        store.loadAll(this::put, this::remove);
+    }
+
+    /**
+     * Ajoute ou remplace un service en tenant les index à jour (verrou de son identifiant détenu)
+     * Le service remplacé est désindexé d'après ses propres valeurs : un changement de catégorie
+     * ou de prestataire (updateService) le retire de son ancienne entrée.
+     */
+    private void put(Service service) {
+        Service previous = services.put(service.getId(), service);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(service);
+    }
+
+    private Service remove(String id) {
+        Service removed = services.remove(id);
+        if (removed != null) {
+            unindex(removed);
         }
+        return removed;
     }
 
-    private void saveToCsv() {
-        csvStorage.saveAll(services.values().stream().collect(Collectors.toList()));
+    private void index(Service service) {
+        addToIndex(serviceIdsByCategory, service.getCategory(), service.getId());
+        addToIndex(serviceIdsByPrestataire, service.getPrestataireId(), service.getId());
+    }
+
+    private void unindex(Service service) {
+        removeFromIndex(serviceIdsByCategory, service.getCategory(), service.getId());
+        removeFromIndex(serviceIdsByPrestataire, service.getPrestataireId(), service.getId());
+    }
+
+    /**
+     * Ajout et retrait passent par compute, atomique par clé : une entrée vidée ne peut pas
+     * être supprimée pendant qu'un autre thread y ajoute un service
+     */
+    private static void addToIndex(ConcurrentHashMap<String, Set<String>> index, String key, String id) {
+        if (key != null) {
+            index.compute(key, (ignored, ids) -> {
+                Set<String> updated = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                updated.add(id);
+                return updated;
+            });
+        }
+    }
+
+    private static void removeFromIndex(ConcurrentHashMap<String, Set<String>> index, String key, String id) {
+        if (key != null) {
+            index.computeIfPresent(key, (ignored, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids);
+        }
+    }
+
+    /**
+     * Ajoute les modifications en attente au journal, puis demande le compactage du journal s'il est devenu trop gros
+     */
+    private void persistChanges() {
+        Map<String, Service> changes = pendingChanges.drain();
+        if (pagedStore != null) {
+            // Les modifications sont déjà dans les pages : il suffit de les écrire sur disque
+            pagedStore.flush();
+            return;
+        }
+        try {
+            store.appendChanges(changes);
+        } catch (RuntimeException e) {
+            // Les modifications seront réécrites à la prochaine tentative
+            pendingChanges.restore(changes);
+            throw e;
+        }
+        if (store.needsCompaction()) {
+            compactor.request();
+        }
+    }
+
+    /**
+     * Copie faiblement cohérente des services, prise sans bloquer les écritures
+     * (toute modification déjà écrite dans le journal y figure)
+     */
+    private List<Service> copyValues() {
+        return new ArrayList<>(services.values());
     }
 
     @Override
     public Service save(Service service) {
-        services.put(service.getId(), service);
-        saveToCsv();
+        saveAsync(service);
         return service;
     }
 
+    @Override
+    public CompletableFuture<Void> saveAsync(Service service) {
+        synchronized (locks.lockFor(service.getId())) {
+            put(service);
+            pendingChanges.put(service.getId(), service);
+            published.changed();
+        }
+        return flusher.markDirty();
+    }
+
     @Override
     public Optional<Service> findById(String id) {
         return Optional.ofNullable(services.get(id));
@@ -46,13 +195,33 @@ public class ServiceRepository implements Repository<Service, String> {
 
     @Override
     public List<Service> findAll() {
-        return List.copyOf(services.values());
+        if (pagedStore != null) {
+            // Aucune copie conservée : le moteur paginé ne garde en mémoire que les pages utilisées
+            return List.copyOf(services.values());
+        }
+        return published.values(services::values);
+    }
+
+    @Override
+    public long version() {
+        return published.version();
     }
 
     @Override
     public void deleteById(String id) {
-        services.remove(id);
-        saveToCsv();
+        deleteByIdAsync(id);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByIdAsync(String id) {
+        synchronized (locks.lockFor(id)) {
+            if (remove(id) == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            pendingChanges.delete(id);
+            published.changed();
+        }
+        return flusher.markDirty();
     }
 
     @Override
@@ -60,22 +229,79 @@ public class ServiceRepository implements Repository<Service, String> {
         return services.containsKey(id);
     }
 
+    /**
+     * Écrit l'instantané binaire des services, relu en priorité au prochain démarrage
+     */
+    public void writeSnapshot() {
+        flush();
+        if (pagedStore != null) {
+            return;
+        }
+        store.writeSnapshot(this::copyValues);
+    }
+
+    @Override
+    public void flush() {
+        flusher.flush();
+    }
+
     /**
      * Trouve les services par catégorie
      */
     public List<Service> findByCategory(String category) {
-        return services.values().stream()
-                .filter(service -> service.getCategory().equals(category))
-                .collect(Collectors.toList());
+        return resolve(serviceIdsByCategory, category, Service::getCategory);
     }
 
     /**
      * Trouve les services d'un prestataire
      */
     public List<Service> findByPrestataireId(String prestataireId) {
-        return services.values().stream()
-                .filter(service -> service.getPrestataireId().equals(prestataireId))
-                .collect(Collectors.toList());
+        return resolve(serviceIdsByPrestataire, prestataireId, Service::getPrestataireId);
+    }
+
+    /**
+     * Catégories ayant au moins un service, par ordre alphabétique
+     */
+    public List<String> findCategories() {
+        List<String> categories = new ArrayList<>(serviceIdsByCategory.keySet());
+        Collections.sort(categories);
+        return categories;
+    }
+
+    /**
+     * Nombre de services par catégorie, par ordre alphabétique des catégories
+     */
+    public Map<String, Integer> countByCategory() {
+        Map<String, Integer> counts = new TreeMap<>();
+        serviceIdsByCategory.forEach((category, ids) -> counts.put(category, ids.size()));
+        return counts;
     }
-}
 
+    /**
+     * Nombre de services d'une catégorie
+     */
+    public int countByCategory(String category) {
+        Set<String> ids = category == null ? null : serviceIdsByCategory.get(category);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /**
+     * Services d'une entrée d'index (aucun pour une clé nulle, jamais indexée)
+     * La clé est revérifiée sur chaque service : un service déplacé est publié avant d'être retiré
+     * de son ancienne entrée, et ne doit plus en sortir entre-temps.
+     */
+    private List<Service> resolve(Map<String, Set<String>> index, String key, Function<Service, String> indexedKey) {
+        Set<String> ids = key == null ? null : index.get(key);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Service> found = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Service service = services.get(id);
+            if (service != null && key.equals(indexedKey.apply(service))) {
+                found.add(service);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,35 @@
+package com.reservation.repository;
+
+/**
+ * Verrous répartis par identifiant, pour les opérations composées d'un repository
+ * (mise à jour de la map, des index et des modifications en attente) :
+ * deux écritures ne s'attendent que si leurs identifiants tombent sur le même verrou.
+ */
+final class StripedLocks {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final Object[] locks;
+
+    StripedLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes nombre de verrous (arrondi à la puissance de deux supérieure)
+     */
+    StripedLocks(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new Object[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Verrou de l'identifiant, à utiliser avec synchronized
+     */
+    Object lockFor(String id) {
+        int hash = id.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (locks.length - 1)];
+    }
+}
@@ -1,46 +1,218 @@
 package com.reservation.repository;
 
 import com.reservation.model.User;
-import com.reservation.storage.UserCsvStorage;
+import com.reservation.storage.CsvStorageBackend;
+import com.reservation.storage.EntityStore;
+import com.reservation.storage.LogCompactor;
+import com.reservation.storage.StorageBackend;
+import com.reservation.storage.WriteBehindFlusher;
+import com.reservation.storage.paged.PagedStore;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implémentation du Repository pour les utilisateurs
  * Design Pattern: Repository
  * Principe SOLID: SRP (Single Responsibility Principle) - Responsabilité unique de gestion des utilisateurs
+ * Seules les modifications depuis la dernière écriture (ChangeSet) sont ajoutées au journal ;
+ * ces écritures sont différées et regroupées par WriteBehindFlusher
+ * Un index unique des emails (normalisés : espaces retirés, minuscules) sert findByEmail en O(1)
+ * et refuse l'enregistrement d'un email déjà utilisé par un autre utilisateur.
+ * Thread-safe : les lectures ne prennent aucun verrou (en mode paginé, seulement le verrou de lecture
+ * partagé du PagedStore) ; chaque écriture verrouille son seul identifiant (StripedLocks),
+ * et l'unicité des emails repose sur putIfAbsent.
  */
 public class UserRepository implements Repository<User, String> {
-    private final Map<String, User> users = new HashMap<>();
-    private final UserCsvStorage csvStorage;
+    private final Map<String, User> users;
+    // Email normalisé → identifiant de son utilisateur
+    private final Map<String, String> idsByEmail = new ConcurrentHashMap<>();
+    // Emails portés par plusieurs utilisateurs dans les données chargées
+    private final Set<String> duplicatedEmails = ConcurrentHashMap.newKeySet();
+    private final StripedLocks locks = new StripedLocks();
+    // Modifications pas encore écrites dans le journal
+    private final ChangeSet<User> pendingChanges = new ChangeSet<>();
+    // Liste renvoyée par findAll, recopiée seulement après une écriture
+    private final VersionedSnapshot<User> published = new VersionedSnapshot<>();
+    private final EntityStore<User> store;
+    // Moteur paginé utilisé à la place du stockage (null sinon)
+    private final PagedStore<User> pagedStore;
+    private final WriteBehindFlusher flusher;
+    // Compactage du journal en arrière-plan (null en mode paginé)
+    private final LogCompactor compactor;
 
     public UserRepository() {
-        this.csvStorage = new UserCsvStorage();
-        loadFromCsv();
+        this(WriteBehindFlusher.configuredInterval());
     }
 
-    private void loadFromCsv() {
-        List<User> loadedUsers = csvStorage.loadAll();
-        for (User user : loadedUsers) {
-            users.put(user.getId(), user);
+    /**
+     * @param flushIntervalMs délai maximal avant écriture dans le journal (0 pour une écriture synchrone)
+     */
+    public UserRepository(long flushIntervalMs) {
+        this(new CsvStorageBackend(), flushIntervalMs);
+    }
+
+    /**
+     * @param backend stockage injecté (CSV, mémoire...)
+     * @param flushIntervalMs délai maximal avant écriture dans le stockage (0 pour une écriture synchrone)
+     */
+    public UserRepository(StorageBackend backend, long flushIntervalMs) {
+        this.users = new ConcurrentHashMap<>();
+        this.store = backend.userStore();
+        this.pagedStore = null;
+        this.flusher = new WriteBehindFlusher("users", this::persistChanges, flushIntervalMs);
+        this.compactor = new LogCompactor("users", () -> store.compact(this::copyValues));
+        loadFromStore();
+    }
+
+    /**
+     * Repository adossé au moteur paginé (arbre B+ sur disque) au lieu du CSV
+     * Les entités sont lues et écrites directement dans le fichier de pages ; seul l'index des emails,
+     * nécessaire pour garantir leur unicité dès la première écriture, est construit au démarrage.
+     */
+    public UserRepository(PagedStore<User> pagedStore) {
+        this.users = pagedStore.asMap();
+        this.store = null;
+        this.pagedStore = pagedStore;
+        this.flusher = new WriteBehindFlusher("users", this::persistChanges, WriteBehindFlusher.configuredInterval());
+        this.compactor = null;
+        // Seul l'index des emails est construit au démarrage, par un parcours des pages
+        users.values().forEach(this::indexLoaded);
+    }
+
+    /**
+     * Charge le stockage (constructeur : aucun accès concurrent)
+     */
+    private void loadFromStore() {
+        store.loadAll(user -> {
+            User previous = users.put(user.getId(), user);
+            String previousEmail = previous == null ? null : normalizeEmail(previous.getEmail());
+            if (previousEmail != null && !previousEmail.equals(normalizeEmail(user.getEmail()))) {
+                releaseEmail(previousEmail, user.getId());
+            }
+            indexLoaded(user);
+        }, id -> unindexEmail(users.remove(id)));
+    }
+
+    /**
+     * Indexe l'email d'un utilisateur lu depuis le stockage
+     * Un doublon déjà présent dans les données est signalé mais conservé : l'index garde le premier utilisateur,
+     * et l'email passe à un autre de ses porteurs quand celui-ci le libère (releaseEmail).
+     */
+    private void indexLoaded(User user) {
+        String email = normalizeEmail(user.getEmail());
+        if (email == null) {
+            return;
+        }
+        String owner = idsByEmail.putIfAbsent(email, user.getId());
+        if (owner != null && !owner.equals(user.getId())) {
+            System.err.println("Email en double dans les utilisateurs enregistrés: " + user.getEmail()
+                + " (" + owner + ", " + user.getId() + ")");
+            duplicatedEmails.add(email);
+        }
+    }
+
+    /**
+     * Retire l'email d'un utilisateur remplacé ou supprimé, s'il lui est bien associé
+     */
+    private void unindexEmail(User user) {
+        String email = user == null ? null : normalizeEmail(user.getEmail());
+        if (email != null) {
+            releaseEmail(email, user.getId());
+        }
+    }
+
+    /**
+     * Libère un email associé à un utilisateur qui ne le porte plus (supprimé ou email modifié)
+     * Un email en double dans les données chargées est réattribué à un autre utilisateur qui le porte encore,
+     * pour qu'il reste trouvable par findByEmail et qu'un nouvel utilisateur ne puisse pas le prendre.
+     */
+    private void releaseEmail(String email, String id) {
+        if (!idsByEmail.remove(email, id) || !duplicatedEmails.contains(email)) {
+            return;
         }
+        for (User other : users.values()) {
+            if (!other.getId().equals(id) && email.equals(normalizeEmail(other.getEmail()))) {
+                idsByEmail.putIfAbsent(email, other.getId());
+                return;
+            }
+        }
+        // Plus aucun autre porteur : l'email redevient unique
+        duplicatedEmails.remove(email);
     }
 
-    private void saveToCsv() {
-        csvStorage.saveAll(users.values().stream().collect(Collectors.toList()));
+    private static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ajoute les modifications en attente au journal, puis demande le compactage du journal s'il est devenu trop gros
+     */
+    private void persistChanges() {
+        Map<String, User> changes = pendingChanges.drain();
+        if (pagedStore != null) {
+            // Les modifications sont déjà dans les pages : il suffit de les écrire sur disque
+            pagedStore.flush();
+            return;
+        }
+        try {
+            store.appendChanges(changes);
+        } catch (RuntimeException e) {
+            // Les modifications seront réécrites à la prochaine tentative
+            pendingChanges.restore(changes);
+            throw e;
+        }
+        if (store.needsCompaction()) {
+            compactor.request();
+        }
+    }
+
+    /**
+     * Copie faiblement cohérente des utilisateurs, prise sans bloquer les écritures
+     * Suffisante pour la persistance : toute modification déjà écrite dans le journal y figure.
+     */
+    private List<User> copyValues() {
+        return new ArrayList<>(users.values());
     }
 
     @Override
     public User save(User user) {
-        users.put(user.getId(), user);
-        saveToCsv();
+        saveAsync(user);
         return user;
     }
 
+    /**
+     * @throws IllegalArgumentException si l'email est déjà utilisé par un autre utilisateur
+     */
+    @Override
+    public CompletableFuture<Void> saveAsync(User user) {
+        String email = normalizeEmail(user.getEmail());
+        synchronized (locks.lockFor(user.getId())) {
+            String owner = email == null ? null : idsByEmail.putIfAbsent(email, user.getId());
+            if (owner != null && !owner.equals(user.getId())) {
+                throw new IllegalArgumentException("Email déjà utilisé par un autre utilisateur: " + user.getEmail());
+            }
+            User previous = users.put(user.getId(), user);
+            // Un changement d'email libère l'ancien
+            String previousEmail = previous == null ? null : normalizeEmail(previous.getEmail());
+            if (previousEmail != null && !previousEmail.equals(email)) {
+                releaseEmail(previousEmail, user.getId());
+            }
+            pendingChanges.put(user.getId(), user);
+            published.changed();
+        }
+        return flusher.markDirty();
+    }
+
     @Override
     public Optional<User> findById(String id) {
         return Optional.ofNullable(users.get(id));
@@ -48,13 +220,35 @@ public class UserRepository implements Repository<User, String> {
 
     @Override
     public List<User> findAll() {
-        return List.copyOf(users.values());
+        if (pagedStore != null) {
+            // Aucune copie conservée : le moteur paginé ne garde en mémoire que les pages utilisées
+            return List.copyOf(users.values());
+        }
+        return published.values(users::values);
+    }
+
+    @Override
+    public long version() {
+        return published.version();
     }
 
     @Override
     public void deleteById(String id) {
-        users.remove(id);
-        saveToCsv();
+        deleteByIdAsync(id);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByIdAsync(String id) {
+        synchronized (locks.lockFor(id)) {
+            User removed = users.remove(id);
+            if (removed == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            unindexEmail(removed);
+            pendingChanges.delete(id);
+            published.changed();
+        }
+        return flusher.markDirty();
     }
 
     @Override
@@ -63,12 +257,31 @@ public class UserRepository implements Repository<User, String> {
     }
 
     /**
-     * Trouve un utilisateur par email
+     * Écrit l'instantané binaire des utilisateurs, relu en priorité au prochain démarrage
+     */
+    public void writeSnapshot() {
+        flush();
+        if (pagedStore != null) {
+            return;
+        }
+        store.writeSnapshot(this::copyValues);
+    }
+
+    @Override
+    public void flush() {
+        flusher.flush();
+    }
+
+    /**
+     * Trouve un utilisateur par email, sans tenir compte de la casse ni des espaces autour
      */
     public Optional<User> findByEmail(String email) {
-        return users.values().stream()
-                .filter(user -> user.getEmail().equals(email))
-                .findFirst();
+        String normalized = normalizeEmail(email);
+        if (normalized == null) {
+            return Optional.empty();
+        }
+        String id = idsByEmail.get(normalized);
+        return id == null ? Optional.empty() : Optional.ofNullable(users.get(id));
     }
 }
 
@@ -0,0 +1,56 @@
+package com.reservation.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Liste immuable des entités d'un repository, partagée entre les lectures tant qu'aucune écriture n'a eu lieu
+ * Chaque écriture incrémente la version (changed, appelé après la modification de la map) ; la première lecture
+ * qui suit recopie les entités une fois, les suivantes reçoivent la même liste sans copie ni verrou.
+ * Une liste n'est publiée sous une version que si toutes les écritures de numéro inférieur ou égal y figurent.
+ */
+final class VersionedSnapshot<T> {
+    private static final class Published<T> {
+        private final long version;
+        private final List<T> values;
+
+        private Published(long version, List<T> values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Published<T> published = new Published<>(-1, List.of());
+
+    /**
+     * Signale une modification : la liste publiée n'est plus à jour
+     */
+    void changed() {
+        version.incrementAndGet();
+    }
+
+    long version() {
+        return version.get();
+    }
+
+    /**
+     * Liste à jour des entités, recopiée depuis la source seulement si une écriture a eu lieu depuis la dernière copie
+     * @param source entités courantes (parcours faiblement cohérent admis)
+     */
+    List<T> values(Supplier<? extends Collection<T>> source) {
+        Published<T> current = published;
+        // Version lue avant la copie : une écriture concurrente l'incrémente, la copie sera refaite à la lecture suivante
+        long expected = version.get();
+        if (current.version == expected) {
+            return current.values;
+        }
+        List<T> values = List.copyOf(source.get());
+        if (published.version < expected) {
+            published = new Published<>(expected, values);
+        }
+        return values;
+    }
+}
@@ -5,9 +5,8 @@ import com.reservation.model.NotificationType;
 import com.reservation.observer.NotificationObserver;
 import com.reservation.observer.NotificationSubject;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Service de gestion des notifications
@@ -16,13 +15,12 @@ import java.util.UUID;
  * Principe SOLID: OCP (Open/Closed Principle) - On peut ajouter de nouveaux observateurs sans modifier le code
  */
 public class NotificationService implements NotificationSubject {
-    private final List<NotificationObserver> observers = new ArrayList<>();
+    // Copie à l'écriture : les notifications envoyées depuis plusieurs threads parcourent la liste sans verrou
+    private final CopyOnWriteArrayList<NotificationObserver> observers = new CopyOnWriteArrayList<>();
 
     @Override
     public void attach(NotificationObserver observer) {
-        if (!observers.contains(observer)) {
-            observers.add(observer);
-        }
+        observers.addIfAbsent(observer);
     }
 
     @Override
@@ -15,10 +15,19 @@ import java.util.UUID;
  */
 public class PaymentService {
     private final PaymentRepository paymentRepository;
-    private PaymentStrategy paymentStrategy;
+    private final PersistenceMode persistenceMode;
+    private volatile PaymentStrategy paymentStrategy;
 
     public PaymentService(PaymentRepository paymentRepository) {
+        this(paymentRepository, PersistenceMode.CONFIRM_LATER);
+    }
+
+    /**
+     * @param persistenceMode attente (ou non) de l'écriture sur disque après chaque modification
+     */
+    public PaymentService(PaymentRepository paymentRepository, PersistenceMode persistenceMode) {
         this.paymentRepository = paymentRepository;
+        this.persistenceMode = persistenceMode;
     }
 
     /**
@@ -34,6 +43,15 @@ public class PaymentService {
      */
     public Payment processPayment(String reservationId, BigDecimal amount, 
                                   PaymentMethod method, String paymentDetails) {
+        return processPayment(paymentStrategy, reservationId, amount, method, paymentDetails);
+    }
+
+    /**
+     * Traite un paiement avec la stratégie donnée, sans modifier la stratégie du service
+     * (appels concurrents avec des moyens de paiement différents)
+     */
+    public Payment processPayment(PaymentStrategy paymentStrategy, String reservationId, BigDecimal amount,
+                                  PaymentMethod method, String paymentDetails) {
         if (paymentStrategy == null) {
             throw new IllegalStateException("Stratégie de paiement non définie");
         }
@@ -54,7 +72,8 @@ public class PaymentService {
             payment.setStatus(PaymentStatus.FAILED);
         }
 
-        return paymentRepository.save(payment);
+        persistenceMode.apply(paymentRepository.saveAsync(payment), "du paiement " + payment.getId());
+        return payment;
     }
 
     /**
@@ -63,7 +82,7 @@ public class PaymentService {
     public void refundPayment(String paymentId) {
         paymentRepository.findById(paymentId).ifPresent(payment -> {
             payment.setStatus(PaymentStatus.REFUNDED);
-            paymentRepository.save(payment);
+            persistenceMode.apply(paymentRepository.saveAsync(payment), "du remboursement " + paymentId);
         });
     }
 
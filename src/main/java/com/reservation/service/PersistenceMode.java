@@ -0,0 +1,38 @@
+package com.reservation.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Attente de la persistance après une modification, choisie par chaque service
+ * AWAIT_DURABLE : l'appel ne rend la main qu'une fois la modification durable sur disque
+ * CONFIRM_LATER : l'appel n'attend pas l'écriture de la modification ; un échec d'écriture est signalé à sa survenue.
+ * Il peut néanmoins lire le disque au premier accès à un repository ou à une partition non encore chargés,
+ * et écrit de façon synchrone si reservation.flush.interval.ms est nul ou négatif.
+ */
+public enum PersistenceMode {
+    AWAIT_DURABLE,
+    CONFIRM_LATER;
+
+    /**
+     * Applique le mode à l'écriture d'une modification
+     * @param write futur de l'écriture, fourni par le repository
+     * @param description modification concernée, pour les messages d'erreur
+     * @throws IllegalStateException en mode AWAIT_DURABLE si l'écriture a échoué
+     */
+    void apply(CompletableFuture<Void> write, String description) {
+        if (this == AWAIT_DURABLE) {
+            try {
+                write.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Échec de l'enregistrement de " + description, e.getCause());
+            }
+        } else {
+            write.whenComplete((ignored, error) -> {
+                if (error != null) {
+                    System.err.println("Erreur lors de l'enregistrement de " + description + ": " + error.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -19,13 +19,25 @@ public class ReservationService {
     private final ReservationRepository reservationRepository;
     private final ServiceRepository serviceRepository;
     private final NotificationService notificationService;
+    private final PersistenceMode persistenceMode;
 
     public ReservationService(ReservationRepository reservationRepository,
                             ServiceRepository serviceRepository,
                             NotificationService notificationService) {
+        this(reservationRepository, serviceRepository, notificationService, PersistenceMode.CONFIRM_LATER);
+    }
+
+    /**
+     * @param persistenceMode attente (ou non) de l'écriture sur disque après chaque modification
+     */
+    public ReservationService(ReservationRepository reservationRepository,
+                            ServiceRepository serviceRepository,
+                            NotificationService notificationService,
+                            PersistenceMode persistenceMode) {
         this.reservationRepository = reservationRepository;
         this.serviceRepository = serviceRepository;
         this.notificationService = notificationService;
+        this.persistenceMode = persistenceMode;
     }
 
     /**
@@ -49,7 +61,7 @@ public class ReservationService {
             .build();
 
         reservation.setStatus(ReservationStatus.CONFIRMED);
-        reservation = reservationRepository.save(reservation);
+        persistenceMode.apply(reservationRepository.saveAsync(reservation), "de la réservation " + reservation.getId());
 
         // Envoi de notification
         notificationService.sendReservationConfirmation(clientId, reservation.getId());
@@ -66,7 +78,7 @@ public class ReservationService {
         if (reservationOpt.isPresent()) {
             Reservation reservation = reservationOpt.get();
             reservation.cancel();
-            reservationRepository.save(reservation);
+            persistenceMode.apply(reservationRepository.saveAsync(reservation), "de l'annulation " + reservationId);
 
             // Notification
             notificationService.sendNotification(
@@ -102,13 +114,25 @@ public class ReservationService {
             .build();
         
         updatedReservation.setStatus(reservation.getStatus());
-        return reservationRepository.save(updatedReservation);
+        persistenceMode.apply(reservationRepository.saveAsync(updatedReservation), "de la réservation " + reservationId);
+        return updatedReservation;
     }
 
     /**
      * Récupère l'historique des réservations d'un client
      */
     public List<Reservation> getClientHistory(String clientId) {
+        return getClientHistory(clientId, false);
+    }
+
+    /**
+     * Récupère l'historique des réservations d'un client
+     * @param includeArchived inclure les réservations déplacées vers l'archive froide
+     */
+    public List<Reservation> getClientHistory(String clientId, boolean includeArchived) {
+        if (includeArchived) {
+            return reservationRepository.findByClientIdWithArchive(clientId);
+        }
         return reservationRepository.findByClientId(clientId);
     }
 
@@ -4,6 +4,8 @@ import com.reservation.model.Service;
 import com.reservation.repository.ServiceRepository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +26,20 @@ public class ServiceSearchService {
         return serviceRepository.findAll();
     }
 
+    /**
+     * Recherche un service par son identifiant
+     */
+    public Optional<Service> searchById(String id) {
+        return serviceRepository.findById(id);
+    }
+
+    /**
+     * Version des services : inchangée tant qu'aucun service n'a été créé, modifié ou supprimé
+     */
+    public long getVersion() {
+        return serviceRepository.version();
+    }
+
     /**
      * Recherche par catégorie
      */
@@ -38,6 +54,20 @@ public class ServiceSearchService {
         return serviceRepository.findByPrestataireId(prestataireId);
     }
 
+    /**
+     * Catégories proposées par au moins un service
+     */
+    public List<String> getCategories() {
+        return serviceRepository.findCategories();
+    }
+
+    /**
+     * Nombre de services par catégorie
+     */
+    public Map<String, Integer> countByCategory() {
+        return serviceRepository.countByCategory();
+    }
+
     /**
      * Recherche par nom (filtre)
      */
@@ -51,13 +81,10 @@ public class ServiceSearchService {
      * Recherche combinée avec plusieurs filtres
      */
     public List<Service> search(String category, String prestataireId, String name) {
-        List<Service> results = serviceRepository.findAll();
-
-        if (category != null && !category.isEmpty()) {
-            results = results.stream()
-                    .filter(service -> service.getCategory().equals(category))
-                    .collect(Collectors.toList());
-        }
+        // La catégorie, si elle est fournie, restreint d'emblée la recherche par l'index
+        List<Service> results = category != null && !category.isEmpty()
+                ? serviceRepository.findByCategory(category)
+                : serviceRepository.findAll();
 
         if (prestataireId != null && !prestataireId.isEmpty()) {
             results = results.stream()
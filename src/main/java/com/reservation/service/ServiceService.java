@@ -14,9 +14,18 @@ import java.util.Optional;
  */
 public class ServiceService {
     private final ServiceRepository serviceRepository;
+    private final PersistenceMode persistenceMode;
 
     public ServiceService(ServiceRepository serviceRepository) {
+        this(serviceRepository, PersistenceMode.CONFIRM_LATER);
+    }
+
+    /**
+     * @param persistenceMode attente (ou non) de l'écriture sur disque après chaque modification
+     */
+    public ServiceService(ServiceRepository serviceRepository, PersistenceMode persistenceMode) {
         this.serviceRepository = serviceRepository;
+        this.persistenceMode = persistenceMode;
     }
 
     /**
@@ -30,7 +39,8 @@ public class ServiceService {
         }
 
         Service service = new Service(id, name, description, category, price, duration, prestataireId);
-        return serviceRepository.save(service);
+        persistenceMode.apply(serviceRepository.saveAsync(service), "du service " + id);
+        return service;
     }
 
     /**
@@ -45,7 +55,8 @@ public class ServiceService {
         }
 
         Service updatedService = new Service(id, name, description, category, price, duration, prestataireId);
-        return serviceRepository.save(updatedService);
+        persistenceMode.apply(serviceRepository.saveAsync(updatedService), "du service " + id);
+        return updatedService;
     }
 
     /**
@@ -55,7 +66,7 @@ public class ServiceService {
         if (!serviceRepository.existsById(id)) {
             throw new IllegalArgumentException("Service introuvable: " + id);
         }
-        serviceRepository.deleteById(id);
+        persistenceMode.apply(serviceRepository.deleteByIdAsync(id), "de la suppression du service " + id);
     }
 
     /**
@@ -15,18 +15,29 @@ import java.util.Optional;
  */
 public class UserService {
     private final UserRepository userRepository;
+    private final PersistenceMode persistenceMode;
 
     public UserService(UserRepository userRepository) {
+        this(userRepository, PersistenceMode.CONFIRM_LATER);
+    }
+
+    /**
+     * @param persistenceMode attente (ou non) de l'écriture sur disque après chaque modification
+     */
+    public UserService(UserRepository userRepository, PersistenceMode persistenceMode) {
         this.userRepository = userRepository;
+        this.persistenceMode = persistenceMode;
     }
 
     /**
      * Crée un utilisateur
      * Design Pattern: Factory
+     * @throws IllegalArgumentException si l'email est déjà utilisé par un autre utilisateur
      */
     public User createUser(UserType type, String id, String name, String email, String phone) {
         User user = UserFactory.createUser(type, id, name, email, phone);
-        return userRepository.save(user);
+        persistenceMode.apply(userRepository.saveAsync(user), "de l'utilisateur " + id);
+        return user;
     }
 
     /**
@@ -54,7 +65,7 @@ public class UserService {
      * Supprime un utilisateur
      */
     public void deleteUser(String id) {
-        userRepository.deleteById(id);
+        persistenceMode.apply(userRepository.deleteByIdAsync(id), "de la suppression de l'utilisateur " + id);
     }
 }
 
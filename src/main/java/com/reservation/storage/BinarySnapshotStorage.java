@@ -0,0 +1,134 @@
+package com.reservation.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Instantané binaire d'un type d'entité, préféré au CSV au chargement
+ * L'en-tête mémorise la taille et la date de modification des fichiers CSV sources :
+ * si l'un d'eux a changé depuis l'écriture de l'instantané, celui-ci est ignoré.
+ * @param <T> Type de l'entité
+ */
+public class BinarySnapshotStorage<T> {
+    private static final int MAGIC = 0x52534E50; // "RSNP"
+    private static final short VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final CsvStorageService csvService;
+    private final String filename;
+    private final List<String> sourceFiles;
+    private final SnapshotCodec<T> codec;
+
+    public BinarySnapshotStorage(CsvStorageService csvService, String filename,
+                                 List<String> sourceFiles, SnapshotCodec<T> codec) {
+        this.csvService = csvService;
+        this.filename = filename;
+        this.sourceFiles = List.copyOf(sourceFiles);
+        this.codec = codec;
+    }
+
+    /**
+     * Charge l'instantané s'il existe et correspond toujours aux fichiers sources
+     * @return false si l'instantané est absent, périmé ou illisible (le CSV doit alors être lu)
+     */
+    public boolean load(Consumer<T> onLoad) {
+        return load(onLoad, IdPool.shared());
+    }
+
+    /**
+     * @param idPool pool des identifiants lus (null pour ne pas les dédupliquer)
+     */
+    public boolean load(Consumer<T> onLoad, IdPool idPool) {
+        Path path = csvService.resolve(filename);
+        if (!Files.exists(path)) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                return false;
+            }
+            int sourceCount = in.readInt();
+            if (sourceCount != sourceFiles.size()) {
+                return false;
+            }
+            for (String source : sourceFiles) {
+                Path sourcePath = csvService.resolve(source);
+                if (!in.readUTF().equals(source)
+                        || in.readLong() != sizeOf(sourcePath)
+                        || in.readLong() != lastModifiedOf(sourcePath)) {
+                    return false;
+                }
+            }
+
+            SnapshotReader reader = new SnapshotReader(in, idPool);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                onLoad.accept(codec.read(reader));
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Instantané " + filename + " illisible, relecture du CSV: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Écrit l'instantané (fichier temporaire puis renommage atomique)
+     * L'état des fichiers sources est relevé avant la copie des entités : une modification ajoutée
+     * au journal avant ce relevé est déjà dans la copie, une modification ajoutée après périme l'instantané.
+     * Les écritures concurrentes n'ont donc pas à être suspendues.
+     */
+    public void save(Supplier<? extends Collection<T>> state) {
+        Path path = csvService.resolve(filename);
+        Path tempPath = csvService.resolve(filename + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempPath), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(sourceFiles.size());
+            for (String source : sourceFiles) {
+                Path sourcePath = csvService.resolve(source);
+                out.writeUTF(source);
+                out.writeLong(sizeOf(sourcePath));
+                out.writeLong(lastModifiedOf(sourcePath));
+            }
+
+            Collection<T> entities = state.get();
+            SnapshotWriter writer = new SnapshotWriter(out);
+            out.writeInt(entities.size());
+            for (T entity : entities) {
+                codec.write(entity, writer);
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture de l'instantané " + filename + ": " + e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Erreur lors du renommage de l'instantané " + filename + ": " + e.getMessage());
+        }
+    }
+
+    private static long sizeOf(Path path) throws IOException {
+        return Files.exists(path) ? Files.size(path) : -1;
+    }
+
+    private static long lastModifiedOf(Path path) throws IOException {
+        return Files.exists(path) ? Files.getLastModifiedTime(path).toMillis() : -1;
+    }
+}
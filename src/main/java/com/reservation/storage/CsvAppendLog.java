@@ -0,0 +1,194 @@
+package com.reservation.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Journal d'écriture en ajout seul (write-ahead log) au format CSV
+ * Chaque mutation est ajoutée en fin de fichier sous forme d'un enregistrement PUT ou DEL,
+ * puis rejouée au démarrage par-dessus le dernier état complet.
+ * Le coût d'une écriture est donc O(1) quel que soit le volume de données.
+ * Pour le compactage, le journal courant peut être scellé (renommé en segment numéroté, ex. users.log.3) :
+ * les ajouts suivants vont dans un nouveau journal, et les segments couverts par un état complet
+ * sont ensuite supprimés. Le rejeu parcourt les segments scellés restants puis le journal courant.
+ */
+public class CsvAppendLog {
+    public static final String PUT = "PUT";
+    public static final String DELETE = "DEL";
+    public static final long COMPACTION_MIN_BYTES = 64 * 1024;
+
+    private final String filename;
+    private final CsvStorageService csvService;
+
+    public CsvAppendLog(CsvStorageService csvService, String filename) {
+        this.csvService = csvService;
+        this.filename = filename;
+    }
+
+    /**
+     * Ajoute un enregistrement d'insertion / mise à jour
+     * @param fields écrit les champs de l'entité, sans terminer la ligne
+     * @throws UncheckedIOException si l'enregistrement n'a pas pu être écrit
+     */
+    public synchronized void appendPut(Consumer<CsvRowWriter> fields) {
+        checkAppended(csvService.appendCsv(filename, writer -> {
+            writer.field(PUT);
+            fields.accept(writer);
+            writer.endRow();
+        }));
+    }
+
+    /**
+     * Ajoute un enregistrement de suppression
+     * @throws UncheckedIOException si l'enregistrement n'a pas pu être écrit
+     */
+    public synchronized void appendDelete(String id) {
+        checkAppended(csvService.appendCsv(filename, new String[]{DELETE, id}));
+    }
+
+    /**
+     * Ajoute un lot de mutations en une seule écriture
+     * @param changes entités par identifiant, une valeur null correspondant à une suppression
+     * @param fields écrit les champs d'une entité, sans terminer la ligne
+     * @throws UncheckedIOException si le lot n'a pas pu être écrit
+     */
+    public synchronized <T> void appendAll(Map<String, T> changes, BiConsumer<CsvRowWriter, T> fields) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        checkAppended(csvService.appendCsv(filename, writer -> changes.forEach((id, entity) -> {
+            if (entity == null) {
+                writer.row(DELETE, id);
+            } else {
+                writer.field(PUT);
+                fields.accept(writer, entity);
+                writer.endRow();
+            }
+        })));
+    }
+
+    private void checkAppended(boolean appended) {
+        if (!appended) {
+            throw new UncheckedIOException(new IOException("Ajout impossible au journal " + filename));
+        }
+    }
+
+    /**
+     * Rejoue le journal dans l'ordre d'écriture, en flux
+     * @param onPut reçoit la ligne complète : les champs de l'entité commencent à l'indice 1
+     * @param onDelete reçoit l'identifiant supprimé
+     */
+    public void replay(Consumer<CsvRow> onPut, Consumer<String> onDelete) {
+        for (String segment : sealedSegments().values()) {
+            replay(segment, onPut, onDelete);
+        }
+        replay(filename, onPut, onDelete);
+    }
+
+    private void replay(String segment, Consumer<CsvRow> onPut, Consumer<String> onDelete) {
+        csvService.forEachRow(segment, false, record -> {
+            if (record.size() < 2) {
+                return;
+            }
+            String operation = record.get(0);
+            if (PUT.equals(operation)) {
+                onPut.accept(record);
+            } else if (DELETE.equals(operation)) {
+                onDelete.accept(record.get(1));
+            } else {
+                System.err.println("Enregistrement de journal inconnu dans " + segment + ": " + operation);
+            }
+        });
+    }
+
+    /**
+     * Indique si le journal est devenu plus gros que le fichier d'état complet qu'il complète
+     * Réécrire l'état complet à ce moment puis vider le journal garde un coût d'écriture amorti
+     * proportionnel aux modifications.
+     */
+    public boolean needsCompaction(String baseFilename) {
+        long logSize = sizeOf(csvService.resolve(filename));
+        return logSize > Math.max(COMPACTION_MIN_BYTES, sizeOf(csvService.resolve(baseFilename)));
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Scelle le journal courant : il devient le segment suivant et les ajouts repartent d'un journal vide
+     * Un simple renommage, les écritures ne sont bloquées que le temps de celui-ci.
+     * @return numéro du dernier segment scellé, position du journal couverte par un état complet pris ensuite
+     */
+    public synchronized long seal() {
+        TreeMap<Long, String> segments = sealedSegments();
+        long lastSealed = segments.isEmpty() ? 0 : segments.lastKey();
+        Path active = csvService.resolve(filename);
+        if (sizeOf(active) == 0) {
+            return lastSealed;
+        }
+        long sequence = lastSealed + 1;
+        try {
+            Files.move(active, csvService.resolve(filename + "." + sequence), StandardCopyOption.ATOMIC_MOVE);
+            return sequence;
+        } catch (IOException e) {
+            System.err.println("Erreur lors du scellement du journal " + filename + ": " + e.getMessage());
+            return lastSealed;
+        }
+    }
+
+    /**
+     * Supprime les segments scellés jusqu'à sequence inclus, désormais couverts par l'état complet
+     */
+    public void dropSealed(long sequence) {
+        sealedSegments().headMap(sequence, true).values().forEach(segment -> {
+            try {
+                Files.deleteIfExists(csvService.resolve(segment));
+            } catch (IOException e) {
+                System.err.println("Erreur lors de la suppression du segment " + segment + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Segments scellés présents sur disque, par numéro croissant
+     */
+    private TreeMap<Long, String> sealedSegments() {
+        TreeMap<Long, String> segments = new TreeMap<>();
+        Path active = csvService.resolve(filename).toAbsolutePath();
+        Path directory = active.getParent();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        String prefix = active.getFileName() + ".";
+        // Sous-dossier éventuel du journal (ex. reservations/), à conserver dans le nom des segments
+        String parent = filename.substring(0, filename.length() - prefix.length() + 1);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path path : stream) {
+                String suffix = path.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    segments.put(Long.parseLong(suffix), parent + path.getFileName());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Erreur lors de la lecture des segments de " + filename + ": " + e.getMessage());
+        }
+        return segments;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+}
@@ -0,0 +1,261 @@
+package com.reservation.storage;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Vue sur une ligne CSV lue directement depuis le tampon du fichier
+ * Les champs sont des tranches (début, fin) du tampon : aucune chaîne n'est créée
+ * tant qu'un champ n'est pas explicitement demandé. Les entiers, montants, dates et énumérations
+ * sont analysés directement depuis les octets.
+ * Un champ entre guillemets (RFC 4180) est stocké sans ses guillemets ; les guillemets doublés
+ * qu'il contient ne sont remplacés qu'au décodage en chaîne.
+ * L'instance est réutilisée d'une ligne à l'autre, elle n'est valide que pendant l'appel du visiteur.
+ */
+public class CsvRow {
+    private ByteBuffer buffer;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private int size;
+    private byte[] scratch = new byte[128];
+
+    void reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = 0;
+    }
+
+    void addField(int start, int end) {
+        addField(start, end, false);
+    }
+
+    /**
+     * @param hasEscapedQuotes le champ contient des guillemets doublés à remplacer au décodage
+     */
+    void addField(int start, int end, boolean hasEscapedQuotes) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            escaped = Arrays.copyOf(escaped, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        escaped[size] = hasEscapedQuotes;
+        size++;
+    }
+
+    /**
+     * Nombre de champs de la ligne
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Longueur en octets d'un champ
+     */
+    public int length(int index) {
+        checkIndex(index);
+        return ends[index] - starts[index];
+    }
+
+    public boolean isEmpty(int index) {
+        return length(index) == 0;
+    }
+
+    /**
+     * Décode un champ en chaîne (UTF-8)
+     */
+    public String get(int index) {
+        int length = length(index);
+        if (length == 0) {
+            return "";
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(starts[index], scratch, 0, length);
+        String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        return escaped[index] ? value.replace("\"\"", "\"") : value;
+    }
+
+    /**
+     * Analyse un champ entier sans créer de chaîne
+     */
+    public int getInt(int index) {
+        long value = getLong(index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Entier hors limites: " + get(index));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Analyse un champ entier long sans créer de chaîne
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+        int position = starts[index];
+        int end = ends[index];
+        boolean negative = position < end && buffer.get(position) == '-';
+        if (negative || (position < end && buffer.get(position) == '+')) {
+            position++;
+        }
+        if (position == end || end - position > 18) {
+            return Long.parseLong(get(index));
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(get(index));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Analyse un montant décimal (ex. -12.50) directement depuis les octets :
+     * valeur non mise à l'échelle + échelle, sans passer par une chaîne
+     * Les formes rares (exposant, plus de 18 chiffres) passent par new BigDecimal(String).
+     */
+    public BigDecimal getDecimal(int index) {
+        checkIndex(index);
+        int position = starts[index];
+        int end = ends[index];
+        boolean negative = position < end && buffer.get(position) == '-';
+        if (negative || (position < end && buffer.get(position) == '+')) {
+            position++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; position < end; position++) {
+            byte current = buffer.get(position);
+            if (current == '.' && !fraction) {
+                fraction = true;
+            } else if (current >= '0' && current <= '9' && digits < 18) {
+                unscaled = unscaled * 10 + (current - '0');
+                digits++;
+                if (fraction) {
+                    scale++;
+                }
+            } else {
+                return new BigDecimal(get(index));
+            }
+        }
+        if (digits == 0) {
+            return new BigDecimal(get(index));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    /**
+     * Analyse une date au format ISO (AAAA-MM-JJTHH:mm[:ss[.fraction]]) directement depuis les octets
+     * Les autres formes passent par LocalDateTime.parse.
+     */
+    public LocalDateTime getDateTime(int index) {
+        checkIndex(index);
+        int start = starts[index];
+        int length = ends[index] - start;
+        if (length < 16 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-'
+                || buffer.get(start + 10) != 'T' || buffer.get(start + 13) != ':') {
+            return LocalDateTime.parse(get(index));
+        }
+
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        int hour = digits(start + 11, 2);
+        int minute = digits(start + 14, 2);
+        int second = 0;
+        int nano = 0;
+        int position = start + 16;
+        int end = start + length;
+        if (position < end) {
+            if (end - position < 3 || buffer.get(position) != ':') {
+                return LocalDateTime.parse(get(index));
+            }
+            second = digits(position + 1, 2);
+            position += 3;
+            if (position < end) {
+                int fractionDigits = end - position - 1;
+                if (buffer.get(position) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                    return LocalDateTime.parse(get(index));
+                }
+                nano = digits(position + 1, fractionDigits);
+                for (int i = fractionDigits; i < 9 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return LocalDateTime.parse(get(index));
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    /**
+     * Valeur d'énumération dont le nom correspond au champ, comparée octet par octet
+     * @throws IllegalArgumentException si aucune constante ne correspond
+     */
+    public <E extends Enum<E>> E getEnum(int index, E[] values) {
+        checkIndex(index);
+        int start = starts[index];
+        int length = ends[index] - start;
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() == length && matches(start, name)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Valeur inconnue: " + get(index));
+    }
+
+    private boolean matches(int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (buffer.get(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Nombre décimal de count chiffres à partir de position, -1 si un octet n'est pas un chiffre
+     */
+    private int digits(int position, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = buffer.get(position + i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Copie la ligne dans un tableau de chaînes
+     */
+    public String[] toArray() {
+        String[] fields = new String[size];
+        for (int i = 0; i < size; i++) {
+            fields[i] = get(i);
+        }
+        return fields;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Champ " + index + " absent (la ligne en contient " + size + ")");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.reservation.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Écrivain CSV en flux : les champs sont écrits directement dans le fichier,
+ * sans construire de tableau ni de liste intermédiaire par ligne.
+ * Un champ contenant une virgule, un guillemet ou un saut de ligne est écrit
+ * entre guillemets, ses guillemets étant doublés (RFC 4180).
+ */
+public class CsvRowWriter {
+    private final Writer writer;
+    private boolean firstField = true;
+
+    CsvRowWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Écrit un champ de la ligne courante
+     */
+    public CsvRowWriter field(String value) {
+        try {
+            if (!firstField) {
+                writer.write(',');
+            }
+            if (value != null) {
+                if (needsQuoting(value)) {
+                    writeQuoted(value);
+                } else {
+                    writer.write(value);
+                }
+            }
+            firstField = false;
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeQuoted(String value) throws IOException {
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                writer.write(value, start, i + 1 - start);
+                writer.write('"');
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    public CsvRowWriter field(long value) {
+        return field(Long.toString(value));
+    }
+
+    /**
+     * Termine la ligne courante
+     */
+    public void endRow() {
+        try {
+            writer.write(System.lineSeparator());
+            firstField = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Écrit une ligne complète
+     */
+    public void row(String... fields) {
+        for (String value : fields) {
+            field(value);
+        }
+        endRow();
+    }
+}
@@ -0,0 +1,58 @@
+package com.reservation.storage;
+
+import com.reservation.model.Payment;
+import com.reservation.model.Service;
+import com.reservation.model.User;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Stockage en fichiers CSV (journaux, partitions mensuelles, archive compressée) dans un dossier de données
+ */
+public class CsvStorageBackend implements StorageBackend {
+    private final CsvStorageService csvService;
+
+    /**
+     * Stockage dans le dossier data du répertoire courant
+     */
+    public CsvStorageBackend() {
+        this(Paths.get(CsvStorageService.DEFAULT_DATA_DIR));
+    }
+
+    public CsvStorageBackend(Path dataDir) {
+        this.csvService = new CsvStorageService(dataDir);
+    }
+
+    @Override
+    public EntityStore<User> userStore() {
+        return new UserCsvStorage(csvService);
+    }
+
+    @Override
+    public EntityStore<Service> serviceStore() {
+        return new ServiceCsvStorage(csvService);
+    }
+
+    @Override
+    public EntityStore<Payment> paymentStore() {
+        return new PaymentCsvStorage(csvService);
+    }
+
+    @Override
+    public ReservationStore reservationStore() {
+        return new ReservationCsvStorage(csvService);
+    }
+
+    @Override
+    public ReservationArchive reservationArchive() {
+        return new SegmentedReservationArchive(csvService);
+    }
+
+    /**
+     * Chemin d'un fichier du dossier de données
+     */
+    public Path resolve(String filename) {
+        return csvService.resolve(filename);
+    }
+}
@@ -6,88 +6,164 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Service générique pour le stockage CSV
  * Principe SOLID: SRP (Single Responsibility Principle) - Responsabilité unique de gestion CSV
  */
 public class CsvStorageService {
-    private static final String DATA_DIR = "data";
-    
-    static {
-        // Créer le dossier data s'il n'existe pas
+    public static final String DEFAULT_DATA_DIR = "data";
+
+    private final Path dataDir;
+
+    /**
+     * Stockage dans le dossier data du répertoire courant
+     */
+    public CsvStorageService() {
+        this(Paths.get(DEFAULT_DATA_DIR));
+    }
+
+    /**
+     * @param dataDir dossier des fichiers de données, créé s'il n'existe pas
+     */
+    public CsvStorageService(Path dataDir) {
+        this.dataDir = dataDir;
         try {
-            Path dataPath = Paths.get(DATA_DIR);
-            if (!Files.exists(dataPath)) {
-                Files.createDirectories(dataPath);
+            if (!Files.exists(dataDir)) {
+                Files.createDirectories(dataDir);
             }
         } catch (IOException e) {
-            System.err.println("Erreur lors de la création du dossier data: " + e.getMessage());
+            System.err.println("Erreur lors de la création du dossier " + dataDir + ": " + e.getMessage());
         }
     }
 
     /**
      * Lit toutes les lignes d'un fichier CSV
+     * Préférer forEachRow pour les gros fichiers : cette méthode matérialise toutes les lignes
      */
     public List<String[]> readCsv(String filename) {
         List<String[]> data = new ArrayList<>();
-        Path filePath = Paths.get(DATA_DIR, filename);
-        
+        forEachRow(filename, false, row -> data.add(row.toArray()));
+        return data;
+    }
+
+    /**
+     * Parcourt un fichier CSV ligne par ligne sans le matérialiser
+     * La lecture passe par MappedCsvReader (fichier projeté en mémoire, découpage sans split).
+     * La ligne transmise au visiteur est réutilisée : elle n'est valide que pendant l'appel.
+     * @param skipHeader ignorer la première ligne (en-tête)
+     */
+    public void forEachRow(String filename, boolean skipHeader, Consumer<CsvRow> visitor) {
+        Path filePath = dataDir.resolve(filename);
+
         if (!Files.exists(filePath)) {
-            return data; // Retourner une liste vide si le fichier n'existe pas
+            return; // Rien à lire si le fichier n'existe pas
         }
 
-        try (BufferedReader reader = Files.newBufferedReader(filePath)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    data.add(line.split(","));
+        Consumer<CsvRow> target = visitor;
+        if (skipHeader) {
+            boolean[] headerSeen = {false};
+            target = row -> {
+                if (headerSeen[0]) {
+                    visitor.accept(row);
+                } else {
+                    headerSeen[0] = true;
                 }
-            }
+            };
+        }
+
+        try {
+            MappedCsvReader.read(filePath, target);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du fichier CSV " + filename + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Transforme les lignes d'un fichier CSV en entités
+     * Au-delà de quelques Mo, l'analyse (dates, montants compris) est répartie sur tous les cœurs
+     * par tranches alignées sur les fins de ligne ; les entités sont ensuite transmises
+     * dans l'ordre du fichier, sur le thread appelant.
+     * @param parser transforme une ligne en entité (null pour l'ignorer), appelé en parallèle
+     */
+    public <T> void parseRows(String filename, boolean skipHeader, Function<CsvRow, T> parser, Consumer<T> onParsed) {
+        Path filePath = dataDir.resolve(filename);
+
+        if (!Files.exists(filePath)) {
+            return;
+        }
+
+        try {
+            MappedCsvReader.parse(filePath, skipHeader, parser, onParsed);
         } catch (IOException e) {
             System.err.println("Erreur lors de la lecture du fichier CSV " + filename + ": " + e.getMessage());
         }
-        
-        return data;
     }
 
     /**
      * Écrit des données dans un fichier CSV
      */
     public void writeCsv(String filename, List<String[]> data) {
-        Path filePath = Paths.get(DATA_DIR, filename);
-        
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
-            for (String[] row : data) {
-                writer.write(String.join(",", row));
-                writer.newLine();
-            }
+        writeCsv(filename, writer -> data.forEach(writer::row));
+    }
+
+    /**
+     * Écrit un fichier CSV en flux : le producteur émet les lignes une à une
+     * L'écriture est durable et atomique (fichier temporaire, fsync, renommage) :
+     * un arrêt brutal laisse soit l'ancien contenu, soit le nouveau.
+     * @return false si l'écriture a échoué (l'ancien contenu est alors intact)
+     */
+    public boolean writeCsv(String filename, Consumer<CsvRowWriter> producer) {
+        Path filePath = dataDir.resolve(filename);
+
+        try {
+            DurableCsvFile.of(filePath).replace(producer);
+            return true;
         } catch (IOException e) {
             System.err.println("Erreur lors de l'écriture du fichier CSV " + filename + ": " + e.getMessage());
+            return false;
         }
     }
 
     /**
      * Ajoute une ligne à un fichier CSV
      */
-    public void appendCsv(String filename, String[] row) {
-        Path filePath = Paths.get(DATA_DIR, filename);
-        
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath, 
-                java.nio.file.StandardOpenOption.CREATE, 
-                java.nio.file.StandardOpenOption.APPEND)) {
-            writer.write(String.join(",", row));
-            writer.newLine();
+    public boolean appendCsv(String filename, String[] row) {
+        return appendCsv(filename, writer -> writer.row(row));
+    }
+
+    /**
+     * Ajoute des lignes en fin de fichier CSV, en flux
+     * L'appel rend la main une fois les lignes durables ; les ajouts concurrents
+     * sont regroupés sous un seul fsync (group commit).
+     * @return false si l'ajout a échoué
+     */
+    public boolean appendCsv(String filename, Consumer<CsvRowWriter> producer) {
+        Path filePath = dataDir.resolve(filename);
+
+        try {
+            DurableCsvFile.of(filePath).append(producer);
+            return true;
         } catch (IOException e) {
             System.err.println("Erreur lors de l'ajout au fichier CSV " + filename + ": " + e.getMessage());
+            return false;
         }
     }
 
+    /**
+     * Chemin d'un fichier du dossier de données
+     */
+    public Path resolve(String filename) {
+        return dataDir.resolve(filename);
+    }
+
     /**
      * Vérifie si un fichier existe
      */
     public boolean fileExists(String filename) {
-        return Files.exists(Paths.get(DATA_DIR, filename));
+        return Files.exists(dataDir.resolve(filename));
     }
 }
 
@@ -0,0 +1,120 @@
+package com.reservation.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Écritures durables d'un fichier CSV
+ * - réécriture complète : fichier temporaire, fsync, puis renommage atomique (jamais de fichier à moitié écrit)
+ * - ajout en fin de fichier : écriture puis fsync
+ * Les demandes concurrentes sur un même fichier sont regroupées par GroupCommitter :
+ * un seul fsync couvre tout le lot, et seule la dernière réécriture complète du lot est effectuée.
+ */
+final class DurableCsvFile {
+    private static final Map<Path, DurableCsvFile> FILES = new ConcurrentHashMap<>();
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final class Write {
+        private final boolean replace;
+        private final Consumer<CsvRowWriter> producer;
+
+        private Write(boolean replace, Consumer<CsvRowWriter> producer) {
+            this.replace = replace;
+            this.producer = producer;
+        }
+    }
+
+    private final Path path;
+    private final GroupCommitter<Write> committer;
+
+    private DurableCsvFile(Path path) {
+        this.path = path;
+        this.committer = new GroupCommitter<>(this::writeBatch);
+    }
+
+    /**
+     * Instance partagée pour un fichier (toutes les écritures d'un fichier passent par elle)
+     */
+    static DurableCsvFile of(Path path) {
+        return FILES.computeIfAbsent(path.toAbsolutePath().normalize(), DurableCsvFile::new);
+    }
+
+    /**
+     * Remplace le contenu du fichier et attend que le nouveau contenu soit durable
+     */
+    void replace(Consumer<CsvRowWriter> producer) throws IOException {
+        committer.commit(new Write(true, producer));
+    }
+
+    /**
+     * Ajoute des lignes en fin de fichier et attend qu'elles soient durables
+     */
+    void append(Consumer<CsvRowWriter> producer) throws IOException {
+        committer.commit(new Write(false, producer));
+    }
+
+    private void writeBatch(List<Write> batch) throws IOException {
+        int lastReplace = -1;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i).replace) {
+                lastReplace = i;
+            }
+        }
+
+        if (lastReplace >= 0) {
+            // Les écritures précédant la dernière réécriture complète sont écrasées par celle-ci
+            Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            writeAndForce(tempPath, batch.subList(lastReplace, batch.size()),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory();
+        } else {
+            boolean created = !Files.exists(path);
+            writeAndForce(path, batch,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (created) {
+                forceDirectory();
+            }
+        }
+    }
+
+    private void writeAndForce(Path target, List<Write> writes, StandardOpenOption... options) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, options);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            CsvRowWriter rowWriter = new CsvRowWriter(writer);
+            for (Write write : writes) {
+                write.producer.accept(rowWriter);
+            }
+            writer.flush();
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Rend durable l'entrée de répertoire (création / renommage)
+     * Non supporté sur certaines plateformes (Windows) : l'échec est alors ignoré.
+     */
+    private void forceDirectory() {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Synchronisation du répertoire indisponible sur cette plateforme
+        }
+    }
+}
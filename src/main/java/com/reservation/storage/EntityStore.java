@@ -0,0 +1,46 @@
+package com.reservation.storage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Persistance d'un type d'entité, vue depuis son repository
+ * Le repository garde l'état en mémoire : le stockage restitue cet état au chargement
+ * puis reçoit les lots de modifications écrits par WriteBehindFlusher.
+ * @param <T> Type de l'entité
+ */
+public interface EntityStore<T> {
+
+    /**
+     * Relit l'état persisté, entité par entité
+     * @param onLoad reçoit chaque entité lue (une entité relue remplace la précédente)
+     * @param onDelete reçoit les identifiants supprimés depuis
+     */
+    void loadAll(Consumer<T> onLoad, Consumer<String> onDelete);
+
+    /**
+     * Enregistre un lot de modifications
+     * @param changes entités par identifiant, null pour une suppression
+     * @throws java.io.UncheckedIOException si le lot n'a pas pu être écrit
+     */
+    void appendChanges(Map<String, T> changes);
+
+    /**
+     * Indique si les modifications accumulées justifient un compactage
+     */
+    boolean needsCompaction();
+
+    /**
+     * Réécrit l'état complet pour ne plus avoir à rejouer les modifications accumulées
+     * @param state copie de l'état courant
+     */
+    void compact(Supplier<Collection<T>> state);
+
+    /**
+     * Écrit un instantané de l'état courant (à l'arrêt)
+     * @param state copie de l'état courant, demandée une fois l'état des fichiers sources relevé
+     */
+    void writeSnapshot(Supplier<Collection<T>> state);
+}
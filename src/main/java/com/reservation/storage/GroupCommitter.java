@@ -0,0 +1,111 @@
+package com.reservation.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validation groupée (group commit)
+ * Les demandes arrivant pendant qu'une écriture est en cours sont mises en attente ;
+ * à la fin de celle-ci, un seul thread (le meneur) écrit tout le lot et paie un seul fsync
+ * pour l'ensemble. Chaque appelant ne rend la main qu'une fois sa demande durable.
+ * @param <R> Type d'une demande d'écriture
+ */
+final class GroupCommitter<R> {
+
+    /**
+     * Écriture effective d'un lot de demandes, dans l'ordre d'arrivée
+     */
+    interface BatchWriter<R> {
+        void write(List<R> batch) throws IOException;
+    }
+
+    private static final class Ticket<R> {
+        private final R request;
+        private boolean done;
+        private IOException failure;
+
+        private Ticket(R request) {
+            this.request = request;
+        }
+    }
+
+    private final BatchWriter<R> batchWriter;
+    private final Object lock = new Object();
+    private List<Ticket<R>> pending = new ArrayList<>();
+    private boolean writing;
+
+    GroupCommitter(BatchWriter<R> batchWriter) {
+        this.batchWriter = batchWriter;
+    }
+
+    /**
+     * Soumet une demande et attend qu'elle soit durable (écrite par ce thread ou par un autre meneur)
+     * Une interruption n'annule la demande que si aucun meneur ne l'a encore prise. Sinon la demande sera écrite :
+     * l'appelant en attend l'issue et retrouve son indicateur d'interruption en sortie (pas avant, une écriture
+     * FileChannel sur un thread interrompu fermerait le fichier).
+     */
+    void commit(R request) throws IOException {
+        Ticket<R> ticket = new Ticket<>(request);
+        boolean interrupted = false;
+        try {
+            List<Ticket<R>> batch;
+            synchronized (lock) {
+                pending.add(ticket);
+                while (!ticket.done && writing) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        if (pending.remove(ticket)) {
+                            throw new IOException("Interrompu en attente de l'écriture groupée", e);
+                        }
+                    }
+                }
+                if (ticket.done) {
+                    if (ticket.failure != null) {
+                        throw ticket.failure;
+                    }
+                    return;
+                }
+                // Ce thread devient le meneur : il écrit tout ce qui est en attente
+                writing = true;
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            writeBatch(batch);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeBatch(List<Ticket<R>> batch) throws IOException {
+        IOException failure = null;
+        try {
+            List<R> requests = new ArrayList<>(batch.size());
+            for (Ticket<R> pendingTicket : batch) {
+                requests.add(pendingTicket.request);
+            }
+            batchWriter.write(requests);
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e.getMessage(), e);
+        }
+
+        synchronized (lock) {
+            for (Ticket<R> committed : batch) {
+                committed.done = true;
+                committed.failure = failure;
+            }
+            writing = false;
+            lock.notifyAll();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
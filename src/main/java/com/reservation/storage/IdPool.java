@@ -0,0 +1,94 @@
+package com.reservation.storage;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool canonique des identifiants référencés : deux identifiants égaux partagent la même instance de String
+ * Quelques milliers de clients et de prestataires sont référencés par des centaines de milliers
+ * de réservations, et les tentatives de paiement d'une même réservation référencent son identifiant :
+ * sans pool, chaque référence lue depuis le disque est une copie distincte.
+ * Seuls les champs de référence (client, service, prestataire, réservation payée) et les identifiants
+ * des utilisateurs et des services y passent ; les identifiants uniques des réservations et des paiements non.
+ * Utilisé par les codecs au chargement et par ReservationBuilder à la création.
+ * Les entrées sont faibles : un identifiant qui n'est plus référencé par aucune entité quitte le pool.
+ */
+public final class IdPool {
+    // Taille estimée d'une String (en-tête + champs) et de l'en-tête de son tableau d'octets, alignés sur 8 octets
+    private static final int STRING_OVERHEAD = 24;
+    private static final int ARRAY_HEADER = 16;
+    // Segments verrouillés séparément, pour ne pas sérialiser les chargements parallèles
+    private static final int SEGMENTS = 16;
+
+    private static final IdPool SHARED = new IdPool();
+
+    @SuppressWarnings("unchecked")
+    private final Map<String, WeakReference<String>>[] segments = new Map[SEGMENTS];
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public IdPool() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * Pool partagé par tous les stockages, pour que les références croisées (réservation vers client,
+     * service ou prestataire) désignent la même instance
+     */
+    public static IdPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Instance canonique de l'identifiant (null reste null)
+     */
+    public String intern(String id) {
+        if (id == null) {
+            return null;
+        }
+        lookups.increment();
+        Map<String, WeakReference<String>> segment = segments[(id.hashCode() & 0x7fffffff) % SEGMENTS];
+        synchronized (segment) {
+            WeakReference<String> reference = segment.get(id);
+            String canonical = reference == null ? null : reference.get();
+            if (canonical == null) {
+                segment.put(id, new WeakReference<>(id));
+                return id;
+            }
+            reused.increment();
+            savedBytes.add(STRING_OVERHEAD + align(ARRAY_HEADER + id.length()));
+            return canonical;
+        }
+    }
+
+    /**
+     * Nombre d'identifiants encore référencés (ceux libérés mais pas encore purgés compris)
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Bilan : références dédupliquées et estimation (taille théorique d'une String, pas une mesure)
+     * des octets de tas économisés
+     */
+    public String report() {
+        return String.format("Pool d'identifiants : %d identifiants distincts pour %d références, "
+                + "%d copies évitées (~%d Kio estimés)", size(), lookups.sum(), reused.sum(), savedBytes.sum() / 1024);
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+}
@@ -0,0 +1,170 @@
+package com.reservation.storage;
+
+import com.reservation.model.Payment;
+import com.reservation.model.Reservation;
+import com.reservation.model.Service;
+import com.reservation.model.User;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Stockage purement en mémoire, sans aucun accès disque
+ * Les modifications sont conservées dans des tables : un repository recréé sur le même backend
+ * retrouve l'état précédent, mais rien ne survit à l'arrêt de l'application.
+ * Destiné aux tests de charge et aux benchmarks de la couche service.
+ */
+public class InMemoryStorageBackend implements StorageBackend {
+    private final MemoryEntityStore<User> users = new MemoryEntityStore<>();
+    private final MemoryEntityStore<Service> services = new MemoryEntityStore<>();
+    private final MemoryEntityStore<Payment> payments = new MemoryEntityStore<>();
+    private final MemoryReservationStore reservations = new MemoryReservationStore();
+    private final MemoryReservationArchive archive = new MemoryReservationArchive();
+
+    @Override
+    public EntityStore<User> userStore() {
+        return users;
+    }
+
+    @Override
+    public EntityStore<Service> serviceStore() {
+        return services;
+    }
+
+    @Override
+    public EntityStore<Payment> paymentStore() {
+        return payments;
+    }
+
+    @Override
+    public ReservationStore reservationStore() {
+        return reservations;
+    }
+
+    @Override
+    public ReservationArchive reservationArchive() {
+        return archive;
+    }
+
+    private static final class MemoryEntityStore<T> implements EntityStore<T> {
+        private final Map<String, T> entities = new LinkedHashMap<>();
+
+        @Override
+        public synchronized void loadAll(Consumer<T> onLoad, Consumer<String> onDelete) {
+            entities.values().forEach(onLoad);
+        }
+
+        @Override
+        public synchronized void appendChanges(Map<String, T> changes) {
+            applyChanges(entities, changes);
+        }
+
+        @Override
+        public boolean needsCompaction() {
+            return false;
+        }
+
+        @Override
+        public void compact(Supplier<Collection<T>> state) {
+            // Rien à compacter : les modifications sont appliquées directement
+        }
+
+        @Override
+        public void writeSnapshot(Supplier<Collection<T>> state) {
+            // Aucun instantané en mémoire
+        }
+    }
+
+    private static final class MemoryReservationStore implements ReservationStore {
+        private final Map<YearMonth, Map<String, Reservation>> partitions = new TreeMap<>();
+
+        @Override
+        public synchronized SortedSet<YearMonth> listPartitions() {
+            return new TreeSet<>(partitions.keySet());
+        }
+
+        @Override
+        public synchronized boolean loadPartition(YearMonth month, Consumer<Reservation> onLoad,
+                                                  Consumer<String> onDelete) {
+            partitions.getOrDefault(month, Map.of()).values().forEach(onLoad);
+            return true;
+        }
+
+        @Override
+        public synchronized void appendChanges(YearMonth month, Map<String, Reservation> changes) {
+            applyChanges(partitions.computeIfAbsent(month, key -> new LinkedHashMap<>()), changes);
+        }
+
+        @Override
+        public boolean needsCompaction(YearMonth month) {
+            return false;
+        }
+
+        @Override
+        public void compactPartition(YearMonth month, Supplier<Collection<Reservation>> state) {
+            // Rien à compacter : les modifications sont appliquées directement
+        }
+
+        @Override
+        public void writeSnapshot(YearMonth month, Supplier<Collection<Reservation>> state) {
+            // Aucun instantané en mémoire
+        }
+    }
+
+    private static final class MemoryReservationArchive implements ReservationArchive {
+        private final Map<String, Reservation> reservations = new HashMap<>();
+        private YearMonth archivedThrough;
+
+        @Override
+        public synchronized void append(Collection<Reservation> archived) {
+            archived.forEach(reservation -> reservations.put(reservation.getId(), reservation));
+        }
+
+        @Override
+        public synchronized List<Reservation> findByClientId(String clientId) {
+            List<Reservation> found = new ArrayList<>();
+            for (Reservation reservation : reservations.values()) {
+                if (reservation.getClientId().equals(clientId)) {
+                    found.add(reservation);
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public synchronized Optional<Reservation> findById(String id) {
+            return Optional.ofNullable(reservations.get(id));
+        }
+
+        @Override
+        public synchronized YearMonth archivedThrough() {
+            return archivedThrough;
+        }
+
+        @Override
+        public synchronized void setArchivedThrough(YearMonth month) {
+            archivedThrough = month;
+        }
+    }
+
+    private static <T> void applyChanges(Map<String, T> target, Map<String, T> changes) {
+        changes.forEach((id, entity) -> {
+            if (entity == null) {
+                target.remove(id);
+            } else {
+                target.put(id, entity);
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.reservation.storage;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compactage des journaux en arrière-plan
+ * Le compactage (sceller le journal, réécrire l'état complet, supprimer les segments couverts)
+ * s'exécute sur un thread dédié : ni les écritures des repositories ni le thread d'écriture différée
+ * n'attendent la réécriture du CSV. Les demandes reçues pendant un compactage en attente sont fusionnées.
+ */
+public class LogCompactor {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final Runnable compaction;
+    private final AtomicBoolean requested = new AtomicBoolean(false);
+
+    /**
+     * @param name nom du stockage (messages d'erreur)
+     * @param compaction compactage effectif
+     */
+    public LogCompactor(String name, Runnable compaction) {
+        this.name = name;
+        this.compaction = compaction;
+    }
+
+    /**
+     * Demande un compactage, sans effet si un compactage est déjà en attente
+     */
+    public void request() {
+        if (requested.compareAndSet(false, true)) {
+            EXECUTOR.execute(this::run);
+        }
+    }
+
+    private void run() {
+        requested.set(false);
+        try {
+            compaction.run();
+        } catch (RuntimeException e) {
+            System.err.println("Erreur lors du compactage de " + name + ": " + e.getMessage());
+        }
+    }
+}
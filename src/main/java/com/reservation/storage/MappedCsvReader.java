@@ -0,0 +1,354 @@
+package com.reservation.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lecteur CSV sans copie basé sur FileChannel.map
+ * Parcourt les octets du fichier projeté en mémoire et découpe les champs sans créer
+ * de chaîne par ligne ni de tableau par split. Les petits fichiers sont lus dans un tampon
+ * du tas (un fichier projeté reste verrouillé sous Windows jusqu'au passage du GC).
+ * Les très gros fichiers peuvent être analysés en parallèle : le fichier est découpé en
+ * tranches alignées sur les fins de ligne, chacune analysée par une tâche ForkJoin.
+ * Les champs entre guillemets suivent la RFC 4180 (virgules, sauts de ligne et guillemets doublés
+ * autorisés) : une fin de ligne ne marquant plus forcément une fin d'enregistrement, seules les tranches
+ * sans guillemet et commençant sur un début d'enregistrement gardent leur analyse parallèle ;
+ * les autres sont relues séquentiellement à la suite de l'enregistrement précédent.
+ */
+final class MappedCsvReader {
+    static final int MAP_THRESHOLD = 1 << 20;
+    static final long PARALLEL_THRESHOLD = 8L << 20;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final long MAX_WINDOW = Integer.MAX_VALUE;
+
+    private MappedCsvReader() {
+    }
+
+    /**
+     * Lit un fichier et appelle le visiteur pour chaque ligne non vide
+     */
+    static void read(Path path, Consumer<CsvRow> visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            CsvRow row = new CsvRow();
+
+            if (fileSize < MAP_THRESHOLD) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // lecture complète du fichier
+                }
+                scan(buffer, 0, buffer.position(), row, visitor);
+                return;
+            }
+
+            long position = 0;
+            while (position < fileSize) {
+                long windowSize = Math.min(MAX_WINDOW, fileSize - position);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                // Ne traiter que des enregistrements complets, la suite sera lue dans la fenêtre suivante
+                boolean lastWindow = position + windowSize == fileSize;
+                int end = scan(window, 0, (int) windowSize, lastWindow, row, visitor);
+                if (end == 0 && !lastWindow) {
+                    throw new IOException("Ligne trop longue dans " + path);
+                }
+                position += end;
+            }
+        }
+    }
+
+    /**
+     * Analyse un fichier en parallèle (ForkJoin) puis transmet les entités dans l'ordre du fichier
+     * Les fichiers sous PARALLEL_THRESHOLD sont analysés séquentiellement.
+     * @param parser transforme une ligne en entité (null pour ignorer la ligne), doit être sans état partagé
+     */
+    static <T> void parse(Path path, boolean skipHeader, Function<CsvRow, T> parser, Consumer<T> onParsed)
+            throws IOException {
+        if (Files.size(path) < PARALLEL_THRESHOLD) {
+            boolean[] headerSeen = {!skipHeader};
+            read(path, row -> {
+                if (!headerSeen[0]) {
+                    headerSeen[0] = true;
+                    return;
+                }
+                T entity = parser.apply(row);
+                if (entity != null) {
+                    onParsed.accept(entity);
+                }
+            });
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+            boolean firstWindow = true;
+            while (position < fileSize) {
+                long windowSize = Math.min(MAX_WINDOW, fileSize - position);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                boolean lastWindow = position + windowSize == fileSize;
+                int end = lastWindow ? (int) windowSize : lastLineEnd(window, (int) windowSize);
+                int start = firstWindow && skipHeader ? nextLineStart(window, 0, end) : 0;
+                // Un enregistrement entre guillemets coupé par la fin de la fenêtre est relu dans la suivante
+                int parsed = parseWindow(window, start, end, lastWindow, CHUNK_SIZE, parser, onParsed);
+                if (parsed <= start && !lastWindow) {
+                    throw new IOException("Ligne trop longue dans " + path);
+                }
+                firstWindow = false;
+                position += parsed;
+            }
+        }
+    }
+
+    /**
+     * Analyse window[from, to) par tranches parallèles, puis transmet les entités dans l'ordre
+     * Une tranche contenant un guillemet, ou dont le début a été lu comme la suite d'un enregistrement
+     * précédent, est relue séquentiellement à partir de la fin de cet enregistrement.
+     * @param complete to est la fin des données ; sinon un enregistrement non terminé n'est pas transmis
+     * @return position juste après le dernier enregistrement transmis
+     */
+    static <T> int parseWindow(ByteBuffer window, int from, int to, boolean complete, int chunkSize,
+                               Function<CsvRow, T> parser, Consumer<T> onParsed) {
+        // Découpage en tranches d'environ chunkSize octets, alignées sur les fins de ligne
+        List<int[]> chunks = new ArrayList<>();
+        int chunkStart = from;
+        while (chunkStart < to) {
+            int chunkEnd = chunkStart + chunkSize >= to ? to : nextLineStart(window, chunkStart + chunkSize, to);
+            chunks.add(new int[]{chunkStart, chunkEnd});
+            chunkStart = chunkEnd;
+        }
+
+        List<List<T>> results = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            results.add(null);
+        }
+        ForkJoinPool.commonPool().invoke(new ChunkTask<>(window, chunks, results, 0, chunks.size(), parser));
+
+        CsvRow row = new CsvRow();
+        Consumer<CsvRow> visitor = parsedRow -> {
+            T entity = parser.apply(parsedRow);
+            if (entity != null) {
+                onParsed.accept(entity);
+            }
+        };
+        int position = from;
+        for (int i = 0; i < chunks.size(); i++) {
+            int[] chunk = chunks.get(i);
+            List<T> chunkResult = results.get(i);
+            if (position == chunk[0] && chunkResult != null) {
+                chunkResult.forEach(onParsed);
+                position = chunk[1];
+                continue;
+            }
+            // Les enregistrements peuvent déborder sur les tranches suivantes, qui sont alors relues aussi
+            while (position < chunk[1]) {
+                int next = scanRecord(window, position, to, complete, row, visitor);
+                if (next < 0) {
+                    return position;
+                }
+                position = next;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Tâche ForkJoin analysant les tranches [first, last) ; chaque tranche a son propre CsvRow
+     * Une tranche contenant un guillemet n'est pas analysée (résultat null) : ses fins de ligne
+     * ne sont pas forcément des fins d'enregistrement.
+     */
+    private static final class ChunkTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buffer;
+        private final List<int[]> chunks;
+        private final List<List<T>> results;
+        private final int first;
+        private final int last;
+        private final Function<CsvRow, T> parser;
+
+        private ChunkTask(ByteBuffer buffer, List<int[]> chunks, List<List<T>> results,
+                          int first, int last, Function<CsvRow, T> parser) {
+            this.buffer = buffer;
+            this.chunks = chunks;
+            this.results = results;
+            this.first = first;
+            this.last = last;
+            this.parser = parser;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new ChunkTask<>(buffer, chunks, results, first, middle, parser),
+                          new ChunkTask<>(buffer, chunks, results, middle, last, parser));
+                return;
+            }
+            int[] chunk = chunks.get(first);
+            if (containsQuote(buffer, chunk[0], chunk[1])) {
+                return;
+            }
+            List<T> parsed = new ArrayList<>();
+            scan(buffer, chunk[0], chunk[1], new CsvRow(), row -> {
+                T entity = parser.apply(row);
+                if (entity != null) {
+                    parsed.add(entity);
+                }
+            });
+            results.set(first, parsed);
+        }
+    }
+
+    /**
+     * Découpe les enregistrements de buffer[from, to) en champs
+     */
+    static void scan(ByteBuffer buffer, int from, int to, CsvRow row, Consumer<CsvRow> visitor) {
+        scan(buffer, from, to, true, row, visitor);
+    }
+
+    /**
+     * Découpe les enregistrements de buffer[from, to) en champs
+     * @param complete to est la fin des données ; sinon un enregistrement non terminé n'est pas transmis
+     * @return position juste après le dernier enregistrement transmis
+     */
+    static int scan(ByteBuffer buffer, int from, int to, boolean complete, CsvRow row, Consumer<CsvRow> visitor) {
+        int position = from;
+        while (position < to) {
+            int next = scanRecord(buffer, position, to, complete, row, visitor);
+            if (next < 0) {
+                return position;
+            }
+            position = next;
+        }
+        return position;
+    }
+
+    /**
+     * Analyse un enregistrement à partir de start
+     * @return position du début de l'enregistrement suivant, -1 s'il n'est pas terminé avant to
+     */
+    private static int scanRecord(ByteBuffer buffer, int start, int to, boolean complete,
+                                  CsvRow row, Consumer<CsvRow> visitor) {
+        if ((buffer.get(start) & 0xFF) <= ' ') {
+            int lineEnd = nextLineStart(buffer, start, to);
+            if (isBlank(buffer, start, lineEnd)) {
+                return lineEnd == to && !complete && buffer.get(to - 1) != '\n' ? -1 : lineEnd;
+            }
+        }
+
+        row.reset(buffer);
+        int position = start;
+        while (true) {
+            if (position < to && buffer.get(position) == '"') {
+                // Champ entre guillemets : stocké sans les guillemets, "" remplacé au décodage
+                int fieldStart = position + 1;
+                boolean escaped = false;
+                position = fieldStart;
+                while (true) {
+                    if (position >= to) {
+                        if (!complete) {
+                            return -1;
+                        }
+                        // Guillemet fermant manquant : le reste des données forme le champ
+                        row.addField(fieldStart, to, escaped);
+                        visitor.accept(row);
+                        return to;
+                    }
+                    if (buffer.get(position) == '"') {
+                        if (position + 1 < to && buffer.get(position + 1) == '"') {
+                            escaped = true;
+                            position += 2;
+                            continue;
+                        }
+                        if (position + 1 >= to && !complete) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    position++;
+                }
+                row.addField(fieldStart, position, escaped);
+                position++;
+                // Octets parasites entre le guillemet fermant et le séparateur ignorés
+                while (position < to && buffer.get(position) != ',' && buffer.get(position) != '\n') {
+                    position++;
+                }
+            } else {
+                int fieldStart = position;
+                while (position < to && buffer.get(position) != ',' && buffer.get(position) != '\n') {
+                    position++;
+                }
+                int fieldEnd = position;
+                if ((position < to || complete) && fieldEnd > fieldStart && buffer.get(fieldEnd - 1) == '\r') {
+                    fieldEnd--;
+                }
+                row.addField(fieldStart, fieldEnd);
+            }
+
+            if (position >= to) {
+                if (!complete) {
+                    return -1;
+                }
+                visitor.accept(row);
+                return to;
+            }
+            if (buffer.get(position) == '\n') {
+                visitor.accept(row);
+                return position + 1;
+            }
+            position++;
+        }
+    }
+
+    private static boolean containsQuote(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '"') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Position juste après le dernier saut de ligne avant end (0 si aucun)
+     */
+    static int lastLineEnd(ByteBuffer buffer, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Position juste après le premier saut de ligne à partir de from (to si aucun)
+     */
+    static int nextLineStart(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((buffer.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -4,83 +4,144 @@ import com.reservation.model.Payment;
 import com.reservation.model.PaymentMethod;
 import com.reservation.model.PaymentStatus;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Service de stockage CSV pour les paiements
+ * Le fichier payments.csv contient le dernier état complet, les modifications suivantes sont
+ * ajoutées au journal payments.log ; le CSV n'est réécrit que lorsque le journal devient trop gros.
+ * Un instantané binaire (payments.snap), écrit à l'arrêt, est préféré aux deux tant qu'ils n'ont pas changé.
  */
-public class PaymentCsvStorage {
+public class PaymentCsvStorage implements EntityStore<Payment> {
     private static final String CSV_FILE = "payments.csv";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String LOG_FILE = "payments.log";
+    private static final String SNAPSHOT_FILE = "payments.snap";
+    private static final RowCodec<Payment> ROW_CODEC = new PaymentRowCodec();
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+    public static final SnapshotCodec<Payment> SNAPSHOT_CODEC = new SnapshotCodec<>() {
+        @Override
+        public void write(Payment payment, SnapshotWriter writer) throws IOException {
+            writer.writeString(payment.getId());
+            writer.writeString(payment.getReservationId());
+            writer.writeDecimal(payment.getAmount());
+            writer.writeEnum(payment.getMethod());
+            writer.writeEnum(payment.getStatus());
+            writer.writeDateTime(payment.getPaymentDate());
+        }
+
+        @Override
+        public Payment read(SnapshotReader reader) throws IOException {
+            String id = reader.readString();
+            String reservationId = reader.readId();
+            BigDecimal amount = reader.readDecimal();
+            PaymentMethod method = reader.readEnum(METHODS);
+            PaymentStatus status = reader.readEnum(STATUSES);
+            LocalDateTime paymentDate = reader.readDateTime();
+
+            Payment payment = new Payment(id, reservationId, amount, method);
+            payment.setStatus(status);
+            payment.setPaymentDate(paymentDate);
+            return payment;
+        }
+    };
     private final CsvStorageService csvService;
+    private final CsvAppendLog log;
+    private final BinarySnapshotStorage<Payment> snapshot;
 
     public PaymentCsvStorage() {
-        this.csvService = new CsvStorageService();
+        this(new CsvStorageService());
+    }
+
+    public PaymentCsvStorage(CsvStorageService csvService) {
+        this.csvService = csvService;
+        this.log = new CsvAppendLog(csvService, LOG_FILE);
+        this.snapshot = new BinarySnapshotStorage<>(csvService, SNAPSHOT_FILE, List.of(CSV_FILE, LOG_FILE), SNAPSHOT_CODEC);
         initializeCsvFile();
     }
 
     private void initializeCsvFile() {
         if (!csvService.fileExists(CSV_FILE)) {
-            List<String[]> header = new ArrayList<>();
-            header.add(new String[]{"id", "reservationId", "amount", "method", "status", "paymentDate"});
-            csvService.writeCsv(CSV_FILE, header);
+            csvService.writeCsv(CSV_FILE, writer -> writer.row(ROW_CODEC.header()));
         }
     }
 
     /**
-     * Charge tous les paiements depuis le CSV
+     * Charge les paiements un à un depuis l'instantané binaire s'il est à jour,
+     * sinon depuis le CSV puis rejoue le journal
+     * @param onLoad reçoit chaque paiement lu (un paiement rejoué remplace le précédent)
+     * @param onDelete reçoit les identifiants supprimés par le journal
      */
-    public List<Payment> loadAll() {
-        List<Payment> payments = new ArrayList<>();
-        List<String[]> rows = csvService.readCsv(CSV_FILE);
-        
-        for (int i = 1; i < rows.size(); i++) {
-            String[] row = rows.get(i);
-            if (row.length >= 6) {
-                try {
-                    String id = row[0];
-                    String reservationId = row[1];
-                    BigDecimal amount = new BigDecimal(row[2]);
-                    PaymentMethod method = PaymentMethod.valueOf(row[3]);
-                    PaymentStatus status = PaymentStatus.valueOf(row[4]);
-                    LocalDateTime paymentDate = row[5].isEmpty() ? null : LocalDateTime.parse(row[5], DATE_FORMATTER);
-                    
-                    Payment payment = new Payment(id, reservationId, amount, method);
-                    payment.setStatus(status);
-                    payment.setPaymentDate(paymentDate);
-                    payments.add(payment);
-                } catch (Exception e) {
-                    System.err.println("Erreur lors du chargement du paiement: " + e.getMessage());
-                }
-            }
+    @Override
+    public void loadAll(Consumer<Payment> onLoad, Consumer<String> onDelete) {
+        if (snapshot.load(onLoad)) {
+            return;
         }
-        
-        return payments;
+
+        csvService.parseRows(CSV_FILE, true, row -> ROW_CODEC.read(row, 0), onLoad);
+
+        log.replay(
+            row -> {
+                Payment payment = ROW_CODEC.read(row, 1);
+                if (payment != null) {
+                    onLoad.accept(payment);
+                }
+            },
+            onDelete
+        );
     }
 
     /**
-     * Sauvegarde tous les paiements dans le CSV
+     * Réécrit le CSV à partir de l'état courant et supprime les segments de journal qu'il couvre
+     * @param state copie de l'état courant, demandée après le scellement du journal
      */
-    public void saveAll(List<Payment> payments) {
-        List<String[]> rows = new ArrayList<>();
-        rows.add(new String[]{"id", "reservationId", "amount", "method", "status", "paymentDate"});
-        
-        for (Payment payment : payments) {
-            rows.add(new String[]{
-                payment.getId(),
-                payment.getReservationId(),
-                payment.getAmount().toString(),
-                payment.getMethod().name(),
-                payment.getStatus().name(),
-                payment.getPaymentDate() == null ? "" : payment.getPaymentDate().format(DATE_FORMATTER)
-            });
+    @Override
+    public void compact(Supplier<Collection<Payment>> state) {
+        long covered = log.seal();
+        if (writeCsv(state.get())) {
+            log.dropSealed(covered);
         }
-        
-        csvService.writeCsv(CSV_FILE, rows);
     }
-}
 
+    private boolean writeCsv(Collection<Payment> payments) {
+        return csvService.writeCsv(CSV_FILE, writer -> {
+            writer.row(ROW_CODEC.header());
+            for (Payment payment : payments) {
+                ROW_CODEC.write(writer, payment);
+                writer.endRow();
+            }
+        });
+    }
+
+    /**
+     * Ajoute un lot de modifications au journal en une seule écriture
+     * @param changes paiements par identifiant, null pour une suppression
+     */
+    @Override
+    public void appendChanges(Map<String, Payment> changes) {
+        log.appendAll(changes, ROW_CODEC::write);
+    }
+
+    /**
+     * Indique si le journal a dépassé la taille du CSV et doit être compacté (compact)
+     */
+    @Override
+    public boolean needsCompaction() {
+        return log.needsCompaction(CSV_FILE);
+    }
+
+    /**
+     * Écrit l'instantané binaire de l'état courant (à appeler à l'arrêt)
+     */
+    @Override
+    public void writeSnapshot(Supplier<Collection<Payment>> state) {
+        snapshot.save(state);
+    }
+}
@@ -0,0 +1,50 @@
+package com.reservation.storage;
+
+import com.reservation.model.Payment;
+import com.reservation.model.PaymentMethod;
+import com.reservation.model.PaymentStatus;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Codec CSV des paiements, la date de paiement est vide tant que le paiement n'est pas effectué
+ */
+final class PaymentRowCodec implements RowCodec<Payment> {
+    private static final String[] HEADER = {"id", "reservationId", "amount", "method", "status", "paymentDate"};
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+    private static final IdPool ID_POOL = IdPool.shared();
+
+    @Override
+    public String[] header() {
+        return HEADER;
+    }
+
+    @Override
+    public void write(CsvRowWriter writer, Payment payment) {
+        writer.field(payment.getId())
+            .field(payment.getReservationId())
+            .field(payment.getAmount().toString())
+            .field(payment.getMethod().name())
+            .field(payment.getStatus().name())
+            .field(payment.getPaymentDate() == null ? "" : payment.getPaymentDate().format(DATE_FORMATTER));
+    }
+
+    @Override
+    public Payment read(CsvRow row, int offset) {
+        if (row.size() < offset + HEADER.length) {
+            return null;
+        }
+        try {
+            Payment payment = new Payment(row.get(offset), ID_POOL.intern(row.get(offset + 1)),
+                row.getDecimal(offset + 2), row.getEnum(offset + 3, METHODS));
+            payment.setStatus(row.getEnum(offset + 4, STATUSES));
+            payment.setPaymentDate(row.isEmpty(offset + 5) ? null : row.getDateTime(offset + 5));
+            return payment;
+        } catch (Exception e) {
+            System.err.println("Erreur lors du chargement du paiement: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.reservation.storage;
+
+import com.reservation.model.Reservation;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Archive froide des réservations anciennes ou terminées
+ * Les réservations archivées ne sont plus chargées avec les partitions, mais restent consultables.
+ */
+public interface ReservationArchive {
+
+    /**
+     * Archive des réservations
+     * L'archivage est durable au retour : les réservations peuvent alors être retirées du stockage courant.
+     */
+    void append(Collection<Reservation> reservations) throws IOException;
+
+    /**
+     * Réservations archivées d'un client
+     */
+    List<Reservation> findByClientId(String clientId);
+
+    /**
+     * Réservation archivée par identifiant
+     */
+    Optional<Reservation> findById(String id);
+
+    /**
+     * Dernier mois entièrement archivé, ainsi que tous les précédents (null si aucun)
+     * Les partitions de ces mois n'ont plus à être relues pour l'archivage.
+     */
+    YearMonth archivedThrough();
+
+    /**
+     * Enregistre durablement le dernier mois entièrement archivé
+     */
+    void setArchivedThrough(YearMonth month) throws IOException;
+}
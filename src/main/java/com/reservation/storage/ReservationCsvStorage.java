@@ -5,82 +5,262 @@ import com.reservation.model.ReservationStatus;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * Service de stockage CSV pour les réservations
+ * Service de stockage CSV pour les réservations, partitionné par mois
+ * Chaque mois de Reservation.getDateTime() a sa partition dans data/reservations/ :
+ * - AAAA-MM.csv : dernier état complet de la partition
+ * - AAAA-MM.log : journal des mutations suivantes, rejoué au chargement
+ * - AAAA-MM.snap : instantané binaire, préféré aux deux tant qu'ils n'ont pas changé
+ * Une écriture ne touche que la partition concernée et chaque partition se charge séparément.
+ * L'ancien fichier unique reservations.csv (et son journal) est migré au premier démarrage.
  */
-public class ReservationCsvStorage {
-    private static final String CSV_FILE = "reservations.csv";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+public class ReservationCsvStorage implements ReservationStore {
+    private static final String PARTITION_DIR = "reservations";
+    private static final String LEGACY_CSV_FILE = "reservations.csv";
+    private static final String LEGACY_LOG_FILE = "reservations.log";
+    private static final String LEGACY_SNAPSHOT_FILE = "reservations.snap";
+    private static final String MIGRATED_SUFFIX = ".migrated";
+    private static final Pattern PARTITION_FILE = Pattern.compile("(\\d{4}-\\d{2})\\.(csv|log|snap)");
+    private static final RowCodec<Reservation> ROW_CODEC = new ReservationRowCodec();
+    // Lecture des partitions froides, sans passer par le pool d'identifiants
+    private static final RowCodec<Reservation> COLD_ROW_CODEC = new ReservationRowCodec(null);
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+    public static final SnapshotCodec<Reservation> SNAPSHOT_CODEC = new SnapshotCodec<>() {
+        @Override
+        public void write(Reservation reservation, SnapshotWriter writer) throws IOException {
+            writer.writeString(reservation.getId());
+            writer.writeString(reservation.getClientId());
+            writer.writeString(reservation.getServiceId());
+            writer.writeString(reservation.getPrestataireId());
+            writer.writeDateTime(reservation.getDateTime());
+            writer.writeEnum(reservation.getStatus());
+            writer.writeDecimal(reservation.getTotalAmount());
+        }
+
+        @Override
+        public Reservation read(SnapshotReader reader) throws IOException {
+            String id = reader.readString();
+            String clientId = reader.readId();
+            String serviceId = reader.readId();
+            String prestataireId = reader.readId();
+            LocalDateTime dateTime = reader.readDateTime();
+            ReservationStatus status = reader.readEnum(STATUSES);
+            BigDecimal totalAmount = reader.readDecimal();
+
+            Reservation reservation = new Reservation(id, clientId, serviceId, prestataireId, dateTime, totalAmount);
+            reservation.setStatus(status);
+            return reservation;
+        }
+    };
+    /**
+     * Fichiers d'une partition mensuelle
+     */
+    private final class Partition {
+        private final String csvFile;
+        private final CsvAppendLog log;
+        private final BinarySnapshotStorage<Reservation> snapshot;
+
+        private Partition(YearMonth month) {
+            String baseName = PARTITION_DIR + "/" + month;
+            this.csvFile = baseName + ".csv";
+            String logFile = baseName + ".log";
+            this.log = new CsvAppendLog(csvService, logFile);
+            this.snapshot = new BinarySnapshotStorage<>(csvService, baseName + ".snap",
+                List.of(csvFile, logFile), SNAPSHOT_CODEC);
+        }
+    }
+
     private final CsvStorageService csvService;
+    private final Map<YearMonth, Partition> partitions = new ConcurrentHashMap<>();
 
     public ReservationCsvStorage() {
-        this.csvService = new CsvStorageService();
-        initializeCsvFile();
+        this(new CsvStorageService());
     }
 
-    private void initializeCsvFile() {
-        if (!csvService.fileExists(CSV_FILE)) {
-            List<String[]> header = new ArrayList<>();
-            header.add(new String[]{"id", "clientId", "serviceId", "prestataireId", "dateTime", "status", "totalAmount"});
-            csvService.writeCsv(CSV_FILE, header);
+    public ReservationCsvStorage(CsvStorageService csvService) {
+        this.csvService = csvService;
+        initializePartitionDirectory();
+        migrateLegacyFile();
+    }
+
+    private void initializePartitionDirectory() {
+        try {
+            Files.createDirectories(csvService.resolve(PARTITION_DIR));
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la création du dossier des réservations: " + e.getMessage());
         }
     }
 
     /**
-     * Charge toutes les réservations depuis le CSV
+     * Répartit l'ancien fichier unique (état complet + journal) en partitions mensuelles
+     * Les anciens fichiers sont renommés en .migrated une fois toutes les partitions écrites :
+     * une migration interrompue est simplement reprise au démarrage suivant.
      */
-    public List<Reservation> loadAll() {
-        List<Reservation> reservations = new ArrayList<>();
-        List<String[]> rows = csvService.readCsv(CSV_FILE);
-        
-        for (int i = 1; i < rows.size(); i++) {
-            String[] row = rows.get(i);
-            if (row.length >= 7) {
-                try {
-                    String id = row[0];
-                    String clientId = row[1];
-                    String serviceId = row[2];
-                    String prestataireId = row[3];
-                    LocalDateTime dateTime = LocalDateTime.parse(row[4], DATE_FORMATTER);
-                    ReservationStatus status = ReservationStatus.valueOf(row[5]);
-                    BigDecimal totalAmount = new BigDecimal(row[6]);
-                    
-                    Reservation reservation = new Reservation(id, clientId, serviceId, prestataireId, dateTime, totalAmount);
-                    reservation.setStatus(status);
-                    reservations.add(reservation);
-                } catch (Exception e) {
-                    System.err.println("Erreur lors du chargement de la réservation: " + e.getMessage());
+    private void migrateLegacyFile() {
+        if (!csvService.fileExists(LEGACY_CSV_FILE) && !csvService.fileExists(LEGACY_LOG_FILE)) {
+            return;
+        }
+
+        Map<String, Reservation> legacy = new LinkedHashMap<>();
+        csvService.parseRows(LEGACY_CSV_FILE, true, row -> ROW_CODEC.read(row, 0),
+            reservation -> legacy.put(reservation.getId(), reservation));
+        new CsvAppendLog(csvService, LEGACY_LOG_FILE).replay(
+            row -> {
+                Reservation reservation = ROW_CODEC.read(row, 1);
+                if (reservation != null) {
+                    legacy.put(reservation.getId(), reservation);
+                }
+            },
+            legacy::remove
+        );
+
+        Map<YearMonth, List<Reservation>> byMonth = new TreeMap<>();
+        for (Reservation reservation : legacy.values()) {
+            byMonth.computeIfAbsent(ReservationStore.partitionOf(reservation), month -> new ArrayList<>()).add(reservation);
+        }
+        byMonth.forEach((month, reservations) -> compactPartition(month, () -> reservations));
+
+        try {
+            for (String legacyFile : List.of(LEGACY_CSV_FILE, LEGACY_LOG_FILE)) {
+                Path path = csvService.resolve(legacyFile);
+                if (Files.exists(path)) {
+                    Files.move(path, csvService.resolve(legacyFile + MIGRATED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
                 }
             }
+            Files.deleteIfExists(csvService.resolve(LEGACY_SNAPSHOT_FILE));
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'archivage de l'ancien fichier des réservations: " + e.getMessage());
         }
-        
-        return reservations;
+    }
+
+    private Partition partition(YearMonth month) {
+        return partitions.computeIfAbsent(month, Partition::new);
     }
 
     /**
-     * Sauvegarde toutes les réservations dans le CSV
+     * Mois pour lesquels une partition existe sur disque
      */
-    public void saveAll(List<Reservation> reservations) {
-        List<String[]> rows = new ArrayList<>();
-        rows.add(new String[]{"id", "clientId", "serviceId", "prestataireId", "dateTime", "status", "totalAmount"});
-        
-        for (Reservation reservation : reservations) {
-            rows.add(new String[]{
-                reservation.getId(),
-                reservation.getClientId(),
-                reservation.getServiceId(),
-                reservation.getPrestataireId(),
-                reservation.getDateTime().format(DATE_FORMATTER),
-                reservation.getStatus().name(),
-                reservation.getTotalAmount().toString()
-            });
+    @Override
+    public SortedSet<YearMonth> listPartitions() {
+        SortedSet<YearMonth> months = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(csvService.resolve(PARTITION_DIR))) {
+            for (Path file : files) {
+                Matcher matcher = PARTITION_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    months.add(YearMonth.parse(matcher.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du dossier des réservations: " + e.getMessage());
         }
-        
-        csvService.writeCsv(CSV_FILE, rows);
+        return months;
     }
-}
 
+    /**
+     * Charge une partition depuis son instantané binaire s'il est à jour,
+     * sinon depuis son CSV puis rejoue son journal
+     * @param onLoad reçoit chaque réservation lue (une réservation rejouée remplace la précédente)
+     * @param onDelete reçoit les identifiants supprimés par le journal
+     * @return true si la partition a été lue depuis son instantané
+     */
+    @Override
+    public boolean loadPartition(YearMonth month, Consumer<Reservation> onLoad, Consumer<String> onDelete) {
+        return loadPartition(month, onLoad, onDelete, ROW_CODEC, IdPool.shared());
+    }
+
+    @Override
+    public boolean loadColdPartition(YearMonth month, Consumer<Reservation> onLoad, Consumer<String> onDelete) {
+        return loadPartition(month, onLoad, onDelete, COLD_ROW_CODEC, null);
+    }
+
+    private boolean loadPartition(YearMonth month, Consumer<Reservation> onLoad, Consumer<String> onDelete,
+                                  RowCodec<Reservation> codec, IdPool idPool) {
+        Partition partition = partition(month);
+        if (partition.snapshot.load(onLoad, idPool)) {
+            return true;
+        }
+
+        csvService.parseRows(partition.csvFile, true, row -> codec.read(row, 0), onLoad);
+
+        partition.log.replay(
+            row -> {
+                Reservation reservation = codec.read(row, 1);
+                if (reservation != null) {
+                    onLoad.accept(reservation);
+                }
+            },
+            onDelete
+        );
+        return false;
+    }
+
+    /**
+     * Compacte le journal d'une partition sans bloquer les ajouts : scelle le journal,
+     * réécrit le CSV de la partition puis supprime les segments scellés qu'il couvre
+     * @param state réservations du mois, demandées après le scellement
+     */
+    @Override
+    public void compactPartition(YearMonth month, Supplier<Collection<Reservation>> state) {
+        Partition partition = partition(month);
+        long covered = partition.log.seal();
+        if (writePartitionCsv(partition, state.get())) {
+            partition.log.dropSealed(covered);
+        }
+    }
+
+    private boolean writePartitionCsv(Partition partition, Collection<Reservation> reservations) {
+        return csvService.writeCsv(partition.csvFile, writer -> {
+            writer.row(ROW_CODEC.header());
+            for (Reservation reservation : reservations) {
+                ROW_CODEC.write(writer, reservation);
+                writer.endRow();
+            }
+        });
+    }
+
+    /**
+     * Écrit l'instantané binaire d'une partition (à appeler une fois son journal à jour)
+     */
+    @Override
+    public void writeSnapshot(YearMonth month, Supplier<Collection<Reservation>> state) {
+        partition(month).snapshot.save(state);
+    }
+
+    /**
+     * Ajoute un lot de modifications au journal d'une partition en une seule écriture
+     * @param changes réservations par identifiant, null pour une suppression
+     */
+    @Override
+    public void appendChanges(YearMonth month, Map<String, Reservation> changes) {
+        partition(month).log.appendAll(changes, ROW_CODEC::write);
+    }
+
+    /**
+     * Indique si le journal d'une partition a dépassé la taille de son CSV et doit être compacté (compactPartition)
+     */
+    @Override
+    public boolean needsCompaction(YearMonth month) {
+        Partition partition = partition(month);
+        return partition.log.needsCompaction(partition.csvFile);
+    }
+}
@@ -0,0 +1,71 @@
+package com.reservation.storage;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationStatus;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Codec CSV des réservations, partagé par les partitions mensuelles et les archives
+ */
+final class ReservationRowCodec implements RowCodec<Reservation> {
+    private static final String[] HEADER = {"id", "clientId", "serviceId", "prestataireId", "dateTime", "status", "totalAmount"};
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+
+    // Pool des identifiants référencés lus (null : pas de déduplication) ; l'identifiant de la réservation n'y passe pas
+    private final IdPool idPool;
+
+    ReservationRowCodec() {
+        this(IdPool.shared());
+    }
+
+    /**
+     * @param idPool pool des identifiants référencés lus, null pour ne pas les dédupliquer
+     */
+    ReservationRowCodec(IdPool idPool) {
+        this.idPool = idPool;
+    }
+
+    @Override
+    public String[] header() {
+        return HEADER;
+    }
+
+    @Override
+    public void write(CsvRowWriter writer, Reservation reservation) {
+        writer.field(reservation.getId())
+            .field(reservation.getClientId())
+            .field(reservation.getServiceId())
+            .field(reservation.getPrestataireId())
+            .field(reservation.getDateTime().format(DATE_FORMATTER))
+            .field(reservation.getStatus().name())
+            .field(reservation.getTotalAmount().toString());
+    }
+
+    @Override
+    public Reservation read(CsvRow row, int offset) {
+        if (row.size() < offset + HEADER.length) {
+            return null;
+        }
+        try {
+            Reservation reservation = new Reservation(
+                row.get(offset),
+                id(row.get(offset + 1)),
+                id(row.get(offset + 2)),
+                id(row.get(offset + 3)),
+                row.getDateTime(offset + 4),
+                row.getDecimal(offset + 6)
+            );
+            reservation.setStatus(row.getEnum(offset + 5, STATUSES));
+            return reservation;
+        } catch (Exception e) {
+            System.err.println("Erreur lors du chargement de la réservation: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private String id(String value) {
+        return idPool == null ? value : idPool.intern(value);
+    }
+}
@@ -0,0 +1,67 @@
+package com.reservation.storage;
+
+import com.reservation.model.Reservation;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Persistance des réservations, partitionnée par mois de rendez-vous
+ * Chaque partition se charge, s'enrichit et se compacte indépendamment des autres.
+ */
+public interface ReservationStore {
+
+    /**
+     * Partition d'une réservation : le mois de son rendez-vous
+     */
+    static YearMonth partitionOf(Reservation reservation) {
+        return YearMonth.from(reservation.getDateTime());
+    }
+
+    /**
+     * Mois des partitions existantes, par ordre chronologique
+     */
+    SortedSet<YearMonth> listPartitions();
+
+    /**
+     * Charge les réservations d'un mois
+     * @param onLoad reçoit chaque réservation lue (une réservation relue remplace la précédente)
+     * @param onDelete reçoit les identifiants supprimés depuis
+     * @return true si l'état chargé n'a pas besoin d'un nouvel instantané
+     */
+    boolean loadPartition(YearMonth month, Consumer<Reservation> onLoad, Consumer<String> onDelete);
+
+    /**
+     * Charge une partition dont les réservations sont recopiées hors du tas
+     * Les identifiants lus ne passent pas par le pool partagé, qui les garderait en mémoire
+     * alors que seule leur copie hors tas est conservée.
+     */
+    default boolean loadColdPartition(YearMonth month, Consumer<Reservation> onLoad, Consumer<String> onDelete) {
+        return loadPartition(month, onLoad, onDelete);
+    }
+
+    /**
+     * Enregistre un lot de modifications d'une partition
+     * @param changes réservations par identifiant, null pour une suppression
+     * @throws java.io.UncheckedIOException si le lot n'a pas pu être écrit
+     */
+    void appendChanges(YearMonth month, Map<String, Reservation> changes);
+
+    boolean needsCompaction(YearMonth month);
+
+    /**
+     * Réécrit l'état complet d'une partition
+     * @param state réservations du mois
+     */
+    void compactPartition(YearMonth month, Supplier<Collection<Reservation>> state);
+
+    /**
+     * Écrit l'instantané d'une partition (à l'arrêt)
+     * @param state réservations du mois, demandées une fois l'état des fichiers sources relevé
+     */
+    void writeSnapshot(YearMonth month, Supplier<Collection<Reservation>> state);
+}
@@ -0,0 +1,26 @@
+package com.reservation.storage;
+
+/**
+ * Conversion typée entre une entité et les champs d'une ligne CSV
+ * Un codec par entité, partagé par le CSV principal, le journal et les archives ;
+ * la lecture analyse dates, montants et énumérations directement depuis les octets de la ligne.
+ * @param <T> Type de l'entité
+ */
+interface RowCodec<T> {
+
+    /**
+     * En-tête du fichier CSV
+     */
+    String[] header();
+
+    /**
+     * Écrit les champs de l'entité sur la ligne courante, sans la terminer
+     */
+    void write(CsvRowWriter writer, T entity);
+
+    /**
+     * Construit une entité à partir des champs de la ligne, à partir de l'indice offset
+     * @return null si la ligne est incomplète ou invalide
+     */
+    T read(CsvRow row, int offset);
+}
@@ -0,0 +1,352 @@
+package com.reservation.storage;
+
+import com.reservation.model.Reservation;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive froide des réservations sur disque (data/archive/)
+ * Chaque archivage ajoute un segment compressé immuable reservations-NNNNNN.csv.gz,
+ * accompagné d'un index reservations-NNNNNN.idx listant les clients qu'il contient et d'un index
+ * reservations-NNNNNN.ids listant ses réservations (identifiants triés, un par ligne) :
+ * une recherche par client ou par identifiant ne décompresse que les segments qui la concernent.
+ * Les identifiants lus ne passent pas par le pool d'identifiants : une consultation de l'archive
+ * ne doit pas faire grossir le tas.
+ * Les segments ne sont jamais réécrits ; en cas de doublon, le segment le plus récent l'emporte.
+ * Le dernier mois entièrement archivé est conservé dans archived-through.txt.
+ */
+public class SegmentedReservationArchive implements ReservationArchive {
+    private static final String ARCHIVE_DIR = "archive";
+    private static final String ARCHIVED_THROUGH_FILE = "archived-through.txt";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("reservations-(\\d{6})\\.csv\\.gz");
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final RowCodec<Reservation> ROW_CODEC = new ReservationRowCodec(null);
+
+    /**
+     * Segment d'archive, clients qu'il contient (null si son index est absent)
+     * et index de ses identifiants, projeté en mémoire à la première recherche
+     */
+    private static final class Segment {
+        private final int number;
+        private final Path path;
+        private final Set<String> clientIds;
+        private final Path idsPath;
+        private ByteBuffer ids;
+
+        private Segment(int number, Path path, Set<String> clientIds) {
+            this.number = number;
+            this.path = path;
+            this.clientIds = clientIds;
+            this.idsPath = path.resolveSibling(baseName(number) + ".ids");
+        }
+
+        private boolean mayContainClient(String clientId) {
+            return clientIds == null || clientIds.contains(clientId);
+        }
+
+        /**
+         * Recherche dichotomique dans l'index des identifiants (vrai si l'index est absent ou illisible)
+         */
+        private boolean mayContainId(String id) {
+            if (ids == null) {
+                if (!Files.exists(idsPath)) {
+                    return true;
+                }
+                try (FileChannel channel = FileChannel.open(idsPath, StandardOpenOption.READ)) {
+                    ids = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                } catch (IOException e) {
+                    System.err.println("Index d'archive " + idsPath.getFileName() + " illisible: " + e.getMessage());
+                    return true;
+                }
+            }
+            return containsLine(ids, id.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private final Path directory;
+    // Segments par ordre de création, lus à la première recherche
+    private List<Segment> segments;
+
+    public SegmentedReservationArchive(CsvStorageService csvService) {
+        this.directory = csvService.resolve(ARCHIVE_DIR);
+    }
+
+    /**
+     * Ajoute un segment contenant les réservations données
+     * Le segment est durable au retour ; les réservations peuvent alors être retirées du stockage courant.
+     */
+    @Override
+    public synchronized void append(Collection<Reservation> reservations) throws IOException {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Segment> current = segments();
+        int number = current.isEmpty() ? 1 : current.get(current.size() - 1).number + 1;
+        String baseName = baseName(number);
+
+        Set<String> clientIds = new HashSet<>();
+        List<byte[]> ids = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            clientIds.add(reservation.getClientId());
+            ids.add(reservation.getId().getBytes(StandardCharsets.UTF_8));
+        }
+        // Tri sur les octets UTF-8 : l'ordre utilisé par la recherche dichotomique
+        ids.sort(Arrays::compareUnsigned);
+
+        // Les index sont écrits avant le segment : un segment visible a toujours ses index
+        writeDurably(directory.resolve(baseName + ".idx"), false, writer -> clientIds.forEach(writer::row));
+        writeDurably(directory.resolve(baseName + ".ids"), ids);
+        Path segmentPath = directory.resolve(baseName + ".csv.gz");
+        writeDurably(segmentPath, true, writer -> {
+            writer.row(ROW_CODEC.header());
+            for (Reservation reservation : reservations) {
+                ROW_CODEC.write(writer, reservation);
+                writer.endRow();
+            }
+        });
+        current.add(new Segment(number, segmentPath, clientIds));
+    }
+
+    /**
+     * Réservations archivées d'un client
+     */
+    @Override
+    public synchronized List<Reservation> findByClientId(String clientId) {
+        Map<String, Reservation> found = new LinkedHashMap<>();
+        for (Segment segment : segments()) {
+            if (segment.mayContainClient(clientId)) {
+                readSegment(segment, reservation -> {
+                    if (reservation.getClientId().equals(clientId)) {
+                        found.put(reservation.getId(), reservation);
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * Réservation archivée par identifiant (segments dont l'index contient l'identifiant,
+     * du plus récent au plus ancien)
+     */
+    @Override
+    public synchronized Optional<Reservation> findById(String id) {
+        List<Segment> current = segments();
+        for (int i = current.size() - 1; i >= 0; i--) {
+            if (!current.get(i).mayContainId(id)) {
+                continue;
+            }
+            Reservation[] found = new Reservation[1];
+            readSegment(current.get(i), reservation -> {
+                if (reservation.getId().equals(id)) {
+                    found[0] = reservation;
+                }
+            });
+            if (found[0] != null) {
+                return Optional.of(found[0]);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized YearMonth archivedThrough() {
+        Path path = directory.resolve(ARCHIVED_THROUGH_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(Files.readString(path, StandardCharsets.UTF_8).trim());
+        } catch (IOException | DateTimeParseException e) {
+            System.err.println("Erreur lors de la lecture de " + ARCHIVED_THROUGH_FILE + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void setArchivedThrough(YearMonth month) throws IOException {
+        Files.createDirectories(directory);
+        writeDurably(directory.resolve(ARCHIVED_THROUGH_FILE), false, writer -> writer.row(month.toString()));
+    }
+
+    private List<Segment> segments() {
+        if (segments != null) {
+            return segments;
+        }
+        segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    int number = Integer.parseInt(matcher.group(1));
+                    segments.add(new Segment(number, file, readIndex(file.resolveSibling(baseName(number) + ".idx"))));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du dossier d'archive: " + e.getMessage());
+        }
+        segments.sort((first, second) -> Integer.compare(first.number, second.number));
+        return segments;
+    }
+
+    private static String baseName(int number) {
+        return String.format("reservations-%06d", number);
+    }
+
+    /**
+     * Vrai si une ligne de l'index trié (lignes terminées par '\n') vaut exactement la clé
+     */
+    static boolean containsLine(ByteBuffer sorted, byte[] key) {
+        int low = 0;
+        int high = sorted.limit();
+        while (low < high) {
+            // Début et fin de la ligne contenant le milieu de l'intervalle
+            int start = (low + high) >>> 1;
+            while (start > low && sorted.get(start - 1) != '\n') {
+                start--;
+            }
+            int end = start;
+            while (end < high && sorted.get(end) != '\n') {
+                end++;
+            }
+            int comparison = compareLine(sorted, start, end, key);
+            if (comparison == 0) {
+                return true;
+            }
+            if (comparison < 0) {
+                low = end + 1;
+            } else {
+                high = start;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compare les octets [start, end) à la clé, octet par octet sans signe
+     */
+    private static int compareLine(ByteBuffer buffer, int start, int end, byte[] key) {
+        int length = Math.min(end - start, key.length);
+        for (int i = 0; i < length; i++) {
+            int comparison = Byte.compareUnsigned(buffer.get(start + i), key[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(end - start, key.length);
+    }
+
+    private static Set<String> readIndex(Path indexPath) {
+        if (!Files.exists(indexPath)) {
+            return null;
+        }
+        Set<String> clientIds = new HashSet<>();
+        try {
+            MappedCsvReader.read(indexPath, row -> clientIds.add(row.get(0)));
+            return clientIds;
+        } catch (IOException e) {
+            System.err.println("Index d'archive " + indexPath.getFileName() + " illisible: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void readSegment(Segment segment, Consumer<Reservation> onRead) {
+        byte[] content;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(segment.path), BUFFER_SIZE)) {
+            content = in.readAllBytes();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du segment d'archive " + segment.path.getFileName()
+                + ": " + e.getMessage());
+            return;
+        }
+
+        boolean[] headerSeen = {false};
+        MappedCsvReader.scan(ByteBuffer.wrap(content), 0, content.length, new CsvRow(), row -> {
+            if (!headerSeen[0]) {
+                headerSeen[0] = true;
+                return;
+            }
+            Reservation reservation = ROW_CODEC.read(row, 0);
+            if (reservation != null) {
+                onRead.accept(reservation);
+            }
+        });
+    }
+
+    /**
+     * Écrit durablement un index de lignes brutes, chacune terminée par '\n'
+     */
+    private static void writeDurably(Path path, List<byte[]> lines) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath), BUFFER_SIZE)) {
+            for (byte[] line : lines) {
+                out.write(line);
+                out.write('\n');
+            }
+        }
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Écrit un fichier complet (éventuellement compressé) : fichier temporaire, fsync, renommage atomique
+     */
+    private static void writeDurably(Path path, boolean compressed, Consumer<CsvRowWriter> producer) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            GZIPOutputStream gzip = compressed ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+            Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzip != null ? gzip : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            producer.accept(new CsvRowWriter(writer));
+            writer.flush();
+            if (gzip != null) {
+                gzip.finish();
+            }
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -2,79 +2,147 @@ package com.reservation.storage;
 
 import com.reservation.model.Service;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Service de stockage CSV pour les services
+ * Le fichier services.csv contient le dernier état complet, les modifications suivantes sont
+ * ajoutées au journal services.log ; le CSV n'est réécrit que lorsque le journal devient trop gros.
+ * Un instantané binaire (services.snap), écrit à l'arrêt, est préféré aux deux tant qu'ils n'ont pas changé.
  */
-public class ServiceCsvStorage {
+public class ServiceCsvStorage implements EntityStore<Service> {
     private static final String CSV_FILE = "services.csv";
+    private static final String LOG_FILE = "services.log";
+    private static final String SNAPSHOT_FILE = "services.snap";
+    private static final RowCodec<Service> ROW_CODEC = new ServiceRowCodec();
+    public static final SnapshotCodec<Service> SNAPSHOT_CODEC = new SnapshotCodec<>() {
+        @Override
+        public void write(Service service, SnapshotWriter writer) throws IOException {
+            writer.writeString(service.getId());
+            writer.writeString(service.getName());
+            writer.writeString(service.getDescription());
+            writer.writeString(service.getCategory());
+            writer.writeDecimal(service.getPrice());
+            writer.writeInt(service.getDuration());
+            writer.writeString(service.getPrestataireId());
+        }
+
+        @Override
+        public Service read(SnapshotReader reader) throws IOException {
+            String id = reader.readId();
+            String name = reader.readString();
+            String description = reader.readString();
+            String category = reader.readString();
+            BigDecimal price = reader.readDecimal();
+            int duration = reader.readInt();
+            String prestataireId = reader.readId();
+            return new Service(id, name, description, category, price, duration, prestataireId);
+        }
+    };
     private final CsvStorageService csvService;
+    private final CsvAppendLog log;
+    private final BinarySnapshotStorage<Service> snapshot;
 
     public ServiceCsvStorage() {
-        this.csvService = new CsvStorageService();
+        this(new CsvStorageService());
+    }
+
+    public ServiceCsvStorage(CsvStorageService csvService) {
+        this.csvService = csvService;
+        this.log = new CsvAppendLog(csvService, LOG_FILE);
+        this.snapshot = new BinarySnapshotStorage<>(csvService, SNAPSHOT_FILE, List.of(CSV_FILE, LOG_FILE), SNAPSHOT_CODEC);
         initializeCsvFile();
     }
 
     private void initializeCsvFile() {
         if (!csvService.fileExists(CSV_FILE)) {
-            List<String[]> header = new ArrayList<>();
-            header.add(new String[]{"id", "name", "description", "category", "price", "duration", "prestataireId"});
-            csvService.writeCsv(CSV_FILE, header);
+            csvService.writeCsv(CSV_FILE, writer -> writer.row(ROW_CODEC.header()));
         }
     }
 
     /**
-     * Charge tous les services depuis le CSV
+     * Charge les services un à un depuis l'instantané binaire s'il est à jour,
+     * sinon depuis le CSV puis rejoue le journal
+     * @param onLoad reçoit chaque service lu (un service rejoué remplace le précédent)
+     * @param onDelete reçoit les identifiants supprimés par le journal
      */
-    public List<Service> loadAll() {
-        List<Service> services = new ArrayList<>();
-        List<String[]> rows = csvService.readCsv(CSV_FILE);
-        
-        for (int i = 1; i < rows.size(); i++) {
-            String[] row = rows.get(i);
-            if (row.length >= 7) {
-                try {
-                    String id = row[0];
-                    String name = row[1];
-                    String description = row[2];
-                    String category = row[3];
-                    BigDecimal price = new BigDecimal(row[4]);
-                    int duration = Integer.parseInt(row[5]);
-                    String prestataireId = row[6];
-                    
-                    services.add(new Service(id, name, description, category, price, duration, prestataireId));
-                } catch (Exception e) {
-                    System.err.println("Erreur lors du chargement du service: " + e.getMessage());
-                }
-            }
+    @Override
+    public void loadAll(Consumer<Service> onLoad, Consumer<String> onDelete) {
+        if (snapshot.load(onLoad)) {
+            return;
         }
-        
-        return services;
+
+        csvService.forEachRow(CSV_FILE, true, row -> {
+            Service service = ROW_CODEC.read(row, 0);
+            if (service != null) {
+                onLoad.accept(service);
+            }
+        });
+
+        log.replay(
+            row -> {
+                Service service = ROW_CODEC.read(row, 1);
+                if (service != null) {
+                    onLoad.accept(service);
+                }
+            },
+            onDelete
+        );
     }
 
     /**
-     * Sauvegarde tous les services dans le CSV
+     * Compacte le journal sans bloquer les écritures (à appeler depuis LogCompactor)
+     * Le journal est scellé, l'état complet pris ensuite est réécrit dans le CSV, puis les segments
+     * scellés qu'il couvre sont supprimés ; les ajouts continuent entre-temps dans un nouveau journal.
+     * Rejouer un segment déjà couvert par le CSV ne change pas le résultat : un arrêt à n'importe quelle étape est sûr.
+     * @param state copie de l'état courant, demandée après le scellement
      */
-    public void saveAll(List<Service> services) {
-        List<String[]> rows = new ArrayList<>();
-        rows.add(new String[]{"id", "name", "description", "category", "price", "duration", "prestataireId"});
-        
-        for (Service service : services) {
-            rows.add(new String[]{
-                service.getId(),
-                service.getName(),
-                service.getDescription(),
-                service.getCategory(),
-                service.getPrice().toString(),
-                String.valueOf(service.getDuration()),
-                service.getPrestataireId()
-            });
+    @Override
+    public void compact(Supplier<Collection<Service>> state) {
+        long covered = log.seal();
+        if (writeCsv(state.get())) {
+            log.dropSealed(covered);
         }
-        
-        csvService.writeCsv(CSV_FILE, rows);
     }
-}
 
+    private boolean writeCsv(Collection<Service> services) {
+        return csvService.writeCsv(CSV_FILE, writer -> {
+            writer.row(ROW_CODEC.header());
+            for (Service service : services) {
+                ROW_CODEC.write(writer, service);
+                writer.endRow();
+            }
+        });
+    }
+
+    /**
+     * Ajoute un lot de modifications au journal en une seule écriture
+     * @param changes services par identifiant, null pour une suppression
+     */
+    @Override
+    public void appendChanges(Map<String, Service> changes) {
+        log.appendAll(changes, ROW_CODEC::write);
+    }
+
+    /**
+     * Indique si le journal a dépassé la taille du CSV et doit être compacté (compact)
+     */
+    @Override
+    public boolean needsCompaction() {
+        return log.needsCompaction(CSV_FILE);
+    }
+
+    /**
+     * Écrit l'instantané binaire de l'état courant (à appeler à l'arrêt)
+     */
+    @Override
+    public void writeSnapshot(Supplier<Collection<Service>> state) {
+        snapshot.save(state);
+    }
+}
@@ -0,0 +1,48 @@
+package com.reservation.storage;
+
+import com.reservation.model.Service;
+
+/**
+ * Codec CSV des services
+ */
+final class ServiceRowCodec implements RowCodec<Service> {
+    private static final String[] HEADER = {"id", "name", "description", "category", "price", "duration", "prestataireId"};
+    private static final IdPool ID_POOL = IdPool.shared();
+
+    @Override
+    public String[] header() {
+        return HEADER;
+    }
+
+    @Override
+    public void write(CsvRowWriter writer, Service service) {
+        writer.field(service.getId())
+            .field(service.getName())
+            .field(service.getDescription())
+            .field(service.getCategory())
+            .field(service.getPrice().toString())
+            .field(service.getDuration())
+            .field(service.getPrestataireId());
+    }
+
+    @Override
+    public Service read(CsvRow row, int offset) {
+        if (row.size() < offset + HEADER.length) {
+            return null;
+        }
+        try {
+            return new Service(
+                ID_POOL.intern(row.get(offset)),
+                row.get(offset + 1),
+                row.get(offset + 2),
+                row.get(offset + 3),
+                row.getDecimal(offset + 4),
+                row.getInt(offset + 5),
+                ID_POOL.intern(row.get(offset + 6))
+            );
+        } catch (Exception e) {
+            System.err.println("Erreur lors du chargement du service: " + e.getMessage());
+            return null;
+        }
+    }
+}
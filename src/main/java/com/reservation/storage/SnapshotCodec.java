@@ -0,0 +1,13 @@
+package com.reservation.storage;
+
+import java.io.IOException;
+
+/**
+ * Encodage binaire d'une entité dans un instantané
+ * @param <T> Type de l'entité
+ */
+public interface SnapshotCodec<T> {
+    void write(T entity, SnapshotWriter writer) throws IOException;
+
+    T read(SnapshotReader reader) throws IOException;
+}
@@ -0,0 +1,101 @@
+package com.reservation.storage;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lecture d'un instantané binaire écrit par SnapshotWriter
+ * Les chaînes répétées sont renvoyées sous la forme d'une instance unique ;
+ * les identifiants lus par readId passent en plus par le pool d'identifiants, s'il y en a un.
+ */
+public class SnapshotReader {
+    private final DataInputStream in;
+    private final List<String> dictionary = new ArrayList<>();
+    private final IdPool idPool;
+
+    public SnapshotReader(DataInputStream in) {
+        this(in, null);
+    }
+
+    /**
+     * @param idPool pool des identifiants lus par readId (null pour ne pas les dédupliquer)
+     */
+    public SnapshotReader(DataInputStream in, IdPool idPool) {
+        this.in = in;
+        this.idPool = idPool;
+    }
+
+    /**
+     * Lit un identifiant (écrit par writeString), dédupliqué par le pool
+     */
+    public String readId() throws IOException {
+        String id = readString();
+        return idPool == null ? id : idPool.intern(id);
+    }
+
+    public String readString() throws IOException {
+        int marker = readVarInt();
+        if (marker == SnapshotWriter.NULL_MARKER) {
+            return null;
+        }
+        if (marker == SnapshotWriter.NEW_STRING_MARKER) {
+            String value = in.readUTF();
+            dictionary.add(value);
+            return value;
+        }
+        if (marker == SnapshotWriter.UUID_MARKER) {
+            return new UUID(in.readLong(), in.readLong()).toString();
+        }
+        int index = marker - SnapshotWriter.FIRST_INDEX_MARKER;
+        if (index >= dictionary.size()) {
+            throw new IOException("Entrée de dictionnaire inconnue: " + index);
+        }
+        return dictionary.get(index);
+    }
+
+    public int readInt() throws IOException {
+        return in.readInt();
+    }
+
+    public LocalDateTime readDateTime() throws IOException {
+        long epochSecond = in.readLong();
+        if (epochSecond == SnapshotWriter.NULL_DATE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+
+    public BigDecimal readDecimal() throws IOException {
+        byte scale = in.readByte();
+        if (scale == SnapshotWriter.DECIMAL_AS_STRING) {
+            return new BigDecimal(in.readUTF());
+        }
+        return BigDecimal.valueOf(in.readLong(), scale);
+    }
+
+    public <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IOException("Ordinal d'énumération invalide: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,119 @@
+package com.reservation.storage;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Écriture d'un instantané binaire compact
+ * - chaînes dédupliquées par un dictionnaire (un identifiant répété coûte un entier variable)
+ * - identifiants UUID sur 16 octets au lieu de 36 caractères
+ * - dates en secondes epoch + nanosecondes
+ * - montants en valeur non mise à l'échelle (long) + échelle
+ * - énumérations par ordinal
+ */
+public class SnapshotWriter {
+    static final int NULL_MARKER = 0;
+    static final int NEW_STRING_MARKER = 1;
+    static final int UUID_MARKER = 2;
+    static final int FIRST_INDEX_MARKER = 3;
+    static final byte DECIMAL_AS_STRING = Byte.MIN_VALUE;
+    static final long NULL_DATE = Long.MIN_VALUE;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    public SnapshotWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Écrit une chaîne (éventuellement null) via le dictionnaire
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(NULL_MARKER);
+            return;
+        }
+        UUID uuid = asCanonicalUuid(value);
+        if (uuid != null) {
+            // Identifiant unique : inutile de l'ajouter au dictionnaire
+            writeVarInt(UUID_MARKER);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarInt(index + FIRST_INDEX_MARKER);
+            return;
+        }
+        dictionary.put(value, dictionary.size());
+        writeVarInt(NEW_STRING_MARKER);
+        out.writeUTF(value);
+    }
+
+    public void writeInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    /**
+     * Écrit une date (éventuellement null) en secondes epoch UTC + nanosecondes
+     */
+    public void writeDateTime(LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeLong(NULL_DATE);
+            return;
+        }
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    /**
+     * Écrit un montant : valeur non mise à l'échelle sur 64 bits + échelle,
+     * ou en texte si la valeur dépasse un long
+     */
+    public void writeDecimal(BigDecimal value) throws IOException {
+        if (value.scale() > Byte.MIN_VALUE && value.scale() <= Byte.MAX_VALUE
+                && value.unscaledValue().bitLength() < Long.SIZE) {
+            out.writeByte(value.scale());
+            out.writeLong(value.unscaledValue().longValue());
+        } else {
+            out.writeByte(DECIMAL_AS_STRING);
+            out.writeUTF(value.toString());
+        }
+    }
+
+    public void writeEnum(Enum<?> value) throws IOException {
+        out.writeByte(value.ordinal());
+    }
+
+    /**
+     * UUID correspondant à la chaîne si elle en est la forme canonique (minuscules), null sinon
+     */
+    private static UUID asCanonicalUuid(String value) {
+        if (value.length() != 36 || value.charAt(8) != '-' || value.charAt(13) != '-'
+                || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
@@ -0,0 +1,24 @@
+package com.reservation.storage;
+
+import com.reservation.model.Payment;
+import com.reservation.model.Service;
+import com.reservation.model.User;
+
+/**
+ * Fournisseur des stockages injectés dans les repositories
+ * Implémentations : CsvStorageBackend (fichiers CSV + journaux, mode par défaut)
+ * et InMemoryStorageBackend (aucune entrée / sortie, pour les tests de charge et les benchmarks).
+ * Chaque méthode est appelée une fois, à la construction du repository correspondant.
+ */
+public interface StorageBackend {
+
+    EntityStore<User> userStore();
+
+    EntityStore<Service> serviceStore();
+
+    EntityStore<Payment> paymentStore();
+
+    ReservationStore reservationStore();
+
+    ReservationArchive reservationArchive();
+}
@@ -4,105 +4,142 @@ import com.reservation.factory.UserFactory;
 import com.reservation.factory.UserType;
 import com.reservation.model.*;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Service de stockage CSV pour les utilisateurs
+ * Le fichier users.csv contient le dernier état complet, les modifications suivantes sont
+ * ajoutées au journal users.log ; le CSV n'est réécrit que lorsque le journal devient trop gros.
+ * Un instantané binaire (users.snap), écrit à l'arrêt, est préféré aux deux tant qu'ils n'ont pas changé.
  */
-public class UserCsvStorage {
+public class UserCsvStorage implements EntityStore<User> {
     private static final String CSV_FILE = "users.csv";
+    private static final String LOG_FILE = "users.log";
+    private static final String SNAPSHOT_FILE = "users.snap";
+    private static final RowCodec<User> ROW_CODEC = new UserRowCodec();
+    private static final UserType[] USER_TYPES = UserType.values();
+    public static final SnapshotCodec<User> SNAPSHOT_CODEC = new SnapshotCodec<>() {
+        @Override
+        public void write(User user, SnapshotWriter writer) throws IOException {
+            writer.writeString(user.getId());
+            writer.writeString(user.getName());
+            writer.writeString(user.getEmail());
+            writer.writeString(user.getPhone());
+            writer.writeEnum(UserRowCodec.userType(user));
+        }
+
+        @Override
+        public User read(SnapshotReader reader) throws IOException {
+            String id = reader.readId();
+            String name = reader.readString();
+            String email = reader.readString();
+            String phone = reader.readString();
+            UserType userType = reader.readEnum(USER_TYPES);
+            return UserFactory.createUser(userType, id, name, email, phone);
+        }
+    };
     private final CsvStorageService csvService;
+    private final CsvAppendLog log;
+    private final BinarySnapshotStorage<User> snapshot;
 
     public UserCsvStorage() {
-        this.csvService = new CsvStorageService();
+        this(new CsvStorageService());
+    }
+
+    public UserCsvStorage(CsvStorageService csvService) {
+        this.csvService = csvService;
+        this.log = new CsvAppendLog(csvService, LOG_FILE);
+        this.snapshot = new BinarySnapshotStorage<>(csvService, SNAPSHOT_FILE, List.of(CSV_FILE, LOG_FILE), SNAPSHOT_CODEC);
         initializeCsvFile();
     }
 
     private void initializeCsvFile() {
         if (!csvService.fileExists(CSV_FILE)) {
             // Créer le fichier avec l'en-tête
-            List<String[]> header = new ArrayList<>();
-            header.add(new String[]{"id", "name", "email", "phone", "type"});
-            csvService.writeCsv(CSV_FILE, header);
+            csvService.writeCsv(CSV_FILE, writer -> writer.row(ROW_CODEC.header()));
         }
     }
 
     /**
-     * Charge tous les utilisateurs depuis le CSV
+     * Charge les utilisateurs un à un depuis l'instantané binaire s'il est à jour,
+     * sinon depuis le CSV puis rejoue le journal
+     * @param onLoad reçoit chaque utilisateur lu (un utilisateur rejoué remplace le précédent)
+     * @param onDelete reçoit les identifiants supprimés par le journal
      */
-    public List<User> loadAll() {
-        List<User> users = new ArrayList<>();
-        List<String[]> rows = csvService.readCsv(CSV_FILE);
-        
-        // Ignorer la première ligne (en-tête)
-        for (int i = 1; i < rows.size(); i++) {
-            String[] row = rows.get(i);
-            if (row.length >= 5) {
-                try {
-                    String id = row[0];
-                    String name = row[1];
-                    String email = row[2];
-                    String phone = row[3];
-                    UserType userType = UserType.valueOf(row[4]);
-                    
-                    User user = UserFactory.createUser(userType, id, name, email, phone);
-                    users.add(user);
-                } catch (Exception e) {
-                    System.err.println("Erreur lors du chargement de l'utilisateur: " + e.getMessage());
-                }
-            }
+    @Override
+    public void loadAll(Consumer<User> onLoad, Consumer<String> onDelete) {
+        if (snapshot.load(onLoad)) {
+            return;
         }
-        
-        return users;
+
+        // La première ligne (en-tête) est ignorée
+        csvService.forEachRow(CSV_FILE, true, row -> {
+            User user = ROW_CODEC.read(row, 0);
+            if (user != null) {
+                onLoad.accept(user);
+            }
+        });
+
+        log.replay(
+            row -> {
+                User user = ROW_CODEC.read(row, 1);
+                if (user != null) {
+                    onLoad.accept(user);
+                }
+            },
+            onDelete
+        );
     }
 
     /**
-     * Sauvegarde tous les utilisateurs dans le CSV
+     * Compacte le journal en arrière-plan : scelle le journal, réécrit le CSV puis supprime les segments couverts
+     * @param state copie de l'état courant, demandée après le scellement
      */
-    public void saveAll(List<User> users) {
-        List<String[]> rows = new ArrayList<>();
-        rows.add(new String[]{"id", "name", "email", "phone", "type"});
-        
-        for (User user : users) {
-            rows.add(new String[]{
-                user.getId(),
-                user.getName(),
-                user.getEmail(),
-                user.getPhone(),
-                getUserType(user)
-            });
+    @Override
+    public void compact(Supplier<Collection<User>> state) {
+        long covered = log.seal();
+        if (writeCsv(state.get())) {
+            log.dropSealed(covered);
         }
-        
-        csvService.writeCsv(CSV_FILE, rows);
+    }
+
+    private boolean writeCsv(Collection<User> users) {
+        return csvService.writeCsv(CSV_FILE, writer -> {
+            writer.row(ROW_CODEC.header());
+            for (User user : users) {
+                ROW_CODEC.write(writer, user);
+                writer.endRow();
+            }
+        });
     }
 
     /**
-     * Ajoute un utilisateur au CSV
+     * Ajoute un lot de modifications au journal en une seule écriture
+     * @param changes utilisateurs par identifiant, null pour une suppression
      */
-    public void append(User user) {
-        csvService.appendCsv(CSV_FILE, new String[]{
-            user.getId(),
-            user.getName(),
-            user.getEmail(),
-            user.getPhone(),
-            getUserType(user)
-        });
+    @Override
+    public void appendChanges(Map<String, User> changes) {
+        log.appendAll(changes, ROW_CODEC::write);
     }
 
     /**
-     * Détermine le type d'utilisateur à partir de son rôle
+     * Indique si le journal a dépassé la taille du CSV et doit être compacté (compact)
      */
-    private String getUserType(User user) {
-        String role = user.getRole();
-        if (role.equals("CLIENT")) {
-            return "CLIENT";
-        } else if (role.equals("PRESTATAIRE")) {
-            return "PRESTATAIRE";
-        } else if (role.equals("ADMIN")) {
-            return "ADMIN";
-        }
-        return "CLIENT"; // Par défaut
+    @Override
+    public boolean needsCompaction() {
+        return log.needsCompaction(CSV_FILE);
     }
-}
 
+    /**
+     * Écrit l'instantané binaire de l'état courant (à appeler à l'arrêt)
+     */
+    @Override
+    public void writeSnapshot(Supplier<Collection<User>> state) {
+        snapshot.save(state);
+    }
+}
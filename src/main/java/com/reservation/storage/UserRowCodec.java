@@ -0,0 +1,60 @@
+package com.reservation.storage;
+
+import com.reservation.factory.UserFactory;
+import com.reservation.factory.UserType;
+import com.reservation.model.User;
+
+/**
+ * Codec CSV des utilisateurs, le type est déduit du rôle
+ */
+final class UserRowCodec implements RowCodec<User> {
+    private static final String[] HEADER = {"id", "name", "email", "phone", "type"};
+    private static final UserType[] TYPES = UserType.values();
+    private static final IdPool ID_POOL = IdPool.shared();
+
+    @Override
+    public String[] header() {
+        return HEADER;
+    }
+
+    @Override
+    public void write(CsvRowWriter writer, User user) {
+        writer.field(user.getId())
+            .field(user.getName())
+            .field(user.getEmail())
+            .field(user.getPhone())
+            .field(userType(user).name());
+    }
+
+    @Override
+    public User read(CsvRow row, int offset) {
+        if (row.size() < offset + HEADER.length) {
+            return null;
+        }
+        try {
+            String id = ID_POOL.intern(row.get(offset));
+            String name = row.get(offset + 1);
+            String email = row.get(offset + 2);
+            String phone = row.get(offset + 3);
+            UserType userType = row.getEnum(offset + 4, TYPES);
+
+            return UserFactory.createUser(userType, id, name, email, phone);
+        } catch (Exception e) {
+            System.err.println("Erreur lors du chargement de l'utilisateur: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Détermine le type d'utilisateur à partir de son rôle
+     */
+    static UserType userType(User user) {
+        String role = user.getRole();
+        if (role.equals("PRESTATAIRE")) {
+            return UserType.PRESTATAIRE;
+        } else if (role.equals("ADMIN")) {
+            return UserType.ADMIN;
+        }
+        return UserType.CLIENT; // Par défaut
+    }
+}
@@ -0,0 +1,116 @@
+package com.reservation.storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Écriture différée (write-behind) avec regroupement des écritures
+ * Une mutation marque le stockage comme modifié ; un thread d'arrière-plan exécute
+ * l'écriture au plus tard après l'intervalle configuré, une seule fois pour toute la rafale.
+ * Garantie de fraîcheur : une modification est écrite au plus tard "intervalle" ms après avoir été marquée.
+ * Un intervalle nul ou négatif rend l'écriture synchrone (comportement historique).
+ * Chaque modification reçoit le futur de l'écriture qui la couvrira : l'appelant choisit
+ * d'attendre sa durabilité ou de continuer et d'être prévenu plus tard.
+ */
+public class WriteBehindFlusher {
+    public static final String INTERVAL_PROPERTY = "reservation.flush.interval.ms";
+    public static final long DEFAULT_INTERVAL_MS = 500;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final Runnable flushAction;
+    private final long intervalMs;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Object flushLock = new Object();
+    // Modification en attente et futur de l'écriture qui la couvrira, protégés par le verrou de l'instance
+    private boolean dirty;
+    private CompletableFuture<Void> nextWrite = new CompletableFuture<>();
+
+    /**
+     * @param name nom du stockage (messages d'erreur)
+     * @param flushAction écriture effective des modifications en attente
+     * @param intervalMs délai maximal entre une modification et son écriture
+     */
+    public WriteBehindFlusher(String name, Runnable flushAction, long intervalMs) {
+        this.name = name;
+        this.flushAction = flushAction;
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * Intervalle configuré par la propriété système reservation.flush.interval.ms
+     */
+    public static long configuredInterval() {
+        return Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_MS);
+    }
+
+    /**
+     * Signale une modification à écrire
+     * Ne doit pas être appelée en détenant un verrou pris par l'action d'écriture.
+     * @return futur terminé une fois la modification durable, en échec si l'écriture a échoué
+     */
+    public CompletableFuture<Void> markDirty() {
+        CompletableFuture<Void> write;
+        synchronized (this) {
+            dirty = true;
+            write = nextWrite;
+        }
+        if (intervalMs <= 0) {
+            flush();
+        } else {
+            schedule();
+        }
+        return write;
+    }
+
+    /**
+     * Écrit immédiatement les modifications en attente (arrêt de l'application, tests)
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            CompletableFuture<Void> write;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+                write = nextWrite;
+                nextWrite = new CompletableFuture<>();
+            }
+            try {
+                flushAction.run();
+                write.complete(null);
+            } catch (RuntimeException e) {
+                System.err.println("Erreur lors de l'écriture différée de " + name + ": " + e.getMessage());
+                // L'échec est signalé tout de suite ; les modifications restent en attente pour la tentative suivante
+                write.completeExceptionally(e);
+                synchronized (this) {
+                    dirty = true;
+                }
+                if (intervalMs > 0) {
+                    // Nouvelle tentative à la prochaine échéance
+                    schedule();
+                }
+            }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            SCHEDULER.schedule(this::scheduledFlush, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void scheduledFlush() {
+        scheduled.set(false);
+        flush();
+    }
+}
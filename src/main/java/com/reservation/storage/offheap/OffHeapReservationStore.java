@@ -0,0 +1,429 @@
+package com.reservation.storage.offheap;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationStatus;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Stockage compact des réservations hors du tas, dans des ByteBuffer directs
+ * Chaque réservation est un enregistrement de taille fixe (RECORD_SIZE octets) : identifiants sur 128 bits,
+ * date en secondes depuis l'epoch, montant en centimes, statut sur un octet. Le tas ne contient que
+ * l'index identifiant → emplacement (un int par entrée) ; les lectures renvoient des vues (ReservationView)
+ * qui décodent les champs à la demande.
+ * Seules les réservations dont les identifiants sont des UUID canoniques, la date sans fraction de seconde
+ * et le montant d'au plus deux décimales sont acceptées ; put renvoie false pour les autres, qui restent sur le tas.
+ * Les enregistrements ne sont jamais réutilisés : une vue sur une réservation retirée ou remplacée garde
+ * son ancien contenu, comme un objet du tas. Dès que les enregistrements retirés ou remplacés sont plus nombreux
+ * que les vivants, ces derniers sont recopiés dans de nouveaux blocs (compactage) ; les anciens blocs restent
+ * lisibles par les vues qui les référencent, et leur mémoire directe est libérée par le GC avec la dernière d'entre elles.
+ * La mémoire directe est bornée par -XX:MaxDirectMemorySize (par défaut la taille maximale du tas).
+ */
+public class OffHeapReservationStore {
+    static final int ID = 0;
+    static final int CLIENT_ID = 16;
+    static final int SERVICE_ID = 32;
+    static final int PRESTATAIRE_ID = 48;
+    static final int DATE_TIME = 64;
+    static final int AMOUNT_CENTS = 72;
+    static final int STATUS = 80;
+    static final int AMOUNT_SCALE = 81;
+    static final int RECORD_SIZE = 88;
+
+    private static final int CHUNK_SHIFT = 15;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    // Nombre d'enregistrements écrits (vivants ou retirés) depuis le dernier compactage
+    private int records;
+    // Table à adressage ouvert : emplacement + 1 de chaque réservation vivante, 0 pour une case vide
+    private int[] index = new int[1024];
+    private int size;
+
+    /**
+     * Ajoute ou remplace une réservation
+     * @return false si la réservation n'est pas représentable hors tas (elle n'est alors pas stockée)
+     */
+    public synchronized boolean put(Reservation reservation) {
+        UUID id = uuid(reservation.getId());
+        UUID clientId = uuid(reservation.getClientId());
+        UUID serviceId = uuid(reservation.getServiceId());
+        UUID prestataireId = uuid(reservation.getPrestataireId());
+        LocalDateTime dateTime = reservation.getDateTime();
+        BigDecimal amount = reservation.getTotalAmount();
+        if (id == null || clientId == null || serviceId == null || prestataireId == null
+                || dateTime == null || dateTime.getNano() != 0 || reservation.getStatus() == null
+                || amount == null || amount.scale() < 0 || amount.scale() > 2) {
+            return false;
+        }
+        long cents;
+        try {
+            cents = amount.setScale(2).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return false;
+        }
+
+        // Un remplacement occupe un nouvel enregistrement : les vues sur l'ancien restent inchangées
+        int slot = allocate();
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        putUuid(chunk, offset + ID, id);
+        putUuid(chunk, offset + CLIENT_ID, clientId);
+        putUuid(chunk, offset + SERVICE_ID, serviceId);
+        putUuid(chunk, offset + PRESTATAIRE_ID, prestataireId);
+        chunk.putLong(offset + DATE_TIME, dateTime.toEpochSecond(ZoneOffset.UTC));
+        chunk.putLong(offset + AMOUNT_CENTS, cents);
+        chunk.put(offset + STATUS, (byte) reservation.getStatus().ordinal());
+        chunk.put(offset + AMOUNT_SCALE, (byte) amount.scale());
+
+        // Indexé une fois écrit : un redimensionnement relit l'identifiant de chaque enregistrement
+        int position = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        boolean replaced = index[position] != 0;
+        index[position] = slot + 1;
+        if (replaced) {
+            compactIfSparse();
+        } else if (++size * 3 > index.length * 2) {
+            resize(index.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Vue sur une réservation, null si elle est absente
+     */
+    public synchronized Reservation get(String id) {
+        int slot = slotOf(id);
+        return slot < 0 ? null : view(slot);
+    }
+
+    public synchronized boolean contains(String id) {
+        return slotOf(id) >= 0;
+    }
+
+    /**
+     * Retire une réservation
+     * @return la vue sur la réservation retirée, toujours lisible, ou null si elle était absente
+     */
+    public synchronized Reservation remove(String id) {
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return null;
+        }
+        ReservationView removed = view(slot);
+        UUID uuid = UUID.fromString(id);
+        removeAt(find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        compactIfSparse();
+        return removed;
+    }
+
+    /**
+     * Retire une réservation seulement si elle n'a pas changé depuis la lecture de la vue
+     * (enregistrement identique octet par octet, qu'il ait été déplacé par un compactage ou non)
+     */
+    public synchronized boolean remove(Reservation expected) {
+        if (!(expected instanceof ReservationView)) {
+            return false;
+        }
+        ReservationView view = (ReservationView) expected;
+        ByteBuffer chunk = view.chunk();
+        int offset = view.offset();
+        int position = find(chunk.getLong(offset + ID), chunk.getLong(offset + ID + 8));
+        if (index[position] == 0) {
+            return false;
+        }
+        int slot = index[position] - 1;
+        if (!chunk(slot).slice(offset(slot), RECORD_SIZE).equals(chunk.slice(offset, RECORD_SIZE))) {
+            return false;
+        }
+        removeAt(position);
+        compactIfSparse();
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Mémoire directe allouée, en octets
+     */
+    public synchronized long allocatedBytes() {
+        return (long) chunks.length * CHUNK_RECORDS * RECORD_SIZE;
+    }
+
+    /**
+     * Vues sur toutes les réservations stockées
+     */
+    public List<Reservation> values() {
+        return select(reservation -> true);
+    }
+
+    /**
+     * Réservations satisfaisant le critère
+     * Le critère est évalué sur une vue unique repositionnée à chaque enregistrement (flyweight) :
+     * il ne doit pas la conserver. Seules les réservations retenues donnent lieu à une nouvelle vue.
+     */
+    public synchronized List<Reservation> select(Predicate<Reservation> filter) {
+        List<Reservation> selected = new ArrayList<>();
+        ReservationView cursor = new ReservationView(this);
+        for (int position = 0; position < index.length; position++) {
+            if (index[position] != 0) {
+                int slot = index[position] - 1;
+                cursor.moveTo(chunk(slot), offset(slot));
+                if (filter.test(cursor)) {
+                    selected.add(view(slot));
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Réservations d'un client, comparées sur les 128 bits de l'identifiant sans décoder les enregistrements
+     */
+    public List<Reservation> findByClientId(String clientId) {
+        return findByUuid(CLIENT_ID, clientId);
+    }
+
+    public List<Reservation> findByPrestataireId(String prestataireId) {
+        return findByUuid(PRESTATAIRE_ID, prestataireId);
+    }
+
+    public synchronized List<Reservation> findByStatus(ReservationStatus status) {
+        List<Reservation> found = new ArrayList<>();
+        if (status == null) {
+            return found;
+        }
+        for (int position = 0; position < index.length; position++) {
+            if (index[position] != 0) {
+                int slot = index[position] - 1;
+                if (chunk(slot).get(offset(slot) + STATUS) == status.ordinal()) {
+                    found.add(view(slot));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Réservations dont la date est comprise entre from (inclus) et to (exclu)
+     */
+    public synchronized List<Reservation> findByDateRange(LocalDateTime from, LocalDateTime to) {
+        // Les dates stockées sont à la seconde : une borne avec fraction de seconde est arrondie à la seconde suivante
+        long first = ceilEpochSecond(from);
+        long last = ceilEpochSecond(to);
+        List<Reservation> found = new ArrayList<>();
+        for (int position = 0; position < index.length; position++) {
+            if (index[position] != 0) {
+                int slot = index[position] - 1;
+                long epochSecond = chunk(slot).getLong(offset(slot) + DATE_TIME);
+                if (epochSecond >= first && epochSecond < last) {
+                    found.add(view(slot));
+                }
+            }
+        }
+        return found;
+    }
+
+    private synchronized List<Reservation> findByUuid(int field, String value) {
+        UUID uuid = uuid(value);
+        if (uuid == null) {
+            return new ArrayList<>();
+        }
+        long high = uuid.getMostSignificantBits();
+        long low = uuid.getLeastSignificantBits();
+        List<Reservation> found = new ArrayList<>();
+        for (int position = 0; position < index.length; position++) {
+            if (index[position] != 0) {
+                int slot = index[position] - 1;
+                ByteBuffer chunk = chunk(slot);
+                int offset = offset(slot) + field;
+                if (chunk.getLong(offset) == high && chunk.getLong(offset + 8) == low) {
+                    found.add(view(slot));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Copie sur le tas d'une vue, ou la réservation elle-même si ce n'en est pas une
+     * Une vue conservée durablement garderait en mémoire tout le bloc de son enregistrement après un compactage.
+     */
+    public static Reservation detach(Reservation reservation) {
+        if (!(reservation instanceof ReservationView)) {
+            return reservation;
+        }
+        Reservation copy = new Reservation(reservation.getId(), reservation.getClientId(),
+            reservation.getServiceId(), reservation.getPrestataireId(),
+            reservation.getDateTime(), reservation.getTotalAmount());
+        copy.setStatus(reservation.getStatus());
+        return copy;
+    }
+
+    private ReservationView view(int slot) {
+        ReservationView view = new ReservationView(this);
+        view.moveTo(chunk(slot), offset(slot));
+        return view;
+    }
+
+    private int slotOf(String id) {
+        UUID uuid = uuid(id);
+        if (uuid == null) {
+            return -1;
+        }
+        int position = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        return index[position] - 1;
+    }
+
+    /**
+     * Case de l'identifiant dans l'index, ou première case vide rencontrée s'il est absent (sondage linéaire)
+     */
+    private int find(long high, long low) {
+        int mask = index.length - 1;
+        int position = hash(high, low) & mask;
+        while (index[position] != 0) {
+            int slot = index[position] - 1;
+            ByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+            if (chunk.getLong(offset + ID) == high && chunk.getLong(offset + ID + 8) == low) {
+                return position;
+            }
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    /**
+     * Vide une case de l'index en décalant les entrées suivantes de la même grappe, sans marqueur de suppression
+     */
+    private void removeAt(int position) {
+        int mask = index.length - 1;
+        index[position] = 0;
+        size--;
+        int next = (position + 1) & mask;
+        while (index[next] != 0) {
+            int slot = index[next] - 1;
+            int home = homeOf(slot) & mask;
+            // L'entrée peut remonter dans la case libérée si celle-ci se trouve entre sa case d'origine et elle
+            if (((next - home) & mask) >= ((next - position) & mask)) {
+                index[position] = index[next];
+                index[next] = 0;
+                position = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] previous = index;
+        index = new int[capacity];
+        int mask = capacity - 1;
+        for (int entry : previous) {
+            if (entry != 0) {
+                int position = homeOf(entry - 1) & mask;
+                while (index[position] != 0) {
+                    position = (position + 1) & mask;
+                }
+                index[position] = entry;
+            }
+        }
+    }
+
+    /**
+     * Compacte dès que les enregistrements morts occupent au moins un bloc et dépassent les vivants
+     * (coût amorti constant : il faut autant de retraits ou remplacements que de vivants avant le suivant)
+     */
+    private void compactIfSparse() {
+        int dead = records - size;
+        if (dead >= CHUNK_RECORDS && dead > size) {
+            compact();
+        }
+    }
+
+    /**
+     * Recopie les enregistrements vivants dans de nouveaux blocs ; les anciens ne sont plus modifiés
+     * Les cases de l'index ne bougent pas, seuls les emplacements qu'elles désignent changent.
+     */
+    private void compact() {
+        ByteBuffer[] previous = chunks;
+        chunks = new ByteBuffer[0];
+        records = 0;
+        for (int position = 0; position < index.length; position++) {
+            if (index[position] != 0) {
+                int slot = index[position] - 1;
+                int copy = allocate();
+                chunk(copy).put(offset(copy), previous[slot >> CHUNK_SHIFT], offset(slot), RECORD_SIZE);
+                index[position] = copy + 1;
+            }
+        }
+    }
+
+    private int allocate() {
+        int slot = records++;
+        if ((slot >> CHUNK_SHIFT) >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE);
+        }
+        return slot;
+    }
+
+    private int homeOf(int slot) {
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        return hash(chunk.getLong(offset + ID), chunk.getLong(offset + ID + 8));
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot >> CHUNK_SHIFT];
+    }
+
+    private static int offset(int slot) {
+        return (slot & CHUNK_MASK) * RECORD_SIZE;
+    }
+
+    private static int hash(long high, long low) {
+        long mixed = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static long ceilEpochSecond(LocalDateTime dateTime) {
+        long epochSecond = dateTime.toEpochSecond(ZoneOffset.UTC);
+        return dateTime.getNano() == 0 ? epochSecond : epochSecond + 1;
+    }
+
+    private static void putUuid(ByteBuffer chunk, int offset, UUID uuid) {
+        chunk.putLong(offset, uuid.getMostSignificantBits());
+        chunk.putLong(offset + 8, uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * UUID dont la forme canonique est exactement la chaîne donnée, null sinon
+     * (un identifiant non canonique ne pourrait pas être restitué à l'identique)
+     */
+    private static UUID uuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static ReservationStatus status(byte ordinal) {
+        return STATUSES[ordinal];
+    }
+}
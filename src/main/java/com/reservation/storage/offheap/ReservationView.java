@@ -0,0 +1,96 @@
+package com.reservation.storage.offheap;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationStatus;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static com.reservation.storage.offheap.OffHeapReservationStore.AMOUNT_CENTS;
+import static com.reservation.storage.offheap.OffHeapReservationStore.AMOUNT_SCALE;
+import static com.reservation.storage.offheap.OffHeapReservationStore.CLIENT_ID;
+import static com.reservation.storage.offheap.OffHeapReservationStore.DATE_TIME;
+import static com.reservation.storage.offheap.OffHeapReservationStore.ID;
+import static com.reservation.storage.offheap.OffHeapReservationStore.PRESTATAIRE_ID;
+import static com.reservation.storage.offheap.OffHeapReservationStore.SERVICE_ID;
+import static com.reservation.storage.offheap.OffHeapReservationStore.STATUS;
+
+/**
+ * Réservation lue directement dans un enregistrement hors tas (flyweight)
+ * Aucun champ n'est copié : chaque accesseur décode l'enregistrement, et setStatus le modifie sur place.
+ * La modification n'est visible du stockage que tant que l'enregistrement y est vivant (ni remplacé,
+ * ni retiré, ni déplacé par un compactage) ; elle n'est durable qu'une fois la réservation enregistrée.
+ */
+final class ReservationView extends Reservation {
+    private final OffHeapReservationStore store;
+    private ByteBuffer chunk;
+    private int offset;
+
+    ReservationView(OffHeapReservationStore store) {
+        super(null, null, null, null, null, null);
+        this.store = store;
+    }
+
+    void moveTo(ByteBuffer chunk, int offset) {
+        this.chunk = chunk;
+        this.offset = offset;
+    }
+
+    ByteBuffer chunk() {
+        return chunk;
+    }
+
+    int offset() {
+        return offset;
+    }
+
+    @Override
+    public String getId() {
+        return uuid(ID);
+    }
+
+    @Override
+    public String getClientId() {
+        return uuid(CLIENT_ID);
+    }
+
+    @Override
+    public String getServiceId() {
+        return uuid(SERVICE_ID);
+    }
+
+    @Override
+    public String getPrestataireId() {
+        return uuid(PRESTATAIRE_ID);
+    }
+
+    @Override
+    public LocalDateTime getDateTime() {
+        return LocalDateTime.ofEpochSecond(chunk.getLong(offset + DATE_TIME), 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    public ReservationStatus getStatus() {
+        return OffHeapReservationStore.status(chunk.get(offset + STATUS));
+    }
+
+    @Override
+    public void setStatus(ReservationStatus status) {
+        // Les parcours du stockage lisent le statut sous son verrou
+        synchronized (store) {
+            chunk.put(offset + STATUS, (byte) status.ordinal());
+        }
+    }
+
+    @Override
+    public BigDecimal getTotalAmount() {
+        return BigDecimal.valueOf(chunk.getLong(offset + AMOUNT_CENTS), 2).setScale(chunk.get(offset + AMOUNT_SCALE));
+    }
+
+    private String uuid(int field) {
+        return new UUID(chunk.getLong(offset + field), chunk.getLong(offset + field + 8)).toString();
+    }
+}
@@ -0,0 +1,444 @@
+package com.reservation.storage.paged;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.reservation.storage.paged.PageFile.HEADER_SIZE;
+import static com.reservation.storage.paged.PageFile.PAGE_SIZE;
+
+/**
+ * Arbre B+ sur pages : clé (identifiant en octets) vers valeur (entité encodée)
+ * - les feuilles contiennent les entrées triées et sont chaînées pour les parcours
+ * - les nœuds internes contiennent les clés de séparation et les pages enfants
+ * - une valeur trop grande pour la feuille est stockée dans une chaîne de pages de débordement
+ * Les pages sont décodées dans un Node, modifiées puis réencodées : aucune page du cache n'est
+ * conservée entre deux accès. Une suppression ne fusionne pas les feuilles sous-remplies.
+ * Non synchronisé : les lectures se font sous le verrou de lecture de PagedStore, les modifications
+ * sous son verrou d'écriture.
+ */
+final class BPlusTree {
+    static final int MAX_KEY_SIZE = 255;
+    private static final int INLINE_VALUE_MAX = PAGE_SIZE / 8;
+    private static final int OVERFLOW_CAPACITY = PAGE_SIZE - HEADER_SIZE;
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final byte OVERFLOW = 3;
+    private static final byte INLINE_VALUE = 0;
+    private static final byte OVERFLOW_VALUE = 1;
+
+    /**
+     * Page décodée : entrées d'une feuille (valeurs sous leur forme stockée) ou clés et enfants d'un nœud interne
+     */
+    private static final class Node {
+        private final boolean leaf;
+        private int next;
+        private final List<byte[]> keys = new ArrayList<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private final List<Integer> children = new ArrayList<>();
+
+        private Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+
+        private int encodedSize() {
+            int size = HEADER_SIZE;
+            if (leaf) {
+                for (int i = 0; i < keys.size(); i++) {
+                    size += 4 + keys.get(i).length + values.get(i).length;
+                }
+            } else {
+                size += 4;
+                for (byte[] key : keys) {
+                    size += 2 + key.length + 4;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Résultat de la division d'un nœud : première clé et page du nouveau nœud de droite
+     */
+    private static final class Split {
+        private final byte[] key;
+        private final int rightPage;
+
+        private Split(byte[] key, int rightPage) {
+            this.key = key;
+            this.rightPage = rightPage;
+        }
+    }
+
+    /**
+     * Feuille décodée pour un parcours séquentiel, valeurs résolues
+     */
+    static final class Leaf {
+        final List<byte[]> keys;
+        final List<byte[]> values;
+        final int next;
+
+        private Leaf(List<byte[]> keys, List<byte[]> values, int next) {
+            this.keys = keys;
+            this.values = values;
+            this.next = next;
+        }
+    }
+
+    private final PageFile file;
+    private final BufferPool pool;
+
+    BPlusTree(PageFile file, BufferPool pool) {
+        this.file = file;
+        this.pool = pool;
+    }
+
+    long size() {
+        return file.getEntryCount();
+    }
+
+    /**
+     * Valeur associée à la clé, null si absente
+     */
+    byte[] get(byte[] key) throws IOException {
+        Node leaf = findLeaf(key);
+        if (leaf == null) {
+            return null;
+        }
+        int index = search(leaf.keys, key);
+        return index >= 0 ? readValue(leaf.values.get(index)) : null;
+    }
+
+    boolean contains(byte[] key) throws IOException {
+        Node leaf = findLeaf(key);
+        return leaf != null && search(leaf.keys, key) >= 0;
+    }
+
+    /**
+     * Insère ou remplace une valeur
+     * @return la valeur remplacée, null s'il s'agit d'une insertion
+     */
+    byte[] put(byte[] key, byte[] value) throws IOException {
+        if (key.length > MAX_KEY_SIZE) {
+            throw new IllegalArgumentException("Clé trop longue (" + key.length + " octets)");
+        }
+        byte[] stored = storeValue(value);
+
+        int root = file.getRootPage();
+        if (root == 0) {
+            Node leaf = new Node(true);
+            leaf.keys.add(key);
+            leaf.values.add(stored);
+            int page = pool.allocate();
+            write(page, leaf);
+            file.setRootPage(page);
+            file.setEntryCount(1);
+            return null;
+        }
+
+        byte[][] replaced = new byte[1][];
+        Split split = insert(root, key, stored, replaced);
+        if (split != null) {
+            // La racine a été divisée : nouvelle racine au-dessus des deux moitiés
+            Node newRoot = new Node(false);
+            newRoot.children.add(root);
+            newRoot.keys.add(split.key);
+            newRoot.children.add(split.rightPage);
+            int page = pool.allocate();
+            write(page, newRoot);
+            file.setRootPage(page);
+        }
+        if (replaced[0] == null) {
+            file.setEntryCount(file.getEntryCount() + 1);
+        }
+        return replaced[0];
+    }
+
+    /**
+     * Supprime une clé
+     * @return la valeur supprimée, null si la clé était absente
+     */
+    byte[] remove(byte[] key) throws IOException {
+        int page = file.getRootPage();
+        if (page == 0) {
+            return null;
+        }
+        Node node = read(page);
+        while (!node.leaf) {
+            page = node.children.get(childIndex(node, key));
+            node = read(page);
+        }
+
+        int index = search(node.keys, key);
+        if (index < 0) {
+            return null;
+        }
+        byte[] stored = node.values.get(index);
+        byte[] previous = readValue(stored);
+        freeValue(stored);
+        node.keys.remove(index);
+        node.values.remove(index);
+        write(page, node);
+        file.setEntryCount(file.getEntryCount() - 1);
+        return previous;
+    }
+
+    /**
+     * Feuille la plus à gauche (début du parcours), null si l'arbre est vide
+     */
+    Leaf firstLeaf() throws IOException {
+        int page = file.getRootPage();
+        if (page == 0) {
+            return null;
+        }
+        Node node = read(page);
+        while (!node.leaf) {
+            page = node.children.get(0);
+            node = read(page);
+        }
+        return resolve(node);
+    }
+
+    Leaf leaf(int page) throws IOException {
+        return resolve(read(page));
+    }
+
+    private Leaf resolve(Node node) throws IOException {
+        List<byte[]> values = new ArrayList<>(node.values.size());
+        for (byte[] stored : node.values) {
+            values.add(readValue(stored));
+        }
+        return new Leaf(node.keys, values, node.next);
+    }
+
+    private Node findLeaf(byte[] key) throws IOException {
+        int page = file.getRootPage();
+        if (page == 0) {
+            return null;
+        }
+        Node node = read(page);
+        while (!node.leaf) {
+            node = read(node.children.get(childIndex(node, key)));
+        }
+        return node;
+    }
+
+    private Split insert(int page, byte[] key, byte[] stored, byte[][] replaced) throws IOException {
+        Node node = read(page);
+
+        if (node.leaf) {
+            int index = search(node.keys, key);
+            if (index >= 0) {
+                byte[] previous = node.values.get(index);
+                replaced[0] = readValue(previous);
+                freeValue(previous);
+                node.values.set(index, stored);
+            } else {
+                node.keys.add(-index - 1, key);
+                node.values.add(-index - 1, stored);
+            }
+            return writeOrSplit(page, node);
+        }
+
+        int childIndex = childIndex(node, key);
+        Split childSplit = insert(node.children.get(childIndex), key, stored, replaced);
+        if (childSplit == null) {
+            return null;
+        }
+        node.keys.add(childIndex, childSplit.key);
+        node.children.add(childIndex + 1, childSplit.rightPage);
+        return writeOrSplit(page, node);
+    }
+
+    /**
+     * Écrit le nœud, en le divisant en deux s'il dépasse la taille d'une page
+     */
+    private Split writeOrSplit(int page, Node node) throws IOException {
+        if (node.encodedSize() <= PAGE_SIZE) {
+            write(page, node);
+            return null;
+        }
+
+        Node right = new Node(node.leaf);
+        int rightPage = pool.allocate();
+        byte[] separator;
+
+        if (node.leaf) {
+            // Division au milieu en octets : chaque moitié tient dans une page
+            int half = node.encodedSize() / 2;
+            int size = HEADER_SIZE;
+            int splitIndex = 0;
+            while (splitIndex < node.keys.size() - 1 && size < half) {
+                size += 4 + node.keys.get(splitIndex).length + node.values.get(splitIndex).length;
+                splitIndex++;
+            }
+            moveTail(node.keys, right.keys, splitIndex);
+            moveTail(node.values, right.values, splitIndex);
+            right.next = node.next;
+            node.next = rightPage;
+            separator = right.keys.get(0);
+        } else {
+            // La clé du milieu remonte dans le parent
+            int middle = node.keys.size() / 2;
+            separator = node.keys.get(middle);
+            moveTail(node.keys, right.keys, middle + 1);
+            moveTail(node.children, right.children, middle + 1);
+            node.keys.remove(middle);
+        }
+
+        write(page, node);
+        write(rightPage, right);
+        return new Split(separator, rightPage);
+    }
+
+    private static <E> void moveTail(List<E> from, List<E> to, int start) {
+        List<E> tail = from.subList(start, from.size());
+        to.addAll(tail);
+        tail.clear();
+    }
+
+    /**
+     * Indice de l'enfant à suivre : nombre de clés de séparation inférieures ou égales à la clé
+     */
+    private static int childIndex(Node node, byte[] key) {
+        int index = search(node.keys, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private static int search(List<byte[]> keys, byte[] key) {
+        int low = 0;
+        int high = keys.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Arrays.compareUnsigned(keys.get(middle), key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private Node read(int page) throws IOException {
+        ByteBuffer buffer = pool.read(page);
+        byte type = buffer.get(PageFile.TYPE_OFFSET);
+        if (type != LEAF && type != INTERNAL) {
+            throw new IOException("Page " + page + " corrompue (type " + type + ")");
+        }
+        int count = buffer.getShort(PageFile.COUNT_OFFSET) & 0xFFFF;
+        Node node = new Node(type == LEAF);
+        node.next = buffer.getInt(PageFile.NEXT_OFFSET);
+        buffer.position(HEADER_SIZE);
+
+        if (node.leaf) {
+            for (int i = 0; i < count; i++) {
+                node.keys.add(readBytes(buffer));
+                node.values.add(readBytes(buffer));
+            }
+        } else {
+            node.children.add(buffer.getInt());
+            for (int i = 0; i < count; i++) {
+                node.keys.add(readBytes(buffer));
+                node.children.add(buffer.getInt());
+            }
+        }
+        return node;
+    }
+
+    private void write(int page, Node node) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        buffer.put(node.leaf ? LEAF : INTERNAL);
+        buffer.putShort((short) node.keys.size());
+        buffer.putInt(node.next);
+
+        if (node.leaf) {
+            for (int i = 0; i < node.keys.size(); i++) {
+                writeBytes(buffer, node.keys.get(i));
+                writeBytes(buffer, node.values.get(i));
+            }
+        } else {
+            buffer.putInt(node.children.get(0));
+            for (int i = 0; i < node.keys.size(); i++) {
+                writeBytes(buffer, node.keys.get(i));
+                buffer.putInt(node.children.get(i + 1));
+            }
+        }
+        pool.write(page, buffer);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void writeBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Forme stockée d'une valeur : en ligne si elle est petite, sinon référence vers une chaîne de débordement
+     */
+    private byte[] storeValue(byte[] value) throws IOException {
+        if (value.length <= INLINE_VALUE_MAX) {
+            byte[] stored = new byte[value.length + 1];
+            stored[0] = INLINE_VALUE;
+            System.arraycopy(value, 0, stored, 1, value.length);
+            return stored;
+        }
+
+        // Écriture de la fin vers le début pour connaître la page suivante de chaque morceau
+        int next = 0;
+        int chunks = (value.length + OVERFLOW_CAPACITY - 1) / OVERFLOW_CAPACITY;
+        for (int chunk = chunks - 1; chunk >= 0; chunk--) {
+            int offset = chunk * OVERFLOW_CAPACITY;
+            int length = Math.min(OVERFLOW_CAPACITY, value.length - offset);
+            ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+            buffer.put(OVERFLOW);
+            buffer.putShort((short) length);
+            buffer.putInt(next);
+            buffer.put(value, offset, length);
+            int page = pool.allocate();
+            pool.write(page, buffer);
+            next = page;
+        }
+        return ByteBuffer.allocate(9).put(OVERFLOW_VALUE).putInt(next).putInt(value.length).array();
+    }
+
+    private byte[] readValue(byte[] stored) throws IOException {
+        if (stored[0] == INLINE_VALUE) {
+            return Arrays.copyOfRange(stored, 1, stored.length);
+        }
+        ByteBuffer reference = ByteBuffer.wrap(stored, 1, 8);
+        int page = reference.getInt();
+        byte[] value = new byte[reference.getInt()];
+        int offset = 0;
+        while (offset < value.length) {
+            ByteBuffer buffer = pool.read(page);
+            int length = buffer.getShort(PageFile.COUNT_OFFSET) & 0xFFFF;
+            buffer.position(HEADER_SIZE);
+            buffer.get(value, offset, length);
+            offset += length;
+            page = buffer.getInt(PageFile.NEXT_OFFSET);
+        }
+        return value;
+    }
+
+    private void freeValue(byte[] stored) throws IOException {
+        if (stored[0] == INLINE_VALUE) {
+            return;
+        }
+        int page = ByteBuffer.wrap(stored, 1, 4).getInt();
+        while (page != 0) {
+            int next = pool.read(page).getInt(PageFile.NEXT_OFFSET);
+            pool.free(page);
+            page = next;
+        }
+    }
+}
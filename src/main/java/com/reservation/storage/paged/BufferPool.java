@@ -0,0 +1,128 @@
+package com.reservation.storage.paged;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.reservation.storage.paged.PageFile.PAGE_SIZE;
+
+/**
+ * Cache de pages à capacité bornée (éviction LRU)
+ * Les pages modifiées ne sont écrites qu'à leur éviction ou lors de flush, et toujours dans le journal
+ * (WriteAheadLog), jamais directement dans le fichier de pages :
+ * la mémoire utilisée est de capacity pages quel que soit le volume du fichier.
+ * Synchronisé : les lectures concurrentes de PagedStore (verrou de lecture) y accèdent en même temps ;
+ * allocate et free ne sont appelés que sous son verrou d'écriture.
+ */
+final class BufferPool {
+
+    private static final class Frame {
+        private final ByteBuffer data;
+        private boolean dirty;
+
+        private Frame(ByteBuffer data) {
+            this.data = data;
+        }
+    }
+
+    private final PageFile file;
+    private final WriteAheadLog log;
+    private final int capacity;
+    private final LinkedHashMap<Integer, Frame> frames = new LinkedHashMap<>(16, 0.75f, true);
+
+    BufferPool(PageFile file, WriteAheadLog log, int capacity) {
+        this.file = file;
+        this.log = log;
+        this.capacity = Math.max(capacity, 8);
+    }
+
+    /**
+     * Copie du contenu d'une page : le tampon du cache peut être réutilisé par une autre lecture dès le retour
+     */
+    synchronized ByteBuffer read(int pageNo) throws IOException {
+        ByteBuffer copy = ByteBuffer.allocate(PAGE_SIZE);
+        copy.put(frame(pageNo, true).data.duplicate().clear());
+        return copy.clear();
+    }
+
+    /**
+     * Remplace le contenu d'une page (écrit sur disque plus tard)
+     */
+    synchronized void write(int pageNo, ByteBuffer page) throws IOException {
+        Frame frame = frame(pageNo, false);
+        ByteBuffer source = page.duplicate();
+        source.clear();
+        frame.data.clear();
+        frame.data.put(source);
+        frame.data.clear();
+        frame.dirty = true;
+    }
+
+    /**
+     * Alloue une page, en réutilisant d'abord les pages libérées
+     */
+    synchronized int allocate() throws IOException {
+        int head = file.getFreeListHead();
+        if (head == 0) {
+            return file.allocate();
+        }
+        file.setFreeListHead(read(head).getInt(PageFile.NEXT_OFFSET));
+        return head;
+    }
+
+    /**
+     * Ajoute une page à la liste des pages libres
+     */
+    synchronized void free(int pageNo) throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        page.put(PageFile.TYPE_OFFSET, PageFile.FREE_PAGE);
+        page.putInt(PageFile.NEXT_OFFSET, file.getFreeListHead());
+        write(pageNo, page);
+        file.setFreeListHead(pageNo);
+    }
+
+    /**
+     * Journalise les pages modifiées et valide l'état courant (durable au retour)
+     */
+    synchronized void flush() throws IOException {
+        for (Map.Entry<Integer, Frame> entry : frames.entrySet()) {
+            Frame frame = entry.getValue();
+            if (frame.dirty) {
+                log.append(entry.getKey(), frame.data);
+                frame.dirty = false;
+            }
+        }
+        log.commit();
+    }
+
+    private Frame frame(int pageNo, boolean load) throws IOException {
+        Frame frame = frames.get(pageNo);
+        if (frame != null) {
+            return frame;
+        }
+
+        ByteBuffer buffer;
+        if (frames.size() >= capacity) {
+            // Éviction de la page la moins récemment utilisée, dont le tampon est réutilisé
+            Iterator<Map.Entry<Integer, Frame>> eldest = frames.entrySet().iterator();
+            Map.Entry<Integer, Frame> evicted = eldest.next();
+            if (evicted.getValue().dirty) {
+                // Pas encore validée : la page ne doit pas écraser sa version du fichier de pages
+                log.append(evicted.getKey(), evicted.getValue().data);
+            }
+            eldest.remove();
+            buffer = evicted.getValue().data;
+        } else {
+            buffer = ByteBuffer.allocate(PAGE_SIZE);
+        }
+
+        if (load && !log.read(pageNo, buffer)) {
+            file.read(pageNo, buffer);
+        }
+        frame = new Frame(buffer);
+        frames.put(pageNo, frame);
+        return frame;
+    }
+}
@@ -0,0 +1,215 @@
+package com.reservation.storage.paged;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Fichier découpé en pages de taille fixe
+ * La page 0 est l'en-tête : page racine de l'arbre, nombre de pages, tête de la liste
+ * des pages libres, nombre d'entrées et génération (nombre de points de contrôle du journal).
+ * Il est écrit alternativement dans deux emplacements protégés par un CRC : une écriture interrompue
+ * laisse intact l'en-tête précédent, qui reste utilisé. Chaque autre page commence par un en-tête commun
+ * (type, compteur, page suivante).
+ */
+final class PageFile implements Closeable {
+    static final int PAGE_SIZE = 4096;
+    static final int TYPE_OFFSET = 0;
+    static final int COUNT_OFFSET = 1;
+    static final int NEXT_OFFSET = 3;
+    static final int HEADER_SIZE = 7;
+    static final byte FREE_PAGE = 4;
+
+    private static final int MAGIC = 0x52535047; // "RSPG"
+    private static final int VERSION = 2;
+    // Version 1 : un seul en-tête, sans génération ni CRC (relu pour compatibilité)
+    private static final int SINGLE_HEADER_VERSION = 1;
+    private static final int HEADER_SLOT_SIZE = 44;
+    private static final int HEADER_CRC_OFFSET = 40;
+
+    private final Path path;
+    private final FileChannel channel;
+    private int rootPage;
+    private int pageCount;
+    private int freeListHead;
+    private long entryCount;
+    private long generation;
+
+    PageFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            pageCount = 1;
+            writeHeader();
+        } else {
+            readHeader();
+        }
+    }
+
+    /**
+     * Lit l'en-tête valide de plus grande génération
+     */
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+        read(0, header);
+        int found = -1;
+        for (int slot = 0; slot < 2; slot++) {
+            int offset = slotOffset(slot);
+            if (isValidSlot(header, offset) && (found < 0 || header.getLong(offset + 32) > header.getLong(found + 32))) {
+                found = offset;
+            }
+        }
+        if (found >= 0) {
+            header.position(found + 12);
+            readFields(header);
+            generation = header.getLong(found + 32);
+        } else if (header.getInt(0) == MAGIC && header.getInt(4) == SINGLE_HEADER_VERSION && header.getInt(8) == PAGE_SIZE) {
+            header.position(12);
+            readFields(header);
+        } else {
+            channel.close();
+            throw new IOException("Fichier de pages invalide: " + path);
+        }
+    }
+
+    private static boolean isValidSlot(ByteBuffer header, int offset) {
+        return header.getInt(offset) == MAGIC && header.getInt(offset + 4) == VERSION
+                && header.getInt(offset + 8) == PAGE_SIZE
+                && header.getInt(offset + HEADER_CRC_OFFSET) == crc(header, offset);
+    }
+
+    /**
+     * Écrit l'en-tête dans l'emplacement de sa génération, sans toucher à l'autre
+     */
+    void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SLOT_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(PAGE_SIZE);
+        writeFields(header);
+        header.putLong(generation);
+        header.putInt(HEADER_CRC_OFFSET, crc(header, 0));
+        header.clear();
+        long position = slotOffset((int) (generation & 1));
+        while (header.hasRemaining()) {
+            channel.write(header, position + header.position());
+        }
+    }
+
+    /**
+     * Passe à la génération suivante une fois les pages du journal recopiées : force les pages,
+     * puis écrit et force le nouvel en-tête ; les trames de l'ancienne génération ne seront plus rejouées
+     */
+    void checkpoint() throws IOException {
+        force();
+        generation++;
+        writeHeader();
+        force();
+    }
+
+    /**
+     * Champs de l'en-tête modifiés par l'arbre (racine, pages, pages libres, entrées)
+     */
+    void writeFields(ByteBuffer buffer) {
+        buffer.putInt(rootPage);
+        buffer.putInt(pageCount);
+        buffer.putInt(freeListHead);
+        buffer.putLong(entryCount);
+    }
+
+    void readFields(ByteBuffer buffer) {
+        rootPage = buffer.getInt();
+        pageCount = buffer.getInt();
+        freeListHead = buffer.getInt();
+        entryCount = buffer.getLong();
+    }
+
+    private static int slotOffset(int slot) {
+        return slot * (PAGE_SIZE / 2);
+    }
+
+    private static int crc(ByteBuffer header, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(header.duplicate().position(offset).limit(offset + HEADER_CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Lit une page dans dst (une page jamais écrite est lue comme des zéros)
+     */
+    void read(int pageNo, ByteBuffer dst) throws IOException {
+        long position = (long) pageNo * PAGE_SIZE;
+        dst.clear();
+        while (dst.hasRemaining()) {
+            if (channel.read(dst, position + dst.position()) < 0) {
+                break;
+            }
+        }
+        while (dst.hasRemaining()) {
+            dst.put((byte) 0);
+        }
+        dst.clear();
+    }
+
+    void write(int pageNo, ByteBuffer src) throws IOException {
+        long position = (long) pageNo * PAGE_SIZE;
+        ByteBuffer page = src.duplicate();
+        page.clear();
+        while (page.hasRemaining()) {
+            channel.write(page, position + page.position());
+        }
+    }
+
+    /**
+     * Réserve une nouvelle page en fin de fichier
+     */
+    int allocate() {
+        return pageCount++;
+    }
+
+    void force() throws IOException {
+        channel.force(true);
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    int getPageCount() {
+        return pageCount;
+    }
+
+    int getRootPage() {
+        return rootPage;
+    }
+
+    void setRootPage(int rootPage) {
+        this.rootPage = rootPage;
+    }
+
+    int getFreeListHead() {
+        return freeListHead;
+    }
+
+    void setFreeListHead(int freeListHead) {
+        this.freeListHead = freeListHead;
+    }
+
+    long getEntryCount() {
+        return entryCount;
+    }
+
+    void setEntryCount(long entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
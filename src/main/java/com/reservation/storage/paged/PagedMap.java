@@ -0,0 +1,61 @@
+package com.reservation.storage.paged;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vue Map d'un PagedStore, pour brancher le stockage paginé derrière les repositories
+ * Chaque get / put / remove est une opération directe sur l'arbre ; values() et entrySet()
+ * parcourent les feuilles sans charger tout le stockage en mémoire.
+ */
+final class PagedMap<T> extends AbstractMap<String, T> {
+    private final PagedStore<T> store;
+    private final Set<Map.Entry<String, T>> entrySet = new AbstractSet<>() {
+        @Override
+        public Iterator<Map.Entry<String, T>> iterator() {
+            return store.iterator();
+        }
+
+        @Override
+        public int size() {
+            return PagedMap.this.size();
+        }
+    };
+
+    PagedMap(PagedStore<T> store) {
+        this.store = store;
+    }
+
+    @Override
+    public T get(Object key) {
+        return key instanceof String ? store.get((String) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && store.containsKey((String) key);
+    }
+
+    @Override
+    public T put(String key, T value) {
+        return store.put(key, value);
+    }
+
+    @Override
+    public T remove(Object key) {
+        return key instanceof String ? store.remove((String) key) : null;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(store.size(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Set<Map.Entry<String, T>> entrySet() {
+        return entrySet;
+    }
+}
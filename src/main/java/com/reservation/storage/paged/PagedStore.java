@@ -0,0 +1,270 @@
+package com.reservation.storage.paged;
+
+import com.reservation.storage.SnapshotCodec;
+import com.reservation.storage.SnapshotReader;
+import com.reservation.storage.SnapshotWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stockage paginé d'entités : un seul fichier de pages de 4 Kio, indexé par un arbre B+ sur l'identifiant
+ * Lecture et écriture d'une entité en O(log n) pages ; seules les pages du cache (BufferPool)
+ * sont en mémoire, ce qui permet des volumes supérieurs au tas.
+ * Les entités sont encodées avec le codec des instantanés binaires.
+ * Les pages modifiées passent par un journal d'écriture anticipée (WriteAheadLog) : après un arrêt brutal,
+ * le fichier est rouvert dans l'état du dernier flush ou close.
+ * Thread-safe : les lectures (get, containsKey, size, parcours) se partagent un verrou de lecture et ne
+ * se sérialisent que sur le cache de pages, le temps d'y copier chaque page ; les écritures (put, remove,
+ * flush, close) prennent le verrou en exclusivité. Le décodage des entités se fait hors verrou.
+ * @param <T> Type de l'entité
+ */
+public class PagedStore<T> implements Closeable {
+    public static final String CACHE_PAGES_PROPERTY = "reservation.paged.cache.pages";
+    public static final int DEFAULT_CACHE_PAGES = 256;
+
+    private final PageFile file;
+    private final WriteAheadLog log;
+    private final BufferPool pool;
+    private final BPlusTree tree;
+    private final SnapshotCodec<T> codec;
+    private final Map<String, T> mapView;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    /**
+     * @param cachePages nombre de pages gardées en mémoire
+     */
+    public PagedStore(Path path, SnapshotCodec<T> codec, int cachePages) throws IOException {
+        this.file = new PageFile(path);
+        try {
+            this.log = new WriteAheadLog(WriteAheadLog.pathOf(path), file);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+        this.pool = new BufferPool(file, log, cachePages);
+        this.tree = new BPlusTree(file, pool);
+        this.codec = codec;
+        this.mapView = new PagedMap<>(this);
+    }
+
+    /**
+     * Ouvre (ou crée) un stockage avec la taille de cache de la propriété reservation.paged.cache.pages
+     */
+    public static <T> PagedStore<T> open(Path path, SnapshotCodec<T> codec) throws IOException {
+        return new PagedStore<>(path, codec, Integer.getInteger(CACHE_PAGES_PROPERTY, DEFAULT_CACHE_PAGES));
+    }
+
+    public T get(String id) {
+        byte[] value;
+        lock.readLock().lock();
+        try {
+            value = tree.get(key(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return value == null ? null : decode(value);
+    }
+
+    public boolean containsKey(String id) {
+        lock.readLock().lock();
+        try {
+            return tree.contains(key(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return l'entité remplacée, null s'il s'agit d'une insertion
+     */
+    public T put(String id, T entity) {
+        byte[] value = encode(entity);
+        byte[] previous;
+        lock.writeLock().lock();
+        try {
+            previous = tree.put(key(id), value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return previous == null ? null : decode(previous);
+    }
+
+    /**
+     * @return l'entité supprimée, null si l'identifiant était absent
+     */
+    public T remove(String id) {
+        byte[] previous;
+        lock.writeLock().lock();
+        try {
+            previous = tree.remove(key(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return previous == null ? null : decode(previous);
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return tree.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Valide les modifications : elles survivent à un arrêt brutal une fois la méthode terminée
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            pool.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Valide les modifications, les recopie dans le fichier de pages et vide le journal
+     * Sans effet si le stockage est déjà fermé.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                pool.flush();
+                log.checkpoint();
+            } finally {
+                log.close();
+                file.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vue Map du stockage (lectures et écritures directes dans l'arbre)
+     */
+    public Map<String, T> asMap() {
+        return mapView;
+    }
+
+    /**
+     * Parcours des entrées par ordre d'identifiant, feuille par feuille
+     * Faiblement cohérent : les modifications concurrentes peuvent être vues ou non.
+     */
+    Iterator<Map.Entry<String, T>> iterator() {
+        return new EntryIterator();
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, T>> {
+        private BPlusTree.Leaf leaf;
+        private int index;
+        private String lastKey;
+
+        private EntryIterator() {
+            lock.readLock().lock();
+            try {
+                leaf = tree.firstLeaf();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (leaf != null && index >= leaf.keys.size()) {
+                if (leaf.next == 0) {
+                    leaf = null;
+                } else {
+                    lock.readLock().lock();
+                    try {
+                        leaf = tree.leaf(leaf.next);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                    index = 0;
+                }
+            }
+            return leaf != null;
+        }
+
+        @Override
+        public Map.Entry<String, T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastKey = new String(leaf.keys.get(index), StandardCharsets.UTF_8);
+            T entity = decode(leaf.values.get(index));
+            index++;
+            return new AbstractMap.SimpleImmutableEntry<>(lastKey, entity);
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            PagedStore.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    private static byte[] key(String id) {
+        return id.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] encode(T entity) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            codec.write(entity, new SnapshotWriter(out));
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private T decode(byte[] value) {
+        try {
+            return codec.read(new SnapshotReader(new DataInputStream(new ByteArrayInputStream(value))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
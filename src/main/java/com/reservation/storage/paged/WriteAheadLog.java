@@ -0,0 +1,190 @@
+package com.reservation.storage.paged;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static com.reservation.storage.paged.PageFile.PAGE_SIZE;
+
+/**
+ * Journal d'écriture anticipée du fichier de pages (fichier .wal à côté du fichier .db)
+ * Une page modifiée n'écrase jamais sa version du fichier de pages avant d'avoir été validée :
+ * - une page modifiée évincée du cache est ajoutée au journal, d'où elle est relue ensuite
+ * - une validation ajoute une trame portant l'en-tête (racine, pages, pages libres, entrées) et force le journal ;
+ *   elle valide toutes les trames qui la précèdent
+ * - un point de contrôle recopie les dernières versions des pages dans le fichier de pages,
+ *   change de génération puis vide le journal
+ * À l'ouverture, les trames validées sont rejouées et celles qui suivent la dernière validation ignorées :
+ * après un arrêt brutal, le fichier revient exactement à l'état de la dernière validation.
+ * Chaque trame porte la génération du fichier de pages et un CRC : une trame interrompue, ou restée
+ * d'une génération déjà recopiée, termine la relecture.
+ * Non synchronisé : utilisé sous le verrou du cache de pages (BufferPool) ou le verrou d'écriture de PagedStore.
+ */
+final class WriteAheadLog implements Closeable {
+    // Trame : génération, numéro de page (ou COMMIT), contenu de la page (ou champs de l'en-tête), CRC32
+    private static final int PAGE_NO_OFFSET = 8;
+    private static final int DATA_OFFSET = 12;
+    private static final int CRC_OFFSET = DATA_OFFSET + PAGE_SIZE;
+    private static final int FRAME_SIZE = CRC_OFFSET + 4;
+    private static final int COMMIT = -1;
+    // Taille du journal (en trames) au-delà de laquelle une validation déclenche un point de contrôle
+    private static final int CHECKPOINT_FRAMES = 1024;
+
+    private final PageFile file;
+    private final FileChannel channel;
+    private final ByteBuffer frame = ByteBuffer.allocate(FRAME_SIZE);
+    // Position de la dernière trame de chaque page depuis le dernier point de contrôle
+    private final Map<Integer, Long> pages = new HashMap<>();
+    private long size;
+
+    WriteAheadLog(Path path, PageFile file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            recover();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Chemin du journal d'un fichier de pages
+     */
+    static Path pathOf(Path pageFile) {
+        return pageFile.resolveSibling(pageFile.getFileName() + ".wal");
+    }
+
+    /**
+     * Ajoute la nouvelle version d'une page (non validée)
+     */
+    void append(int pageNo, ByteBuffer page) throws IOException {
+        ByteBuffer source = page.duplicate();
+        source.clear();
+        writeFrame(pageNo, source);
+        pages.put(pageNo, size - FRAME_SIZE);
+    }
+
+    /**
+     * Valide les trames ajoutées et l'en-tête courant, durablement au retour
+     */
+    void commit() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+        file.writeFields(header);
+        header.clear();
+        writeFrame(COMMIT, header);
+        channel.force(false);
+        if (size >= (long) CHECKPOINT_FRAMES * FRAME_SIZE) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Lit la dernière version journalisée d'une page
+     * @return false si la page n'est pas dans le journal (elle est alors à lire dans le fichier de pages)
+     */
+    boolean read(int pageNo, ByteBuffer dst) throws IOException {
+        Long position = pages.get(pageNo);
+        if (position == null) {
+            return false;
+        }
+        dst.clear();
+        while (dst.hasRemaining()) {
+            if (channel.read(dst, position + DATA_OFFSET + dst.position()) < 0) {
+                throw new IOException("Journal tronqué (page " + pageNo + ")");
+            }
+        }
+        dst.clear();
+        return true;
+    }
+
+    /**
+     * Recopie les pages journalisées dans le fichier de pages puis vide le journal
+     * À n'appeler que juste après une validation : toutes les trames du journal doivent être validées.
+     */
+    void checkpoint() throws IOException {
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        for (Map.Entry<Integer, Long> entry : pages.entrySet()) {
+            read(entry.getKey(), page);
+            file.write(entry.getKey(), page);
+        }
+        file.checkpoint();
+        channel.truncate(0);
+        channel.force(false);
+        pages.clear();
+        size = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Rejoue les trames validées d'un journal non vidé et ignore les suivantes
+     */
+    private void recover() throws IOException {
+        Map<Integer, Long> pending = new HashMap<>();
+        Map<Integer, Long> committed = null;
+        ByteBuffer committedHeader = null;
+        long position = 0;
+        while (readFrame(position)) {
+            int pageNo = frame.getInt(PAGE_NO_OFFSET);
+            if (pageNo == COMMIT) {
+                committed = new HashMap<>(pending);
+                committedHeader = ByteBuffer.allocate(PAGE_SIZE).put(frame.array(), DATA_OFFSET, PAGE_SIZE).clear();
+                size = position + FRAME_SIZE;
+            } else {
+                pending.put(pageNo, position);
+            }
+            position += FRAME_SIZE;
+        }
+
+        if (committed == null) {
+            channel.truncate(0);
+            return;
+        }
+        pages.putAll(committed);
+        file.readFields(committedHeader);
+        checkpoint();
+    }
+
+    private boolean readFrame(long position) throws IOException {
+        frame.clear();
+        while (frame.hasRemaining()) {
+            if (channel.read(frame, position + frame.position()) < 0) {
+                return false;
+            }
+        }
+        return frame.getLong(0) == file.getGeneration() && frame.getInt(CRC_OFFSET) == crc(frame);
+    }
+
+    private void writeFrame(int pageNo, ByteBuffer data) throws IOException {
+        frame.clear();
+        frame.putLong(file.getGeneration());
+        frame.putInt(pageNo);
+        frame.put(data);
+        frame.putInt(CRC_OFFSET, crc(frame));
+        frame.clear();
+        while (frame.hasRemaining()) {
+            channel.write(frame, size + frame.position());
+        }
+        size += FRAME_SIZE;
+    }
+
+    private static int crc(ByteBuffer frame) {
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), 0, CRC_OFFSET);
+        return (int) crc.getValue();
+    }
+}
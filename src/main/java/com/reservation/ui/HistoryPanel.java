@@ -10,6 +10,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Panneau d'historique des réservations
@@ -19,6 +20,7 @@ public class HistoryPanel extends JPanel {
     private JTable reservationTable;
     private DefaultTableModel tableModel;
     private JTextField clientIdField;
+    private JCheckBox includeArchivedBox;
     private JButton refreshButton;
     private JButton cancelButton;
 
@@ -42,6 +44,7 @@ public class HistoryPanel extends JPanel {
 
         clientIdField = new JTextField(20);
         clientIdField.setText("C001");
+        includeArchivedBox = new JCheckBox("Historique complet (archives)");
         refreshButton = new JButton("Actualiser");
         cancelButton = new JButton("Annuler la réservation sélectionnée");
     }
@@ -54,6 +57,7 @@ public class HistoryPanel extends JPanel {
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         controlPanel.add(new JLabel("Client ID:"));
         controlPanel.add(clientIdField);
+        controlPanel.add(includeArchivedBox);
         controlPanel.add(refreshButton);
         controlPanel.add(cancelButton);
 
@@ -111,9 +115,33 @@ public class HistoryPanel extends JPanel {
         }
     }
 
+    /**
+     * Recherche l'historique hors de l'EDT : avec les archives, la requête lit des segments compressés
+     * et peut charger des partitions anciennes
+     */
     public void refresh(String clientId) {
-        List<Reservation> reservations = reservationService.getClientHistory(clientId);
-        updateTable(reservations);
+        boolean includeArchived = includeArchivedBox.isSelected();
+        refreshButton.setEnabled(false);
+        new SwingWorker<List<Reservation>, Void>() {
+            @Override
+            protected List<Reservation> doInBackground() {
+                return reservationService.getClientHistory(clientId, includeArchived);
+            }
+
+            @Override
+            protected void done() {
+                refreshButton.setEnabled(true);
+                try {
+                    updateTable(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(HistoryPanel.this,
+                        "Erreur lors du chargement de l'historique: " + e.getCause().getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
     }
 
     private void updateTable(List<Reservation> reservations) {
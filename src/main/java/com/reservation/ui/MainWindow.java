@@ -8,18 +8,22 @@ import com.reservation.service.*;
 
 import javax.swing.*;
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Fenêtre principale de l'application de réservation
  * Interface graphique Swing
+ * La fenêtre s'affiche dès que les services sont chargés ; les onglets qui dépendent des utilisateurs,
+ * des réservations ou des paiements restent désactivés jusqu'à ce que leur repository soit prêt.
  */
 public class MainWindow extends JFrame {
-    private final ReservationFacade reservationFacade;
-    private final UserService userService;
+    private static final String RESERVATION_TAB = "Réserver";
+    private static final String HISTORY_TAB = "Mes Réservations";
+    private static final String USERS_TAB = "Utilisateurs";
+
     private final ServiceSearchService searchService;
     private final ServiceService serviceService;
-    private final ReservationService reservationService;
-    private final NotificationService notificationService;
+    private UserService userService;
     
     private JTabbedPane tabbedPane;
     private ServiceSearchPanel searchPanel;
@@ -30,21 +34,11 @@ public class MainWindow extends JFrame {
     
     private User currentUser;
 
-    public MainWindow(ReservationFacade reservationFacade,
-                     UserService userService,
-                     ServiceSearchService searchService,
-                     ServiceService serviceService,
-                     ReservationService reservationService,
-                     NotificationService notificationService) {
-        this.reservationFacade = reservationFacade;
-        this.userService = userService;
+    public MainWindow(ServiceSearchService searchService, ServiceService serviceService) {
         this.searchService = searchService;
         this.serviceService = serviceService;
-        this.reservationService = reservationService;
-        this.notificationService = notificationService;
         
         initializeGUI();
-        setupInitialUser();
     }
 
     private void initializeGUI() {
@@ -63,17 +57,10 @@ public class MainWindow extends JFrame {
         searchPanel = new ServiceSearchPanel(searchService);
         tabbedPane.addTab("Recherche de Services", searchPanel);
         
-        // Panneau de réservation
-        reservationPanel = new ReservationPanel(reservationFacade, searchService);
-        tabbedPane.addTab("Réserver", reservationPanel);
-        
-        // Panneau d'historique
-        historyPanel = new HistoryPanel(reservationService);
-        tabbedPane.addTab("Mes Réservations", historyPanel);
-        
-        // Panneau utilisateur
-        userPanel = new UserPanel(userService);
-        tabbedPane.addTab("Utilisateurs", userPanel);
+        // Panneaux de réservation, d'historique et des utilisateurs : ajoutés à la fin de leur chargement
+        addPendingTab(RESERVATION_TAB);
+        addPendingTab(HISTORY_TAB);
+        addPendingTab(USERS_TAB);
         
         // Panneau de gestion des services
         serviceManagementPanel = new ServiceManagementPanel(serviceService);
@@ -85,6 +72,49 @@ public class MainWindow extends JFrame {
         refreshAllPanels();
     }
 
+    private void addPendingTab(String title) {
+        tabbedPane.addTab(title, new JLabel("Chargement...", SwingConstants.CENTER));
+        tabbedPane.setEnabledAt(tabbedPane.indexOfTab(title), false);
+    }
+
+    /**
+     * Remplace un onglet en attente par son panneau et l'active
+     */
+    private void attachTab(String title, JComponent panel) {
+        int index = tabbedPane.indexOfTab(title);
+        tabbedPane.setComponentAt(index, panel);
+        tabbedPane.setEnabledAt(index, true);
+    }
+
+    /**
+     * Active l'onglet des utilisateurs et sélectionne l'utilisateur courant (à appeler sur l'EDT)
+     */
+    public void attachUsers(UserService userService) {
+        this.userService = userService;
+        setupInitialUser();
+        userPanel = new UserPanel(userService);
+        attachTab(USERS_TAB, userPanel);
+        refreshHistory();
+    }
+
+    /**
+     * Active l'onglet de l'historique des réservations (à appeler sur l'EDT)
+     */
+    public void attachHistory(ReservationService reservationService) {
+        historyPanel = new HistoryPanel(reservationService);
+        attachTab(HISTORY_TAB, historyPanel);
+        refreshHistory();
+    }
+
+    /**
+     * Active l'onglet de réservation, qui a besoin des réservations et des paiements (à appeler sur l'EDT)
+     */
+    public void attachReservation(ReservationFacade reservationFacade) {
+        reservationPanel = new ReservationPanel(reservationFacade, searchService);
+        attachTab(RESERVATION_TAB, reservationPanel);
+        reservationPanel.refresh();
+    }
+
     private void createMenuBar() {
         JMenuBar menuBar = new JMenuBar();
         
@@ -128,14 +158,21 @@ public class MainWindow extends JFrame {
         if (reservationPanel != null) {
             reservationPanel.refresh();
         }
-        if (historyPanel != null && currentUser != null) {
-            historyPanel.refresh(currentUser.getId());
-        }
+        refreshHistory();
         if (serviceManagementPanel != null) {
             serviceManagementPanel.refresh();
         }
     }
 
+    /**
+     * L'historique n'est affiché qu'une fois les réservations et l'utilisateur courant chargés
+     */
+    private void refreshHistory() {
+        if (historyPanel != null && currentUser != null) {
+            historyPanel.refresh(currentUser.getId());
+        }
+    }
+
     private void showAboutDialog() {
         String message = "Application de Réservation de Services\n\n" +
                         "Développée avec:\n" +
@@ -148,20 +185,15 @@ public class MainWindow extends JFrame {
     }
 
     public static void main(String[] args) {
-        // Initialisation des repositories
-        UserRepository userRepository = new UserRepository();
-        ServiceRepository serviceRepository = new ServiceRepository();
-        ReservationRepository reservationRepository = new ReservationRepository();
-        PaymentRepository paymentRepository = new PaymentRepository();
+        // Initialisation des repositories (chargement parallèle, paiements et réservations différés)
+        RepositoryBootstrap bootstrap = RepositoryBootstrap.start();
+        bootstrap.registerShutdownHook();
+        // Seuls les services sont attendus : la fenêtre s'affiche sans attendre les autres repositories
+        ServiceRepository serviceRepository = bootstrap.services().join();
 
         // Initialisation des services
-        UserService userService = new UserService(userRepository);
         NotificationService notificationService = new NotificationService();
         ServiceService serviceService = new ServiceService(serviceRepository);
-        ReservationService reservationService = new ReservationService(
-            reservationRepository, serviceRepository, notificationService
-        );
-        PaymentService paymentService = new PaymentService(paymentRepository);
         ServiceSearchService searchService = new ServiceSearchService(serviceRepository);
 
         // Configuration des observateurs
@@ -169,13 +201,8 @@ public class MainWindow extends JFrame {
         notificationService.attach(new com.reservation.observer.SMSNotificationObserver());
         notificationService.attach(new com.reservation.observer.InAppNotificationObserver());
 
-        // Initialisation de la Facade
-        ReservationFacade reservationFacade = new ReservationFacade(
-            reservationService, paymentService, notificationService
-        );
-
-        // Créer quelques données de démo
-        createDemoData(userService, serviceRepository);
+        // Créer quelques services de démo
+        createDemoServices(serviceRepository);
 
         // Créer et afficher la fenêtre
         SwingUtilities.invokeLater(() -> {
@@ -185,15 +212,50 @@ public class MainWindow extends JFrame {
                 e.printStackTrace();
             }
             
-            MainWindow window = new MainWindow(
-                reservationFacade, userService, searchService, serviceService,
-                reservationService, notificationService
-            );
+            MainWindow window = new MainWindow(searchService, serviceService);
             window.setVisible(true);
+
+            // Paiements et réservations lus une fois la fenêtre affichée
+            attachWhenLoaded(window, bootstrap, serviceRepository, notificationService);
         });
     }
 
-    private static void createDemoData(UserService userService, ServiceRepository serviceRepository) {
+    /**
+     * Active les onglets restants au fur et à mesure du chargement de leurs repositories
+     * Les onglets des réservations attendent la lecture des données et non la seule construction
+     * du repository : leurs requêtes ne chargent ainsi rien sur l'EDT.
+     */
+    private static void attachWhenLoaded(MainWindow window, RepositoryBootstrap bootstrap,
+                                         ServiceRepository serviceRepository,
+                                         NotificationService notificationService) {
+        bootstrap.users()
+            .thenApply(UserService::new)
+            .thenAccept(userService -> {
+                createDemoUsers(userService);
+                SwingUtilities.invokeLater(() -> window.attachUsers(userService));
+            })
+            .exceptionally(e -> loadFailed("utilisateurs", e));
+
+        CompletableFuture<ReservationService> reservationService = bootstrap.reservationsLoaded()
+            .thenApply(repository -> new ReservationService(repository, serviceRepository, notificationService));
+        reservationService
+            .thenAccept(service -> SwingUtilities.invokeLater(() -> window.attachHistory(service)))
+            .exceptionally(e -> loadFailed("réservations", e));
+
+        // Initialisation de la Facade, qui a besoin des réservations et des paiements
+        reservationService
+            .thenCombine(bootstrap.paymentsLoaded(), (service, paymentRepository) ->
+                new ReservationFacade(service, new PaymentService(paymentRepository), notificationService))
+            .thenAccept(facade -> SwingUtilities.invokeLater(() -> window.attachReservation(facade)))
+            .exceptionally(e -> loadFailed("paiements", e));
+    }
+
+    private static Void loadFailed(String repository, Throwable e) {
+        System.err.println("Erreur lors du chargement des " + repository + ": " + e.getMessage());
+        return null;
+    }
+
+    private static void createDemoUsers(UserService userService) {
         // Créer des utilisateurs de démo
         try {
             userService.createUser(UserType.CLIENT, "C001", "Jean Dupont", 
@@ -205,7 +267,9 @@ public class MainWindow extends JFrame {
         } catch (Exception e) {
             // Utilisateurs déjà créés
         }
+    }
 
+    private static void createDemoServices(ServiceRepository serviceRepository) {
         // Créer des services de démo
         Service service1 = new Service("S001", "Coupe de cheveux", 
             "Coupe moderne et tendance", "Coiffure", 
@@ -26,6 +26,8 @@ public class ReservationPanel extends JPanel {
     private JComboBox<PaymentMethod> paymentMethodCombo;
     private JTextField paymentDetailsField;
     private JTextArea resultArea;
+    // Version des services affichés dans serviceCombo (-1 : pas encore remplie)
+    private long servicesVersion = -1;
 
     public ReservationPanel(ReservationFacade reservationFacade, 
                            ServiceSearchService searchService) {
@@ -178,7 +180,12 @@ public class ReservationPanel extends JPanel {
     }
 
     public void refresh() {
-        // Mettre à jour la liste des services
+        // Mettre à jour la liste des services, seulement si elle a changé depuis le dernier affichage
+        long version = searchService.getVersion();
+        if (version == servicesVersion) {
+            return;
+        }
+        servicesVersion = version;
         String selectedService = (String) serviceCombo.getSelectedItem();
         serviceCombo.removeAllItems();
         searchService.searchAll().forEach(service -> {
@@ -201,9 +208,7 @@ public class ReservationPanel extends JPanel {
         serviceCombo.addActionListener(e -> {
             String serviceId = (String) serviceCombo.getSelectedItem();
             if (serviceId != null) {
-                searchService.searchAll().stream()
-                    .filter(s -> s.getId().equals(serviceId))
-                    .findFirst()
+                searchService.searchById(serviceId)
                     .ifPresent(service -> {
                         prestataireField.setText(service.getPrestataireId());
                     });
@@ -135,10 +135,7 @@ public class ServiceSearchPanel extends JPanel {
         int selectedRow = serviceTable.getSelectedRow();
         if (selectedRow >= 0) {
             String serviceId = (String) tableModel.getValueAt(selectedRow, 0);
-            return searchService.searchAll().stream()
-                .filter(s -> s.getId().equals(serviceId))
-                .findFirst()
-                .orElse(null);
+            return searchService.searchById(serviceId).orElse(null);
         }
         return null;
     }
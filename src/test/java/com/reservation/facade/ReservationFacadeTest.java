@@ -0,0 +1,124 @@
+package com.reservation.facade;
+
+import com.reservation.model.Payment;
+import com.reservation.model.PaymentMethod;
+import com.reservation.model.PaymentStatus;
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationStatus;
+import com.reservation.model.Service;
+import com.reservation.payment.PaymentStrategy;
+import com.reservation.repository.PaymentRepository;
+import com.reservation.repository.ReservationRepository;
+import com.reservation.repository.ServiceRepository;
+import com.reservation.service.NotificationService;
+import com.reservation.service.PaymentService;
+import com.reservation.service.ReservationService;
+import com.reservation.storage.InMemoryStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReservationFacadeTest {
+    /**
+     * Stratégie au résultat fixé, sans effet de bord
+     */
+    private static final class FixedStrategy implements PaymentStrategy {
+        private final boolean succeeds;
+
+        FixedStrategy(boolean succeeds) {
+            this.succeeds = succeeds;
+        }
+
+        @Override
+        public boolean processPayment(BigDecimal amount, String paymentDetails) {
+            return succeeds;
+        }
+
+        @Override
+        public String getMethodName() {
+            return succeeds ? "Succès" : "Échec";
+        }
+    }
+
+    private PaymentRepository paymentRepository;
+    private ReservationRepository reservationRepository;
+    private PaymentService paymentService;
+    private ReservationFacade facade;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryStorageBackend backend = new InMemoryStorageBackend();
+        ServiceRepository serviceRepository = new ServiceRepository(backend, 0);
+        serviceRepository.save(new Service("S1", "Coupe", "Description", "Coiffure", new BigDecimal("30.00"), 45, "P1"));
+        reservationRepository = new ReservationRepository(backend, 0, 12);
+        paymentRepository = new PaymentRepository(backend, 0);
+        NotificationService notificationService = new NotificationService();
+        paymentService = new PaymentService(paymentRepository);
+        facade = new ReservationFacade(
+            new ReservationService(reservationRepository, serviceRepository, notificationService),
+            paymentService, notificationService);
+    }
+
+    @Test
+    void cancellationRefundsEveryCompletedPayment() {
+        Reservation reservation = facade.completeReservation("C1", "S1", "P1", LocalDateTime.now().plusDays(3),
+            PaymentMethod.CREDIT_CARD, "4111");
+        // Tentative échouée puis second paiement encaissé pour la même réservation
+        paymentService.processPayment(new FixedStrategy(false), reservation.getId(),
+            reservation.getTotalAmount(), PaymentMethod.PAYPAL, "compte");
+        paymentService.processPayment(new FixedStrategy(true), reservation.getId(),
+            reservation.getTotalAmount(), PaymentMethod.WALLET, "portefeuille");
+
+        facade.cancelReservationWithRefund(reservation.getId());
+
+        assertEquals(ReservationStatus.CANCELLED,
+            reservationRepository.findById(reservation.getId()).orElseThrow().getStatus());
+        assertEquals(3, paymentRepository.findAllByReservationId(reservation.getId()).size());
+        for (Payment payment : paymentRepository.findAllByReservationId(reservation.getId())) {
+            PaymentStatus expected = payment.getMethod() == PaymentMethod.PAYPAL
+                ? PaymentStatus.FAILED : PaymentStatus.REFUNDED;
+            assertEquals(expected, payment.getStatus(), payment.getMethod().name());
+        }
+    }
+
+    @Test
+    void strategyGivenPerCallLeavesTheServiceStrategyUnchanged() {
+        paymentService.setPaymentStrategy(new FixedStrategy(true));
+
+        Payment failed = paymentService.processPayment(new FixedStrategy(false), "R1",
+            new BigDecimal("10.00"), PaymentMethod.PAYPAL, "compte");
+        Payment completed = paymentService.processPayment("R1", new BigDecimal("10.00"), PaymentMethod.CREDIT_CARD, "4111");
+
+        assertEquals(PaymentStatus.FAILED, failed.getStatus());
+        assertEquals(PaymentStatus.COMPLETED, completed.getStatus());
+    }
+
+    @Test
+    void concurrentReservationsArePaidWithTheirOwnMethod() {
+        PaymentMethod[] methods = PaymentMethod.values();
+        List<CompletableFuture<Void>> clients = new ArrayList<>();
+        for (int c = 0; c < 8; c++) {
+            PaymentMethod method = methods[c % methods.length];
+            String clientId = "C" + c;
+            clients.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 20; i++) {
+                    Reservation reservation = facade.completeReservation(clientId, "S1", "P1",
+                        LocalDateTime.now().plusDays(1 + i), method, "détails");
+                    Payment payment = paymentRepository.findByReservationId(reservation.getId()).orElseThrow();
+                    assertEquals(method, payment.getMethod());
+                    assertEquals(PaymentStatus.COMPLETED, payment.getStatus());
+                }
+            }));
+        }
+        clients.forEach(CompletableFuture::join);
+
+        assertEquals(160, paymentRepository.findAll().size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.reservation.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyLoaderTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Test
+    void concurrentCallersWaitForTheLoadInProgress() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        LazyLoader loader = new LazyLoader(() -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        CompletableFuture<Void> background = loader.loadInBackground();
+        assertTrue(loading.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<Void> firstAccess = CompletableFuture.runAsync(loader::ensureLoaded);
+
+        // Le premier accès attend le chargement en cours au lieu de rendre la main ou de le relancer
+        Thread.sleep(100);
+        assertFalse(firstAccess.isDone());
+        assertFalse(loader.isLoaded());
+
+        release.countDown();
+        firstAccess.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        background.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(loader.isLoaded());
+        assertEquals(1, loads.get());
+
+        loader.ensureLoaded();
+        assertTrue(loader.loadInBackground().isDone());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void failedLoadIsRetriedOnNextAccess() {
+        AtomicInteger attempts = new AtomicInteger();
+        LazyLoader loader = new LazyLoader(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("fichier verrouillé");
+            }
+        });
+
+        assertThrows(IllegalStateException.class, loader::ensureLoaded);
+        assertFalse(loader.isLoaded());
+
+        loader.ensureLoaded();
+        assertTrue(loader.isLoaded());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void alreadyLoadedNeverBlocks() {
+        LazyLoader loader = LazyLoader.alreadyLoaded();
+
+        assertTrue(loader.isLoaded());
+        assertTrue(loader.loadInBackground().isDone());
+    }
+}
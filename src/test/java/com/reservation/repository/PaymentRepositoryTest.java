@@ -0,0 +1,69 @@
+package com.reservation.repository;
+
+import com.reservation.model.Payment;
+import com.reservation.model.PaymentMethod;
+import com.reservation.model.PaymentStatus;
+import com.reservation.storage.InMemoryStorageBackend;
+import com.reservation.storage.PaymentCsvStorage;
+import com.reservation.storage.paged.PagedStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentRepositoryTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void pagedIndexIsBuiltOnFirstSearchAndFollowsLaterWrites() throws IOException {
+        Path path = dir.resolve("payments.db");
+        try (PagedStore<Payment> store = PagedStore.open(path, PaymentCsvStorage.SNAPSHOT_CODEC)) {
+            store.put("PAY1", payment("PAY1", "R1", PaymentStatus.FAILED));
+            store.put("PAY2", payment("PAY2", "R1", PaymentStatus.COMPLETED));
+        }
+
+        try (PagedStore<Payment> store = PagedStore.open(path, PaymentCsvStorage.SNAPSHOT_CODEC)) {
+            PaymentRepository repository = new PaymentRepository(store);
+            // Écritures antérieures à la construction de l'index
+            repository.save(payment("PAY3", "R2", PaymentStatus.PENDING));
+            repository.save(payment("PAY1", "R2", PaymentStatus.FAILED));
+
+            assertEquals(List.of("PAY2"), ids(repository.findAllByReservationId("R1")));
+            assertEquals(List.of("PAY1", "PAY3"), ids(repository.findAllByReservationId("R2")).stream().sorted().toList());
+        }
+    }
+
+    @Test
+    void attemptsAreListedPerReservationAndTheCompletedOneIsPreferred() {
+        PaymentRepository repository = new PaymentRepository(new InMemoryStorageBackend(), 0);
+        repository.save(payment("PAY1", "R1", PaymentStatus.FAILED));
+        repository.save(payment("PAY2", "R1", PaymentStatus.COMPLETED));
+        repository.save(payment("PAY3", "R1", PaymentStatus.FAILED));
+        repository.save(payment("PAY4", "R2", PaymentStatus.PENDING));
+
+        assertEquals(List.of("PAY1", "PAY2", "PAY3"), ids(repository.findAllByReservationId("R1")));
+        assertEquals("PAY2", repository.findByReservationId("R1").orElseThrow().getId());
+        assertEquals("PAY4", repository.findByReservationId("R2").orElseThrow().getId());
+        assertTrue(repository.findAllByReservationId(null).isEmpty());
+
+        repository.deleteById("PAY2");
+        assertEquals("PAY3", repository.findByReservationId("R1").orElseThrow().getId());
+    }
+
+    private static List<String> ids(List<Payment> payments) {
+        return payments.stream().map(Payment::getId).toList();
+    }
+
+    private static Payment payment(String id, String reservationId, PaymentStatus status) {
+        Payment payment = new Payment(id, reservationId, new BigDecimal("25.00"), PaymentMethod.CREDIT_CARD);
+        payment.setStatus(status);
+        return payment;
+    }
+}
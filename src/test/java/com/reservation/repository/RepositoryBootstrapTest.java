@@ -0,0 +1,19 @@
+package com.reservation.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryBootstrapTest {
+
+    @Test
+    void deferredRepositoriesAreCompletedOnlyOnceRead() {
+        RepositoryBootstrap bootstrap = new RepositoryBootstrap(RepositoryBootstrap.MEMORY_STORAGE);
+
+        assertTrue(bootstrap.reservationsLoaded().join().isLoaded());
+        assertTrue(bootstrap.paymentsLoaded().join().isLoaded());
+        // Un seul chargement, quel que soit le nombre d'onglets qui l'attendent
+        assertSame(bootstrap.reservationsLoaded(), bootstrap.reservationsLoaded());
+    }
+}
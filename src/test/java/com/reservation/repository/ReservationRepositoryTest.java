@@ -0,0 +1,104 @@
+package com.reservation.repository;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationStatus;
+import com.reservation.storage.InMemoryStorageBackend;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReservationRepositoryTest {
+    private static final LocalDateTime NOW = LocalDateTime.now().withNano(0);
+
+    @Test
+    void recentlyCancelledReservationsStayInTheClientHistory() {
+        ReservationRepository repository = new ReservationRepository(new InMemoryStorageBackend(), 0, 12);
+        repository.save(reservation("RECENT", NOW.minusDays(5), ReservationStatus.CANCELLED));
+        repository.save(reservation("CANCELLED", NOW.minusDays(60), ReservationStatus.CANCELLED));
+        repository.save(reservation("OLD", NOW.minusYears(2), ReservationStatus.CONFIRMED));
+        repository.save(reservation("ACTIVE", NOW.minusDays(60), ReservationStatus.CONFIRMED));
+
+        assertEquals(2, repository.archiveExpired());
+
+        assertEquals(Set.of("RECENT", "ACTIVE"), ids(repository));
+        assertTrue(repository.findArchivedById("CANCELLED").isPresent());
+        assertTrue(repository.findArchivedById("OLD").isPresent());
+    }
+
+    @Test
+    void fullyArchivedMonthsAreNotReadAgain() {
+        InMemoryStorageBackend backend = new InMemoryStorageBackend();
+        ReservationRepository repository = new ReservationRepository(backend, 0, 12);
+        repository.save(reservation("OLD", NOW.minusYears(2), ReservationStatus.CONFIRMED));
+        assertEquals(1, repository.archiveExpired());
+
+        // Ajoutée directement dans un mois déjà archivé : le prochain archivage ne relit pas ce mois
+        Reservation late = reservation("LATE", NOW.minusYears(2), ReservationStatus.CONFIRMED);
+        backend.reservationStore().appendChanges(YearMonth.from(late.getDateTime()), Map.of(late.getId(), late));
+        repository.save(reservation("CANCELLED", NOW.minusDays(60), ReservationStatus.CANCELLED));
+        ReservationRepository reopened = new ReservationRepository(backend, 0, 12);
+
+        assertEquals(1, reopened.archiveExpired());
+        assertEquals(Set.of("LATE"), ids(reopened));
+    }
+
+    @Test
+    void reservationsOutsideTheHotWindowAreFoundAfterARestart() {
+        InMemoryStorageBackend backend = new InMemoryStorageBackend();
+        ReservationRepository repository = new ReservationRepository(backend, 0, 12);
+        repository.save(reservation("OLD", NOW.minusMonths(14), ReservationStatus.CONFIRMED));
+        repository.save(reservation("RECENT", NOW.minusDays(5), ReservationStatus.PENDING));
+
+        ReservationRepository restarted = new ReservationRepository(backend, 0, 12);
+
+        assertEquals(Set.of("OLD", "RECENT"), restarted.findByClientId("C1").stream()
+            .map(Reservation::getId).collect(Collectors.toSet()));
+        assertEquals(2, restarted.findByPrestataireId("P1").size());
+        assertEquals("OLD", restarted.findByStatus(ReservationStatus.CONFIRMED).get(0).getId());
+    }
+
+    @Test
+    void indexesFollowStatusChangesAndDeletions() {
+        ReservationRepository repository = new ReservationRepository(new InMemoryStorageBackend(), 0, 12);
+        repository.save(reservation("R1", NOW.minusDays(1), ReservationStatus.PENDING));
+        repository.save(reservation("R2", NOW.minusDays(2), ReservationStatus.PENDING));
+
+        repository.save(reservation("R1", NOW.minusDays(1), ReservationStatus.CONFIRMED));
+        assertEquals(Set.of("R2"), ids(repository.findByStatus(ReservationStatus.PENDING)));
+        assertEquals(Set.of("R1"), ids(repository.findByStatus(ReservationStatus.CONFIRMED)));
+
+        // Modifiée sans être enregistrée : elle ne sort plus sous son ancien statut
+        repository.findById("R2").orElseThrow().setStatus(ReservationStatus.CANCELLED);
+        assertTrue(repository.findByStatus(ReservationStatus.PENDING).isEmpty());
+
+        repository.deleteById("R1");
+        assertTrue(repository.findByStatus(ReservationStatus.CONFIRMED).isEmpty());
+        assertEquals(Set.of("R2"), ids(repository.findByClientId("C1")));
+        assertEquals(Set.of("R2"), ids(repository.findByPrestataireId("P1")));
+        assertTrue(repository.findByClientId(null).isEmpty());
+        assertTrue(repository.findByStatus(null).isEmpty());
+    }
+
+    private static Set<String> ids(List<Reservation> reservations) {
+        return reservations.stream().map(Reservation::getId).collect(Collectors.toSet());
+    }
+
+    private static Set<String> ids(ReservationRepository repository) {
+        return repository.findAll().stream().map(Reservation::getId).collect(Collectors.toSet());
+    }
+
+    private static Reservation reservation(String id, LocalDateTime dateTime, ReservationStatus status) {
+        Reservation reservation = new Reservation(id, "C1", "S1", "P1", dateTime, new BigDecimal("20.00"));
+        reservation.setStatus(status);
+        return reservation;
+    }
+}
@@ -0,0 +1,77 @@
+package com.reservation.repository;
+
+import com.reservation.model.Service;
+import com.reservation.storage.InMemoryStorageBackend;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceRepositoryTest {
+
+    @Test
+    void movedServiceLeavesItsPreviousCategoryAndProvider() {
+        ServiceRepository repository = new ServiceRepository(new InMemoryStorageBackend(), 0);
+        repository.save(service("S1", "Coiffure", "P1"));
+        repository.save(service("S2", "Coiffure", "P1"));
+
+        repository.save(service("S1", "Ménage", "P2"));
+
+        assertEquals(List.of("S2"), ids(repository.findByCategory("Coiffure")));
+        assertEquals(List.of("S1"), ids(repository.findByCategory("Ménage")));
+        assertEquals(List.of("S2"), ids(repository.findByPrestataireId("P1")));
+        assertEquals(Map.of("Coiffure", 1, "Ménage", 1), repository.countByCategory());
+    }
+
+    @Test
+    void concurrentSearchNeverReturnsAServiceOutsideItsCategory() throws InterruptedException {
+        ServiceRepository repository = new ServiceRepository(new InMemoryStorageBackend(), 60_000);
+        repository.save(service("S1", "Coiffure", "P1"));
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread mover = new Thread(() -> {
+            for (int i = 0; running.get(); i++) {
+                repository.save(service("S1", i % 2 == 0 ? "Ménage" : "Coiffure", "P1"));
+            }
+        });
+        mover.start();
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                for (Service found : repository.findByCategory("Coiffure")) {
+                    assertEquals("Coiffure", found.getCategory());
+                }
+            }
+        } finally {
+            running.set(false);
+            mover.join();
+        }
+        assertEquals(1, repository.findByCategory("Ménage").size() + repository.findByCategory("Coiffure").size());
+    }
+
+    @Test
+    void emptiedCategoryDisappearsFromTheCategoryList() {
+        ServiceRepository repository = new ServiceRepository(new InMemoryStorageBackend(), 0);
+        repository.save(service("S1", "Coiffure", "P1"));
+        repository.save(service("S2", "Beauté", "P1"));
+
+        repository.deleteById("S1");
+
+        assertEquals(List.of("Beauté"), repository.findCategories());
+        assertEquals(0, repository.countByCategory("Coiffure"));
+        assertTrue(repository.findByCategory("Coiffure").isEmpty());
+        assertTrue(repository.findByCategory(null).isEmpty());
+        assertTrue(repository.findByPrestataireId(null).isEmpty());
+    }
+
+    private static List<String> ids(List<Service> services) {
+        return services.stream().map(Service::getId).sorted().toList();
+    }
+
+    private static Service service(String id, String category, String prestataireId) {
+        return new Service(id, "Service " + id, "Description", category, new BigDecimal("30.00"), 45, prestataireId);
+    }
+}
@@ -0,0 +1,53 @@
+package com.reservation.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class StripedLocksTest {
+
+    @Test
+    void sameIdAlwaysMapsToTheSameLock() {
+        StripedLocks locks = new StripedLocks();
+
+        assertSame(locks.lockFor("R-42"), locks.lockFor(new String("R-42")));
+        // Un seul verrou : tous les identifiants le partagent
+        StripedLocks single = new StripedLocks(1);
+        assertSame(single.lockFor("A"), single.lockFor("B"));
+    }
+
+    @Test
+    void updatesOfTheSameIdAreMutuallyExclusive() {
+        StripedLocks locks = new StripedLocks(4);
+        // Compteurs non synchronisés : seul le verrou de l'identifiant les protège
+        Map<String, int[]> counters = new HashMap<>();
+        List<String> ids = List.of("A", "B", "C", "D", "E", "F", "G", "H");
+        ids.forEach(id -> counters.put(id, new int[1]));
+        int threads = 8;
+        int increments = 10_000;
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < increments; i++) {
+                    String id = ids.get(i % ids.size());
+                    synchronized (locks.lockFor(id)) {
+                        counters.get(id)[0]++;
+                    }
+                }
+            }));
+        }
+        workers.forEach(CompletableFuture::join);
+
+        for (String id : ids) {
+            assertEquals(threads * increments / ids.size(), counters.get(id)[0]);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.reservation.repository;
+
+import com.reservation.model.Client;
+import com.reservation.model.User;
+import com.reservation.storage.CsvStorageBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserRepositoryTest {
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void findsUsersByNormalizedEmail() {
+        UserRepository repository = new UserRepository(new CsvStorageBackend(dataDir), 0);
+        repository.save(new Client("U1", "Marie", "Marie@Example.com", "0600000000"));
+
+        assertEquals("U1", repository.findByEmail("  marie@example.COM ").map(User::getId).orElseThrow());
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.save(new Client("U2", "Autre", "marie@example.com", "0700000000")));
+    }
+
+    @Test
+    void changingEmailReleasesThePreviousOne() {
+        UserRepository repository = new UserRepository(new CsvStorageBackend(dataDir), 0);
+        repository.save(new Client("U1", "Marie", "old@example.com", "0600000000"));
+        repository.save(new Client("U1", "Marie", "new@example.com", "0600000000"));
+
+        assertTrue(repository.findByEmail("old@example.com").isEmpty());
+        repository.save(new Client("U2", "Paul", "old@example.com", "0700000000"));
+        assertEquals("U2", repository.findByEmail("old@example.com").map(User::getId).orElseThrow());
+    }
+
+    @Test
+    void duplicatedEmailInStoredDataPassesToTheRemainingUser() throws IOException {
+        writeUsers("U1,Marie,dup@example.com,0600000000,CLIENT",
+                   "U2,Marie bis,DUP@example.com,0600000001,CLIENT",
+                   "U3,Paul,paul@example.com,0600000002,CLIENT");
+        UserRepository repository = new UserRepository(new CsvStorageBackend(dataDir), 0);
+        assertEquals("U1", repository.findByEmail("dup@example.com").map(User::getId).orElseThrow());
+
+        repository.deleteById("U1");
+
+        assertEquals("U2", repository.findByEmail("dup@example.com").map(User::getId).orElseThrow());
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.save(new Client("U4", "Intrus", "dup@example.com", "0600000003")));
+    }
+
+    @Test
+    void duplicatedEmailIsFreedOnceNoUserCarriesIt() throws IOException {
+        writeUsers("U1,Marie,dup@example.com,0600000000,CLIENT",
+                   "U2,Marie bis,dup@example.com,0600000001,CLIENT");
+        UserRepository repository = new UserRepository(new CsvStorageBackend(dataDir), 0);
+
+        repository.deleteById("U1");
+        repository.deleteById("U2");
+
+        assertEquals(Optional.empty(), repository.findByEmail("dup@example.com"));
+        repository.save(new Client("U3", "Nouvelle", "dup@example.com", "0600000002"));
+        assertEquals("U3", repository.findByEmail("dup@example.com").map(User::getId).orElseThrow());
+    }
+
+    @Test
+    void emailIndexSurvivesReload() {
+        UserRepository repository = new UserRepository(new CsvStorageBackend(dataDir), 0);
+        repository.save(new Client("U1", "Marie", "marie@example.com", "0600000000"));
+        repository.save(new Client("U1", "Marie", "marie.d@example.com", "0600000000"));
+        repository.flush();
+
+        UserRepository reloaded = new UserRepository(new CsvStorageBackend(dataDir), 0);
+
+        assertEquals("U1", reloaded.findByEmail("marie.d@example.com").map(User::getId).orElseThrow());
+        assertTrue(reloaded.findByEmail("marie@example.com").isEmpty());
+    }
+
+    @Test
+    void deferredChangesAreWrittenOnShutdown() {
+        // Intervalle assez long pour que seule l'écriture d'arrêt ait lieu pendant le test
+        UserRepository repository = new UserRepository(new CsvStorageBackend(dataDir), 60_000);
+        repository.save(new Client("U1", "Marie", "marie@example.com", "0600000000"));
+        repository.save(new Client("U2", "Paul", "paul@example.com", "0600000001"));
+        repository.deleteById("U2");
+
+        assertTrue(new UserRepository(new CsvStorageBackend(dataDir), 0).findAll().isEmpty());
+
+        // Appelé par le hook d'arrêt de RepositoryBootstrap
+        repository.writeSnapshot();
+
+        UserRepository reloaded = new UserRepository(new CsvStorageBackend(dataDir), 0);
+        assertEquals(List.of("U1"), reloaded.findAll().stream().map(User::getId).toList());
+    }
+
+    private void writeUsers(String... rows) throws IOException {
+        StringBuilder csv = new StringBuilder("id,name,email,phone,type\n");
+        for (String row : rows) {
+            csv.append(row).append('\n');
+        }
+        Files.writeString(dataDir.resolve("users.csv"), csv, StandardCharsets.UTF_8);
+    }
+}
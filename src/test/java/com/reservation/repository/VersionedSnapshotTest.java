@@ -0,0 +1,72 @@
+package com.reservation.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionedSnapshotTest {
+
+    @Test
+    void listIsCopiedOnlyAfterAChange() {
+        VersionedSnapshot<String> snapshot = new VersionedSnapshot<>();
+        Map<String, String> source = new ConcurrentHashMap<>(Map.of("A", "a"));
+        AtomicInteger copies = new AtomicInteger();
+
+        List<String> first = snapshot.values(() -> {
+            copies.incrementAndGet();
+            return source.values();
+        });
+        List<String> second = snapshot.values(() -> {
+            copies.incrementAndGet();
+            return source.values();
+        });
+        assertSame(first, second);
+        assertEquals(1, copies.get());
+        assertThrows(UnsupportedOperationException.class, () -> first.add("b"));
+
+        source.put("B", "b");
+        snapshot.changed();
+
+        List<String> third = snapshot.values(source::values);
+        assertNotSame(first, third);
+        assertEquals(2, third.size());
+        assertEquals(1, first.size());
+    }
+
+    @Test
+    void publishedListContainsEveryWriteUpToItsVersion() {
+        VersionedSnapshot<Integer> snapshot = new VersionedSnapshot<>();
+        Map<Integer, Integer> source = new ConcurrentHashMap<>();
+        int writes = 20_000;
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < writes; i++) {
+                // Modification de la source puis changed, comme dans les repositories
+                source.put(i, i);
+                snapshot.changed();
+            }
+        });
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+            while (!writer.isDone()) {
+                long version = snapshot.version();
+                List<Integer> values = snapshot.values(source::values);
+                // Toutes les écritures déjà signalées lors de la lecture de la version figurent dans la liste
+                assertTrue(values.size() >= version, values.size() + " < " + version);
+            }
+        });
+        writer.join();
+        reader.join();
+
+        assertEquals(writes, snapshot.values(source::values).size());
+    }
+}
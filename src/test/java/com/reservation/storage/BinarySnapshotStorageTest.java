@@ -0,0 +1,70 @@
+package com.reservation.storage;
+
+import com.reservation.model.Client;
+import com.reservation.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BinarySnapshotStorageTest {
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void freshSnapshotIsPreferredToTheCsv() {
+        CsvStorageService csvService = new CsvStorageService(dataDir);
+        UserCsvStorage storage = new UserCsvStorage(csvService);
+        storage.appendChanges(Map.of("U1", user("U1")));
+
+        // État volontairement différent du CSV : seul l'instantané peut le fournir
+        storage.writeSnapshot(() -> List.of(user("U1"), user("U2")));
+
+        assertEquals(List.of("U1", "U2"), loadedIds(new UserCsvStorage(csvService)));
+    }
+
+    @Test
+    void snapshotIsIgnoredOnceTheLogHasGrown() {
+        CsvStorageService csvService = new CsvStorageService(dataDir);
+        UserCsvStorage storage = new UserCsvStorage(csvService);
+        storage.appendChanges(Map.of("U1", user("U1")));
+        storage.writeSnapshot(() -> List.of(user("U1"), user("U2")));
+
+        storage.appendChanges(Map.of("U3", user("U3")));
+
+        assertEquals(List.of("U1", "U3"), loadedIds(new UserCsvStorage(csvService)));
+    }
+
+    @Test
+    void truncatedSnapshotFallsBackToTheCsvAndLog() throws IOException {
+        CsvStorageService csvService = new CsvStorageService(dataDir);
+        UserCsvStorage storage = new UserCsvStorage(csvService);
+        storage.appendChanges(Map.of("U1", user("U1")));
+        storage.appendChanges(Map.of("U2", user("U2")));
+        storage.writeSnapshot(() -> List.of(user("U1"), user("U2")));
+
+        Path snapshotFile = csvService.resolve("users.snap");
+        byte[] content = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(content, content.length - 8));
+
+        assertEquals(List.of("U1", "U2"), loadedIds(new UserCsvStorage(csvService)));
+    }
+
+    private static List<String> loadedIds(UserCsvStorage storage) {
+        Map<String, User> users = new LinkedHashMap<>();
+        storage.loadAll(user -> users.put(user.getId(), user), users::remove);
+        return List.copyOf(users.keySet());
+    }
+
+    private static User user(String id) {
+        return new Client(id, "Nom " + id, id.toLowerCase() + "@example.com", "0600000000");
+    }
+}
@@ -0,0 +1,103 @@
+package com.reservation.storage;
+
+import com.reservation.model.Client;
+import com.reservation.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvAppendLogTest {
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void replayIgnoresARecordTruncatedByACrash() throws IOException {
+        CsvStorageService csvService = new CsvStorageService(dataDir);
+        UserCsvStorage storage = new UserCsvStorage(csvService);
+        storage.appendChanges(changes(user("U1", "Marie"), user("U2", "Paul")));
+        Map<String, User> deletion = new LinkedHashMap<>();
+        deletion.put("U2", null);
+        storage.appendChanges(deletion);
+        storage.appendChanges(changes(user("U3", "Jeanne")));
+
+        // Arrêt brutal au milieu du dernier enregistrement
+        Path logFile = csvService.resolve("users.log");
+        byte[] content = Files.readAllBytes(logFile);
+        Files.write(logFile, Arrays.copyOf(content, content.length - 12));
+
+        Map<String, User> loaded = load(new UserCsvStorage(csvService));
+
+        assertEquals(List.of("U1"), List.copyOf(loaded.keySet()));
+        assertEquals("Marie", loaded.get("U1").getName());
+    }
+
+    @Test
+    void replayReadsSealedSegmentsBeforeTheActiveLog() {
+        CsvStorageService csvService = new CsvStorageService(dataDir);
+        CsvAppendLog log = new CsvAppendLog(csvService, "users.log");
+        log.appendPut(writer -> writer.field("U1").field("v1"));
+        log.appendPut(writer -> writer.field("U2").field("v1"));
+        long first = log.seal();
+        log.appendPut(writer -> writer.field("U1").field("v2"));
+        long second = log.seal();
+        log.appendDelete("U2");
+
+        assertEquals(List.of("PUT U1 v1", "PUT U2 v1", "PUT U1 v2", "DEL U2"), replay(log));
+
+        // Les segments couverts par un état complet disparaissent, le journal courant reste
+        log.dropSealed(first);
+        assertEquals(List.of("PUT U1 v2", "DEL U2"), replay(log));
+        log.dropSealed(second);
+        assertEquals(List.of("DEL U2"), replay(log));
+    }
+
+    @Test
+    void sealingAnEmptyLogCreatesNoSegment() {
+        CsvStorageService csvService = new CsvStorageService(dataDir);
+        CsvAppendLog log = new CsvAppendLog(csvService, "users.log");
+
+        assertEquals(0, log.seal());
+        log.appendDelete("U1");
+        assertEquals(1, log.seal());
+        assertEquals(1, log.seal());
+
+        assertTrue(Files.exists(csvService.resolve("users.log.1")));
+        assertFalse(Files.exists(csvService.resolve("users.log.2")));
+    }
+
+    private static List<String> replay(CsvAppendLog log) {
+        List<String> records = new ArrayList<>();
+        log.replay(row -> records.add("PUT " + row.get(1) + " " + row.get(2)), id -> records.add("DEL " + id));
+        return records;
+    }
+
+    private static Map<String, User> load(UserCsvStorage storage) {
+        Map<String, User> users = new LinkedHashMap<>();
+        storage.loadAll(user -> users.put(user.getId(), user), users::remove);
+        return users;
+    }
+
+    private static Map<String, User> changes(User... users) {
+        Map<String, User> changes = new LinkedHashMap<>();
+        for (User user : users) {
+            changes.put(user.getId(), user);
+        }
+        return changes;
+    }
+
+    private static User user(String id, String name) {
+        return new Client(id, name, id.toLowerCase() + "@example.com", "0600000000");
+    }
+}
@@ -0,0 +1,135 @@
+package com.reservation.storage;
+
+import com.reservation.model.ReservationStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRowTest {
+
+    @Test
+    void parsesSignedLongs() {
+        CsvRow row = row("42,-42,+42,0,-0");
+
+        assertEquals(42L, row.getLong(0));
+        assertEquals(-42L, row.getLong(1));
+        assertEquals(42L, row.getLong(2));
+        assertEquals(0L, row.getLong(3));
+        assertEquals(0L, row.getLong(4));
+    }
+
+    @Test
+    void parsesLongLimits() {
+        CsvRow row = row("9223372036854775807,-9223372036854775808,999999999999999999");
+
+        assertEquals(Long.MAX_VALUE, row.getLong(0));
+        assertEquals(Long.MIN_VALUE, row.getLong(1));
+        assertEquals(999_999_999_999_999_999L, row.getLong(2));
+    }
+
+    @Test
+    void rejectsOverflowingLongs() {
+        CsvRow row = row("9223372036854775808,-9223372036854775809,99999999999999999999");
+
+        assertThrows(NumberFormatException.class, () -> row.getLong(0));
+        assertThrows(NumberFormatException.class, () -> row.getLong(1));
+        assertThrows(NumberFormatException.class, () -> row.getLong(2));
+    }
+
+    @Test
+    void rejectsMalformedLongs() {
+        CsvRow row = row("12a,-,+,,1 2");
+
+        for (int i = 0; i < row.size(); i++) {
+            int index = i;
+            assertThrows(NumberFormatException.class, () -> row.getLong(index));
+        }
+    }
+
+    @Test
+    void intChecksItsRange() {
+        CsvRow row = row("2147483647,-2147483648,2147483648,-2147483649");
+
+        assertEquals(Integer.MAX_VALUE, row.getInt(0));
+        assertEquals(Integer.MIN_VALUE, row.getInt(1));
+        assertThrows(NumberFormatException.class, () -> row.getInt(2));
+        assertThrows(NumberFormatException.class, () -> row.getInt(3));
+    }
+
+    @Test
+    void outOfRangeIndexFailsEvenWhenTheReusedRowHadMoreFields() {
+        CsvRow row = new CsvRow();
+        ByteBuffer first = bytes("1,2,3");
+        row.reset(first);
+        row.addField(0, 1);
+        row.addField(2, 3);
+        row.addField(4, 5);
+        // Les positions du champ 2 de la ligne précédente restent valides dans ce tampon
+        row.reset(bytes("7,8,9"));
+        row.addField(0, 1);
+
+        for (int index : new int[]{2, -1, 100}) {
+            IndexOutOfBoundsException e = assertThrows(IndexOutOfBoundsException.class, () -> row.getLong(index));
+            assertEquals("Champ " + index + " absent (la ligne en contient 1)", e.getMessage());
+        }
+    }
+
+    @Test
+    void parsesDecimalsWithoutChangingTheirScale() {
+        CsvRow row = row("12.50,-0.5,+3,100,1E+3,12345678901234567890.12");
+
+        assertEquals(new BigDecimal("12.50"), row.getDecimal(0));
+        assertEquals(new BigDecimal("-0.5"), row.getDecimal(1));
+        assertEquals(new BigDecimal("3"), row.getDecimal(2));
+        assertEquals(new BigDecimal("100"), row.getDecimal(3));
+        assertEquals(new BigDecimal("1E+3"), row.getDecimal(4));
+        assertEquals(new BigDecimal("12345678901234567890.12"), row.getDecimal(5));
+    }
+
+    @Test
+    void rejectsMalformedDecimals() {
+        CsvRow row = row("1.2.3,abc,-");
+
+        assertThrows(NumberFormatException.class, () -> row.getDecimal(0));
+        assertThrows(NumberFormatException.class, () -> row.getDecimal(1));
+        assertThrows(NumberFormatException.class, () -> row.getDecimal(2));
+    }
+
+    @Test
+    void parsesIsoDateTimes() {
+        CsvRow row = row("2024-03-05T09:07,2024-03-05T09:07:30,2024-03-05T09:07:30.25,2024-03-05T09:07:30.123456789");
+
+        assertEquals(LocalDateTime.of(2024, 3, 5, 9, 7), row.getDateTime(0));
+        assertEquals(LocalDateTime.of(2024, 3, 5, 9, 7, 30), row.getDateTime(1));
+        assertEquals(LocalDateTime.of(2024, 3, 5, 9, 7, 30, 250_000_000), row.getDateTime(2));
+        assertEquals(LocalDateTime.of(2024, 3, 5, 9, 7, 30, 123_456_789), row.getDateTime(3));
+    }
+
+    @Test
+    void matchesEnumsByName() {
+        CsvRow row = row("CANCELLED,cancelled");
+
+        assertEquals(ReservationStatus.CANCELLED, row.getEnum(0, ReservationStatus.values()));
+        assertThrows(IllegalArgumentException.class, () -> row.getEnum(1, ReservationStatus.values()));
+    }
+
+    /**
+     * Ligne analysée par le lecteur CSV (une seule ligne attendue)
+     */
+    private static CsvRow row(String line) {
+        CsvRow row = new CsvRow();
+        ByteBuffer buffer = bytes(line);
+        MappedCsvReader.scan(buffer, 0, buffer.limit(), row, parsed -> { });
+        return row;
+    }
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
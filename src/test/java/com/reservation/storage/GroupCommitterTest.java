@@ -0,0 +1,190 @@
+package com.reservation.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroupCommitterTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /**
+     * Écrivain qui enregistre les lots et bloque ceux contenant une demande "gatée" jusqu'à sa libération
+     */
+    private static final class GatedWriter implements GroupCommitter.BatchWriter<String> {
+        private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        private final Map<String, CountDownLatch> writing = new ConcurrentHashMap<>();
+        private final Map<String, CountDownLatch> release = new ConcurrentHashMap<>();
+        private volatile Thread leader;
+
+        void gate(String request) {
+            writing.put(request, new CountDownLatch(1));
+            release.put(request, new CountDownLatch(1));
+        }
+
+        void awaitWriting(String request) throws InterruptedException {
+            assertTrue(writing.get(request).await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+
+        void release(String request) {
+            release.get(request).countDown();
+        }
+
+        @Override
+        public void write(List<String> batch) throws IOException {
+            batches.add(List.copyOf(batch));
+            leader = Thread.currentThread();
+            for (String request : batch) {
+                if (writing.containsKey(request)) {
+                    writing.get(request).countDown();
+                    try {
+                        release.get(request).await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void commitsEveryRequestOfASingleThread() throws IOException {
+        GatedWriter writer = new GatedWriter();
+        GroupCommitter<String> committer = new GroupCommitter<>(writer);
+
+        committer.commit("a");
+        committer.commit("b");
+
+        assertEquals(List.of(List.of("a"), List.of("b")), writer.batches);
+    }
+
+    @Test
+    void groupsRequestsArrivingDuringAWrite() throws Exception {
+        GatedWriter writer = new GatedWriter();
+        writer.gate("first");
+        GroupCommitter<String> committer = new GroupCommitter<>(writer);
+        Thread first = start(() -> committer.commit("first"), new AtomicReference<>());
+        writer.awaitWriting("first");
+
+        Thread second = start(() -> committer.commit("second"), new AtomicReference<>());
+        awaitWaiting(second);
+        Thread third = start(() -> committer.commit("third"), new AtomicReference<>());
+        awaitWaiting(third);
+        writer.release("first");
+        joinAll(first, second, third);
+
+        assertEquals(2, writer.batches.size());
+        assertEquals(List.of("second", "third"), writer.batches.get(1));
+    }
+
+    @Test
+    void interruptedWaiterIsNotWrittenByTheNextLeader() throws Exception {
+        GatedWriter writer = new GatedWriter();
+        writer.gate("first");
+        GroupCommitter<String> committer = new GroupCommitter<>(writer);
+        Thread first = start(() -> committer.commit("first"), new AtomicReference<>());
+        writer.awaitWriting("first");
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<Boolean> interrupted = new AtomicReference<>();
+        Thread waiter = start(() -> {
+            try {
+                committer.commit("cancelled");
+            } finally {
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        }, failure);
+        awaitWaiting(waiter);
+        waiter.interrupt();
+        joinAll(waiter);
+        writer.release("first");
+        joinAll(first);
+        committer.commit("next");
+
+        assertInstanceOf(IOException.class, failure.get());
+        assertTrue(interrupted.get());
+        assertEquals(List.of(List.of("first"), List.of("next")), writer.batches);
+    }
+
+    @Test
+    void interruptedWaiterAlreadyTakenByALeaderWaitsForItsWrite() throws Exception {
+        GatedWriter writer = new GatedWriter();
+        writer.gate("first");
+        writer.gate("second");
+        GroupCommitter<String> committer = new GroupCommitter<>(writer);
+        Thread first = start(() -> committer.commit("first"), new AtomicReference<>());
+        writer.awaitWriting("first");
+
+        // "second" et "third" attendent, puis partent ensemble dans le lot d'un des deux
+        Map<Thread, Boolean> interrupted = new ConcurrentHashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread second = start(() -> commitAndRecordInterrupt(committer, "second", interrupted), failure);
+        awaitWaiting(second);
+        Thread third = start(() -> commitAndRecordInterrupt(committer, "third", interrupted), failure);
+        awaitWaiting(third);
+        writer.release("first");
+        writer.awaitWriting("second");
+
+        Thread follower = writer.leader == second ? third : second;
+        awaitWaiting(follower);
+        follower.interrupt();
+        writer.release("second");
+        joinAll(first, second, third);
+
+        assertNull(failure.get());
+        assertEquals(List.of("second", "third"), writer.batches.get(1));
+        assertTrue(interrupted.get(follower));
+    }
+
+    private interface Commit {
+        void run() throws IOException;
+    }
+
+    private static void commitAndRecordInterrupt(GroupCommitter<String> committer, String request,
+                                                 Map<Thread, Boolean> interrupted) throws IOException {
+        try {
+            committer.commit(request);
+        } finally {
+            interrupted.put(Thread.currentThread(), Thread.currentThread().isInterrupted());
+        }
+    }
+
+    private static Thread start(Commit commit, AtomicReference<Throwable> failure) {
+        Thread thread = new Thread(() -> {
+            try {
+                commit.run();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void joinAll(Thread... threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            assertFalse(thread.isAlive(), "le thread aurait dû se terminer");
+        }
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState(), "le thread devrait attendre l'écriture en cours");
+    }
+}
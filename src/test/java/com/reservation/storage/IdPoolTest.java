@@ -0,0 +1,36 @@
+package com.reservation.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IdPoolTest {
+
+    @Test
+    void equalIdsShareOneInstance() {
+        IdPool pool = new IdPool();
+        String first = pool.intern(new String("C1"));
+        String copy = new String("C1");
+
+        assertNotSame(first, copy);
+        assertSame(first, pool.intern(copy));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void idsNoLongerReferencedLeaveThePool() throws InterruptedException {
+        IdPool pool = new IdPool();
+        for (int i = 0; i < 1000; i++) {
+            pool.intern("R" + i);
+        }
+
+        // Aucune entité ne retient ces identifiants : le ramasse-miettes finit par les libérer
+        for (int attempt = 0; attempt < 50 && pool.size() > 0; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, pool.size());
+    }
+}
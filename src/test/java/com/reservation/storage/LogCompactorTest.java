@@ -0,0 +1,106 @@
+package com.reservation.storage;
+
+import com.reservation.model.Client;
+import com.reservation.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogCompactorTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void requestsReceivedWhileACompactionIsPendingAreMerged() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        LogCompactor compactor = new LogCompactor("test", () -> {
+            if (runs.incrementAndGet() == 1) {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        compactor.request();
+        assertTrue(running.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // Pendant le premier compactage : une seule nouvelle exécution en attente
+        compactor.request();
+        compactor.request();
+        compactor.request();
+        release.countDown();
+
+        CountDownLatch drained = new CountDownLatch(1);
+        new LogCompactor("fin", drained::countDown).request();
+        assertTrue(drained.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void compactionDoesNotLoseConcurrentWrites() throws InterruptedException {
+        CsvStorageService csvService = new CsvStorageService(dataDir);
+        UserCsvStorage storage = new UserCsvStorage(csvService);
+        // État en mémoire, mis à jour avant l'ajout au journal comme dans les repositories
+        Map<String, User> state = new ConcurrentHashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int writers = 4;
+        int usersPerWriter = 300;
+
+        CountDownLatch done = new CountDownLatch(writers);
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < usersPerWriter; i++) {
+                        User user = user("U" + writer + "-" + i);
+                        state.put(user.getId(), user);
+                        storage.appendChanges(Map.of(user.getId(), user));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        while (done.getCount() > 0) {
+            storage.compact(() -> new ArrayList<>(state.values()));
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNull(failure.get());
+
+        Map<String, User> loaded = new HashMap<>();
+        new UserCsvStorage(csvService).loadAll(user -> loaded.put(user.getId(), user), loaded::remove);
+        assertEquals(state.keySet(), loaded.keySet());
+
+        // Un dernier compactage sans écriture concurrente ne laisse que le CSV
+        storage.compact(() -> new ArrayList<>(state.values()));
+        loaded.clear();
+        new UserCsvStorage(csvService).loadAll(user -> loaded.put(user.getId(), user), loaded::remove);
+        assertEquals(writers * usersPerWriter, loaded.size());
+    }
+
+    private static User user(String id) {
+        return new Client(id, "Nom " + id, id.toLowerCase() + "@example.com", "0600000000");
+    }
+}
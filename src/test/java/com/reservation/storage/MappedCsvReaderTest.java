@@ -0,0 +1,159 @@
+package com.reservation.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedCsvReaderTest {
+
+    @Test
+    void splitsPlainFields() {
+        List<String[]> rows = scan("a,b,c\nd,,f\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"a", "b", "c"}, rows.get(0));
+        assertArrayEquals(new String[]{"d", "", "f"}, rows.get(1));
+    }
+
+    @Test
+    void keepsTrailingEmptyFieldAndLastLineWithoutNewline() {
+        List<String[]> rows = scan("a,\nb,c");
+
+        assertArrayEquals(new String[]{"a", ""}, rows.get(0));
+        assertArrayEquals(new String[]{"b", "c"}, rows.get(1));
+    }
+
+    @Test
+    void stripsCarriageReturnsOfWindowsLineEndings() {
+        List<String[]> rows = scan("a,b\r\nc,\"d\"\r\n");
+
+        assertArrayEquals(new String[]{"a", "b"}, rows.get(0));
+        assertArrayEquals(new String[]{"c", "d"}, rows.get(1));
+    }
+
+    @Test
+    void skipsBlankLines() {
+        List<String[]> rows = scan("a\n\n   \nb\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"b"}, rows.get(1));
+    }
+
+    @Test
+    void quotedFieldMayContainSeparator() {
+        List<String[]> rows = scan("1,\"Coupe, brushing\",3\n");
+
+        assertArrayEquals(new String[]{"1", "Coupe, brushing", "3"}, rows.get(0));
+    }
+
+    @Test
+    void doubledQuotesAreDecodedAsOneQuote() {
+        List<String[]> rows = scan("\"Le \"\"grand\"\" ménage\",\"\"\"\"\n");
+
+        assertArrayEquals(new String[]{"Le \"grand\" ménage", "\""}, rows.get(0));
+    }
+
+    @Test
+    void quotedFieldMayContainNewlines() {
+        List<String[]> rows = scan("1,\"ligne 1\nligne 2\r\nligne 3\",x\n2,y,z\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"1", "ligne 1\nligne 2\r\nligne 3", "x"}, rows.get(0));
+        assertArrayEquals(new String[]{"2", "y", "z"}, rows.get(1));
+    }
+
+    @Test
+    void emptyQuotedFieldIsEmpty() {
+        assertArrayEquals(new String[]{"", "a"}, scan("\"\",a\n").get(0));
+    }
+
+    @Test
+    void missingClosingQuoteTakesTheRestOfTheData() {
+        List<String[]> rows = scan("a,\"pas fermé\nb,c");
+
+        assertEquals(1, rows.size());
+        assertArrayEquals(new String[]{"a", "pas fermé\nb,c"}, rows.get(0));
+    }
+
+    @Test
+    void incompleteRecordIsLeftForTheNextWindow() {
+        ByteBuffer buffer = bytes("a,b\nc,\"d\ne");
+        List<String[]> rows = new ArrayList<>();
+
+        int end = MappedCsvReader.scan(buffer, 0, buffer.limit(), false, new CsvRow(), row -> rows.add(row.toArray()));
+
+        assertEquals(1, rows.size());
+        assertEquals(4, end);
+    }
+
+    @Test
+    void parseSkipsHeaderAndReadsQuotedFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("services.csv");
+        Files.writeString(file, "id,name\n1,\"a,b\"\n2,\"c\nd\"\n", StandardCharsets.UTF_8);
+        List<String> names = new ArrayList<>();
+
+        MappedCsvReader.parse(file, true, row -> row.get(1), names::add);
+
+        assertEquals(List.of("a,b", "c\nd"), names);
+    }
+
+    @Test
+    void parallelChunksMatchSequentialScanAcrossQuotedRecords() {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            if (i % 17 == 0) {
+                // Champ entre guillemets assez long pour couvrir plusieurs tranches
+                csv.append(i).append(",\"début\n").append("ligne,\"\"citée\"\"\n".repeat(i % 5 + 1)).append("fin\",x\n");
+            } else if (i % 5 == 0) {
+                csv.append(i).append(",\"a, b\",y\n");
+            } else {
+                csv.append(i).append(",simple,z\n");
+            }
+        }
+        ByteBuffer buffer = bytes(csv.toString());
+        List<String> expected = new ArrayList<>();
+        MappedCsvReader.scan(buffer, 0, buffer.limit(), new CsvRow(), row -> expected.add(String.join("|", row.toArray())));
+
+        for (int chunkSize : new int[]{1, 7, 64, 1000, buffer.limit()}) {
+            List<String> parsed = new ArrayList<>();
+            int end = MappedCsvReader.parseWindow(buffer, 0, buffer.limit(), true, chunkSize,
+                row -> String.join("|", row.toArray()), parsed::add);
+
+            assertEquals(expected, parsed, "tranches de " + chunkSize + " octets");
+            assertEquals(buffer.limit(), end);
+        }
+        assertEquals(200, expected.size());
+    }
+
+    @Test
+    void quotedRecordCutByTheWindowEndIsLeftForTheNextWindow() {
+        ByteBuffer buffer = bytes("1,a\n2,\"b\nc\n3,d\n");
+        List<String> parsed = new ArrayList<>();
+
+        int end = MappedCsvReader.parseWindow(buffer, 0, buffer.limit(), false, 2, row -> row.get(0), parsed::add);
+
+        assertEquals(List.of("1"), parsed);
+        assertEquals(4, end);
+    }
+
+    private static List<String[]> scan(String csv) {
+        ByteBuffer buffer = bytes(csv);
+        List<String[]> rows = new ArrayList<>();
+        MappedCsvReader.scan(buffer, 0, buffer.limit(), new CsvRow(), row -> rows.add(row.toArray()));
+        return rows;
+    }
+
+    private static ByteBuffer bytes(String csv) {
+        return ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,147 @@
+package com.reservation.storage;
+
+import com.reservation.model.Client;
+import com.reservation.model.Payment;
+import com.reservation.model.PaymentMethod;
+import com.reservation.model.PaymentStatus;
+import com.reservation.model.Prestataire;
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationStatus;
+import com.reservation.model.Service;
+import com.reservation.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RowCodecTest {
+
+    @Test
+    void serviceWithSeparatorsQuotesAndNewlinesRoundTrips() {
+        Service service = new Service("S1", "Coupe, \"brushing\"", "Ligne 1\nLigne 2\r\nLigne 3",
+            "Coiffure", new BigDecimal("35.50"), 45, "P1");
+
+        Service read = roundTrip(new ServiceRowCodec(), service);
+
+        assertEquals(service.getName(), read.getName());
+        assertEquals(service.getDescription(), read.getDescription());
+        assertEquals(service.getCategory(), read.getCategory());
+        assertEquals(service.getPrice(), read.getPrice());
+        assertEquals(service.getDuration(), read.getDuration());
+        assertEquals(service.getPrestataireId(), read.getPrestataireId());
+    }
+
+    @Test
+    void reservationRoundTrips() {
+        Reservation reservation = new Reservation("R1", "C1", "S1", "P1",
+            LocalDateTime.of(2024, 6, 1, 14, 30, 15, 500_000_000), new BigDecimal("-12.50"));
+        reservation.setStatus(ReservationStatus.CANCELLED);
+
+        Reservation read = roundTrip(new ReservationRowCodec(), reservation);
+
+        assertEquals(reservation, read);
+        assertEquals(reservation.getClientId(), read.getClientId());
+        assertEquals(reservation.getServiceId(), read.getServiceId());
+        assertEquals(reservation.getPrestataireId(), read.getPrestataireId());
+        assertEquals(reservation.getDateTime(), read.getDateTime());
+        assertEquals(ReservationStatus.CANCELLED, read.getStatus());
+        assertEquals(reservation.getTotalAmount(), read.getTotalAmount());
+    }
+
+    @Test
+    void paymentWithoutDateRoundTrips() {
+        Payment payment = new Payment("PAY1", "R1", new BigDecimal("99.99"), PaymentMethod.PAYPAL);
+        payment.setStatus(PaymentStatus.FAILED);
+
+        Payment read = roundTrip(new PaymentRowCodec(), payment);
+
+        assertEquals(payment.getAmount(), read.getAmount());
+        assertEquals(PaymentMethod.PAYPAL, read.getMethod());
+        assertEquals(PaymentStatus.FAILED, read.getStatus());
+        assertNull(read.getPaymentDate());
+    }
+
+    @Test
+    void userKeepsItsTypeAndQuotedName() {
+        User user = new Prestataire("U1", "Dupont, \"Jean\"", "jean@example.com", "0600000000");
+
+        User read = roundTrip(new UserRowCodec(), user);
+
+        assertInstanceOf(Prestataire.class, read);
+        assertEquals(user.getName(), read.getName());
+        assertEquals(user.getEmail(), read.getEmail());
+    }
+
+    @Test
+    void readsFieldsAfterAnOffset() {
+        StringWriter out = new StringWriter();
+        CsvRowWriter writer = new CsvRowWriter(out);
+        writer.field("PUT");
+        new UserRowCodec().write(writer, new Client("U2", "Marie", "marie@example.com", "0700000000"));
+        writer.endRow();
+
+        User read = read(out.toString(), row -> new UserRowCodec().read(row, 1)).get(0);
+
+        assertEquals("U2", read.getId());
+        assertInstanceOf(Client.class, read);
+    }
+
+    @Test
+    void incompleteOrInvalidRowsAreSkipped() {
+        ReservationRowCodec codec = new ReservationRowCodec();
+
+        assertNull(read("R1,C1,S1\n", row -> codec.read(row, 0)).get(0));
+        assertNull(read("R1,C1,S1,P1,2024-06-01T14:30,UNKNOWN,10\n", row -> codec.read(row, 0)).get(0));
+        assertNull(read("S1,n,d,c,10,99999999999,P1\n", row -> new ServiceRowCodec().read(row, 0)).get(0));
+    }
+
+    @Test
+    void referencedIdsAreOnlyPooledWhenAPoolIsGiven() {
+        String csv = "R1,C1,S1,P1,2024-06-01T14:30,PENDING,10\n";
+        IdPool pool = new IdPool();
+        String pooled = pool.intern("C1");
+
+        Reservation interned = read(csv, row -> new ReservationRowCodec(pool).read(row, 0)).get(0);
+        Reservation cold = read(csv, row -> new ReservationRowCodec(null).read(row, 0)).get(0);
+
+        assertSame(pooled, interned.getClientId());
+        assertNotSame(pooled, cold.getClientId());
+        assertEquals("C1", cold.getClientId());
+        // L'identifiant de la réservation, unique, n'est pas conservé par le pool
+        assertEquals(3, pool.size());
+    }
+
+    private static <T> T roundTrip(RowCodec<T> codec, T entity) {
+        StringWriter out = new StringWriter();
+        CsvRowWriter writer = new CsvRowWriter(out);
+        writer.row(codec.header());
+        codec.write(writer, entity);
+        writer.endRow();
+
+        List<T> read = read(out.toString(), row -> codec.read(row, 0));
+        assertEquals(2, read.size());
+        return read.get(1);
+    }
+
+    /**
+     * Décode chaque ligne pendant l'appel du visiteur (le CsvRow est réutilisé d'une ligne à l'autre)
+     */
+    private static <T> List<T> read(String csv, Function<CsvRow, T> reader) {
+        ByteBuffer buffer = ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8));
+        List<T> read = new ArrayList<>();
+        MappedCsvReader.scan(buffer, 0, buffer.limit(), new CsvRow(), row -> read.add(reader.apply(row)));
+        return read;
+    }
+}
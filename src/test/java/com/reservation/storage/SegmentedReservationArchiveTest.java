@@ -0,0 +1,93 @@
+package com.reservation.storage;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedReservationArchiveTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2022, 5, 10, 9, 0);
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void findsArchivedReservationsByIdAndClient() throws IOException {
+        SegmentedReservationArchive archive = new SegmentedReservationArchive(new CsvStorageService(dataDir));
+        archive.append(List.of(reservation("R1", "C1"), reservation("R2", "C2")));
+        archive.append(List.of(reservation("R3", "C1")));
+
+        SegmentedReservationArchive reopened = new SegmentedReservationArchive(new CsvStorageService(dataDir));
+
+        assertEquals("C2", reopened.findById("R2").orElseThrow().getClientId());
+        assertEquals("C1", reopened.findById("R3").orElseThrow().getClientId());
+        assertTrue(reopened.findById("R4").isEmpty());
+        assertEquals(2, reopened.findByClientId("C1").size());
+    }
+
+    @Test
+    void onlySegmentsWhoseIndexHoldsTheIdAreRead() throws IOException {
+        SegmentedReservationArchive archive = new SegmentedReservationArchive(new CsvStorageService(dataDir));
+        archive.append(List.of(reservation("R1", "C1")));
+        archive.append(List.of(reservation("R2", "C2")));
+        // Le segment le plus récent contient désormais aussi R1, mais pas son index d'identifiants
+        rewriteSegment(2, "id,clientId,serviceId,prestataireId,dateTime,status,totalAmount\n"
+            + "R1,AUTRE,S1,P1,2022-05-10T09:00,CONFIRMED,10\n");
+
+        SegmentedReservationArchive reopened = new SegmentedReservationArchive(new CsvStorageService(dataDir));
+
+        assertEquals("C1", reopened.findById("R1").orElseThrow().getClientId());
+    }
+
+    @Test
+    void archivedIdsAreNotPooled() throws IOException {
+        SegmentedReservationArchive archive = new SegmentedReservationArchive(new CsvStorageService(dataDir));
+        archive.append(List.of(reservation("R1", "ARCHIVE-C1")));
+        String pooled = IdPool.shared().intern(new String("ARCHIVE-C1"));
+
+        assertNotSame(pooled, archive.findById("R1").orElseThrow().getClientId());
+        assertNotSame(pooled, archive.findByClientId("ARCHIVE-C1").get(0).getClientId());
+    }
+
+    @Test
+    void sortedIndexLookup() {
+        ByteBuffer index = ByteBuffer.wrap("A1\nB22\nB3\nC\nzz\n".getBytes(StandardCharsets.UTF_8));
+
+        for (String id : new String[]{"A1", "B22", "B3", "C", "zz"}) {
+            assertTrue(SegmentedReservationArchive.containsLine(index, id.getBytes(StandardCharsets.UTF_8)), id);
+        }
+        for (String id : new String[]{"A", "B2", "B", "D", "", "zzz"}) {
+            assertFalse(SegmentedReservationArchive.containsLine(index, id.getBytes(StandardCharsets.UTF_8)), id);
+        }
+        assertFalse(SegmentedReservationArchive.containsLine(ByteBuffer.allocate(0), new byte[]{'A'}));
+    }
+
+    private void rewriteSegment(int number, String csv) throws IOException {
+        Path segment = dataDir.resolve("archive").resolve(String.format("reservations-%06d.csv.gz", number));
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(segment))) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Reservation reservation(String id, String clientId) {
+        Reservation reservation = new Reservation(id, clientId, "S1", "P1", DATE, new BigDecimal("10"));
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        return reservation;
+    }
+}
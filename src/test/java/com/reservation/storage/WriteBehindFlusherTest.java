@@ -0,0 +1,85 @@
+package com.reservation.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindFlusherTest {
+    // Assez long pour qu'aucune écriture planifiée n'ait lieu pendant le test
+    private static final long NEVER_MS = 60_000;
+
+    @Test
+    void burstOfChangesIsWrittenOnce() {
+        AtomicInteger writes = new AtomicInteger();
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test", writes::incrementAndGet, NEVER_MS);
+
+        CompletableFuture<Void> first = flusher.markDirty();
+        CompletableFuture<Void> second = flusher.markDirty();
+        CompletableFuture<Void> third = flusher.markDirty();
+
+        // Toute la rafale est couverte par la même écriture, pas encore faite
+        assertSame(first, second);
+        assertSame(first, third);
+        assertFalse(first.isDone());
+        assertEquals(0, writes.get());
+
+        flusher.flush();
+        flusher.flush();
+
+        assertEquals(1, writes.get());
+        assertTrue(first.isDone());
+        assertNotSame(first, flusher.markDirty());
+    }
+
+    @Test
+    void pendingChangesAreWrittenAfterTheInterval() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test", writes::incrementAndGet, 20);
+
+        flusher.markDirty();
+        flusher.markDirty().get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    void nonPositiveIntervalWritesSynchronously() {
+        AtomicInteger writes = new AtomicInteger();
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test", writes::incrementAndGet, 0);
+
+        CompletableFuture<Void> write = flusher.markDirty();
+
+        assertTrue(write.isDone());
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    void failedWriteIsReportedAndRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("disque plein");
+            }
+        }, NEVER_MS);
+
+        CompletableFuture<Void> failed = flusher.markDirty();
+        flusher.flush();
+        assertThrows(CompletionException.class, failed::join);
+
+        // Les modifications restent en attente : la tentative suivante les écrit sans nouvel appel à markDirty
+        flusher.flush();
+        assertEquals(2, attempts.get());
+        flusher.flush();
+        assertEquals(2, attempts.get());
+    }
+}
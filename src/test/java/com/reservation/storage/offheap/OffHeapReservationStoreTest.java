@@ -0,0 +1,157 @@
+package com.reservation.storage.offheap;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapReservationStoreTest {
+    // Enregistrements par bloc de mémoire directe (voir OffHeapReservationStore.CHUNK_SHIFT)
+    private static final int CHUNK_RECORDS = 1 << 15;
+    private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * OffHeapReservationStore.RECORD_SIZE;
+    private static final LocalDateTime DATE = LocalDateTime.of(2023, 3, 1, 10, 0);
+
+    @Test
+    void storesCanonicalReservationsAndRejectsOthers() {
+        OffHeapReservationStore store = new OffHeapReservationStore();
+        Reservation reservation = reservation(1, ReservationStatus.CONFIRMED);
+
+        assertTrue(store.put(reservation));
+        assertFalse(store.put(new Reservation("R1", id(2), id(3), id(4), DATE, BigDecimal.TEN)));
+        assertFalse(store.put(new Reservation(id(5), id(2), id(3), id(4), DATE.withNano(1), BigDecimal.TEN)));
+
+        Reservation view = store.get(id(1));
+        assertEquals(reservation.getClientId(), view.getClientId());
+        assertEquals(DATE, view.getDateTime());
+        assertEquals(new BigDecimal("12.50"), view.getTotalAmount());
+        assertEquals(ReservationStatus.CONFIRMED, view.getStatus());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void reservationsStayReachableWhenTheIndexGrows() {
+        OffHeapReservationStore store = new OffHeapReservationStore();
+        for (int i = 0; i < 5000; i++) {
+            store.put(reservation(i, ReservationStatus.PENDING));
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(store.contains(id(i)), id(i));
+        }
+    }
+
+    @Test
+    void removedRecordsAreReclaimedByCompaction() {
+        OffHeapReservationStore store = new OffHeapReservationStore();
+        int count = CHUNK_RECORDS + 10;
+        for (int i = 0; i < count; i++) {
+            store.put(reservation(i, ReservationStatus.COMPLETED));
+        }
+        assertEquals(2 * CHUNK_BYTES, store.allocatedBytes());
+        Reservation removed = store.get(id(0));
+        Reservation kept = store.get(id(count - 1));
+
+        for (int i = 0; i < count - 10; i++) {
+            assertNotNull(store.remove(id(i)));
+        }
+
+        assertEquals(10, store.size());
+        assertEquals(CHUNK_BYTES, store.allocatedBytes());
+        // Les vues distribuées avant le compactage gardent leur contenu
+        assertEquals(id(0), removed.getId());
+        assertEquals(id(count - 1), kept.getId());
+        for (int i = count - 10; i < count; i++) {
+            assertEquals(id(i), store.get(id(i)).getId());
+        }
+        assertNull(store.get(id(0)));
+    }
+
+    @Test
+    void replacedRecordsAreReclaimedByCompaction() {
+        OffHeapReservationStore store = new OffHeapReservationStore();
+        store.put(reservation(1, ReservationStatus.PENDING));
+        Reservation first = store.get(id(1));
+
+        for (int i = 0; i < CHUNK_RECORDS * 3; i++) {
+            store.put(reservation(1, i % 2 == 0 ? ReservationStatus.CONFIRMED : ReservationStatus.CANCELLED));
+        }
+
+        assertEquals(1, store.size());
+        assertTrue(store.allocatedBytes() <= 2 * CHUNK_BYTES);
+        assertEquals(ReservationStatus.PENDING, first.getStatus());
+        assertEquals(ReservationStatus.CANCELLED, store.get(id(1)).getStatus());
+    }
+
+    @Test
+    void conditionalRemoveSurvivesCompactionButNotReplacement() {
+        OffHeapReservationStore store = new OffHeapReservationStore();
+        store.put(reservation(0, ReservationStatus.COMPLETED));
+        store.put(reservation(1, ReservationStatus.COMPLETED));
+        Reservation unchanged = store.get(id(0));
+        Reservation replaced = store.get(id(1));
+        store.put(reservation(1, ReservationStatus.CANCELLED));
+        // Assez de retraits pour déclencher un compactage, qui déplace les deux enregistrements vivants
+        for (int i = 2; i < CHUNK_RECORDS + 2; i++) {
+            store.put(reservation(i, ReservationStatus.PENDING));
+        }
+        for (int i = 2; i < CHUNK_RECORDS + 2; i++) {
+            store.remove(id(i));
+        }
+        assertEquals(CHUNK_BYTES, store.allocatedBytes());
+
+        assertTrue(store.remove(unchanged));
+        assertFalse(store.remove(replaced));
+        assertFalse(store.contains(id(0)));
+        assertTrue(store.contains(id(1)));
+    }
+
+    @Test
+    void statusChangedThroughAViewIsSeenByTheStore() {
+        OffHeapReservationStore store = new OffHeapReservationStore();
+        store.put(reservation(1, ReservationStatus.PENDING));
+
+        store.get(id(1)).setStatus(ReservationStatus.CANCELLED);
+
+        assertTrue(store.findByStatus(ReservationStatus.PENDING).isEmpty());
+        assertEquals(1, store.findByStatus(ReservationStatus.CANCELLED).size());
+        assertTrue(store.findByStatus(null).isEmpty());
+    }
+
+    @Test
+    void detachCopiesViewsOnly() {
+        OffHeapReservationStore store = new OffHeapReservationStore();
+        Reservation onHeap = reservation(1, ReservationStatus.CONFIRMED);
+        store.put(onHeap);
+        Reservation view = store.get(id(1));
+
+        Reservation copy = OffHeapReservationStore.detach(view);
+
+        assertInstanceOf(ReservationView.class, view);
+        assertFalse(copy instanceof ReservationView);
+        assertEquals(view.getId(), copy.getId());
+        assertEquals(view.getTotalAmount(), copy.getTotalAmount());
+        assertEquals(ReservationStatus.CONFIRMED, copy.getStatus());
+        assertSame(onHeap, OffHeapReservationStore.detach(onHeap));
+    }
+
+    private static Reservation reservation(int n, ReservationStatus status) {
+        Reservation reservation = new Reservation(id(n), id(-1), id(-2), id(-3), DATE, new BigDecimal("12.50"));
+        reservation.setStatus(status);
+        return reservation;
+    }
+
+    private static String id(int n) {
+        return new UUID(0x1234L, n).toString();
+    }
+}
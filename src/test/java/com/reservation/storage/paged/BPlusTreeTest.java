@@ -0,0 +1,141 @@
+package com.reservation.storage.paged;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BPlusTreeTest {
+    @TempDir
+    Path dir;
+
+    private PageFile file;
+    private WriteAheadLog log;
+    private BPlusTree tree;
+
+    @BeforeEach
+    void open() throws IOException {
+        Path path = dir.resolve("tree.db");
+        file = new PageFile(path);
+        log = new WriteAheadLog(WriteAheadLog.pathOf(path), file);
+        // Cache minimal : les pages sont sans cesse évincées puis relues
+        tree = new BPlusTree(file, new BufferPool(file, log, 8));
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        log.close();
+        file.close();
+    }
+
+    @Test
+    void splitsKeepEveryEntryInKeyOrder() throws IOException {
+        int count = 5000;
+        for (int i = count - 1; i >= 0; i--) {
+            assertNull(tree.put(key(i), value(i, 40)));
+        }
+
+        assertEquals(count, tree.size());
+        for (int i = 0; i < count; i++) {
+            assertArrayEquals(value(i, 40), tree.get(key(i)));
+        }
+        List<String> keys = scanKeys();
+        assertEquals(count, keys.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(new String(key(i), StandardCharsets.UTF_8), keys.get(i));
+        }
+    }
+
+    @Test
+    void replacingAndRemovingAfterSplits() throws IOException {
+        for (int i = 0; i < 2000; i++) {
+            tree.put(key(i), value(i, 40));
+        }
+
+        assertArrayEquals(value(7, 40), tree.put(key(7), value(700, 40)));
+        for (int i = 0; i < 2000; i += 2) {
+            assertArrayEquals(i == 0 ? value(0, 40) : value(i, 40), tree.remove(key(i)));
+        }
+
+        assertEquals(1000, tree.size());
+        assertNull(tree.get(key(10)));
+        assertArrayEquals(value(700, 40), tree.get(key(7)));
+        assertEquals(1000, scanKeys().size());
+        assertNull(tree.remove(key(10)));
+    }
+
+    @Test
+    void largeValuesAreStoredInOverflowPages() throws IOException {
+        int[] sizes = {PageFile.PAGE_SIZE / 8 + 1, PageFile.PAGE_SIZE, 5 * PageFile.PAGE_SIZE + 17};
+        for (int i = 0; i < sizes.length; i++) {
+            tree.put(key(i), value(i, sizes[i]));
+        }
+        // Quelques entrées ordinaires autour, pour que les feuilles se divisent aussi
+        for (int i = 100; i < 400; i++) {
+            tree.put(key(i), value(i, 40));
+        }
+
+        for (int i = 0; i < sizes.length; i++) {
+            assertArrayEquals(value(i, sizes[i]), tree.get(key(i)));
+        }
+        assertTrue(file.getPageCount() > 5, "les valeurs débordent sur des pages dédiées");
+        assertArrayEquals(value(2, sizes[2]), tree.put(key(2), value(2, 10)));
+        assertArrayEquals(value(2, 10), tree.get(key(2)));
+    }
+
+    @Test
+    void freedOverflowPagesAreReused() throws IOException {
+        int size = 3 * PageFile.PAGE_SIZE;
+        for (int i = 0; i < 20; i++) {
+            tree.put(key(i), value(i, size));
+        }
+        int pageCount = file.getPageCount();
+
+        for (int i = 0; i < 20; i++) {
+            tree.remove(key(i));
+        }
+        for (int i = 20; i < 40; i++) {
+            tree.put(key(i), value(i, size));
+        }
+
+        assertEquals(pageCount, file.getPageCount());
+        for (int i = 20; i < 40; i++) {
+            assertArrayEquals(value(i, size), tree.get(key(i)));
+        }
+    }
+
+    private List<String> scanKeys() throws IOException {
+        List<String> keys = new ArrayList<>();
+        BPlusTree.Leaf leaf = tree.firstLeaf();
+        while (leaf != null) {
+            for (byte[] key : leaf.keys) {
+                keys.add(new String(key, StandardCharsets.UTF_8));
+            }
+            leaf = leaf.next == 0 ? null : tree.leaf(leaf.next);
+        }
+        return keys;
+    }
+
+    private static byte[] key(int n) {
+        return String.format("K%06d", n).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] value(int n, int size) {
+        byte[] value = new byte[size];
+        Arrays.fill(value, (byte) n);
+        value[0] = (byte) (n >> 8);
+        return value;
+    }
+}
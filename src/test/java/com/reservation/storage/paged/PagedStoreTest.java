@@ -0,0 +1,154 @@
+package com.reservation.storage.paged;
+
+import com.reservation.model.Service;
+import com.reservation.storage.ServiceCsvStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PagedStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void entriesSurviveCloseAndReopen() throws IOException {
+        Path path = dir.resolve("services.db");
+        try (PagedStore<Service> store = open(path, 8)) {
+            for (int i = 0; i < 500; i++) {
+                store.put(id(i), service(i, 20));
+            }
+            store.put(id(3), service(3, 3 * PageFile.PAGE_SIZE));
+            store.remove(id(4));
+        }
+
+        try (PagedStore<Service> reopened = open(path, 8)) {
+            assertEquals(499, reopened.size());
+            assertEquals(description(3, 3 * PageFile.PAGE_SIZE), reopened.get(id(3)).getDescription());
+            assertEquals(description(499, 20), reopened.get(id(499)).getDescription());
+            assertNull(reopened.get(id(4)));
+        }
+        assertEquals(0, Files.size(WriteAheadLog.pathOf(path)));
+    }
+
+    @Test
+    void crashKeepsExactlyTheLastFlushedState() throws IOException {
+        Path path = dir.resolve("services.db");
+        Path crashed = dir.resolve("crashed.db");
+        // Cache minimal : des pages modifiées après la validation sont évincées avant l'arrêt brutal
+        try (PagedStore<Service> store = open(path, 4)) {
+            for (int i = 0; i < 300; i++) {
+                store.put(id(i), service(i, 600));
+            }
+            store.flush();
+            for (int i = 300; i < 600; i++) {
+                store.put(id(i), service(i, 600));
+            }
+            for (int i = 0; i < 100; i++) {
+                store.remove(id(i));
+            }
+            copy(path, crashed);
+        }
+
+        try (PagedStore<Service> recovered = open(crashed, 4)) {
+            assertEquals(300, recovered.size());
+            for (int i = 0; i < 300; i++) {
+                assertEquals(description(i, 600), recovered.get(id(i)).getDescription());
+            }
+            assertFalse(recovered.containsKey(id(300)));
+        }
+    }
+
+    @Test
+    void flushedPagesAreOnlyInTheLogUntilACheckpoint() throws IOException {
+        Path path = dir.resolve("services.db");
+        Path withLog = dir.resolve("with-log.db");
+        Path withoutLog = dir.resolve("without-log.db");
+        try (PagedStore<Service> store = open(path, 8)) {
+            for (int i = 0; i < 50; i++) {
+                store.put(id(i), service(i, 20));
+            }
+            store.flush();
+            copy(path, withLog);
+            Files.copy(path, withoutLog);
+        }
+
+        try (PagedStore<Service> recovered = open(withLog, 8)) {
+            assertEquals(50, recovered.size());
+            assertEquals(description(49, 20), recovered.get(id(49)).getDescription());
+        }
+        assertEquals(0, Files.size(WriteAheadLog.pathOf(withLog)));
+        try (PagedStore<Service> unlogged = open(withoutLog, 8)) {
+            assertEquals(0, unlogged.size());
+        }
+    }
+
+    @Test
+    void concurrentReadersSeeConsistentEntriesWhileAWriterEvictsPages() throws Exception {
+        try (PagedStore<Service> store = open(dir.resolve("services.db"), 8)) {
+            for (int i = 0; i < 1000; i++) {
+                store.put(id(i), service(i, 100));
+            }
+            ExecutorService readers = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> results = new ArrayList<>();
+                for (int reader = 0; reader < 4; reader++) {
+                    int offset = reader;
+                    results.add(readers.submit(() -> {
+                        for (int i = offset; i < 20_000; i += 4) {
+                            int n = i % 1000;
+                            assertEquals(description(n, 100), store.get(id(n)).getDescription());
+                        }
+                    }));
+                }
+                // Écritures concurrentes sur d'autres clés : divisions de feuilles et évictions de pages
+                for (int i = 1000; i < 3000; i++) {
+                    store.put(id(i), service(i, 100));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+            } finally {
+                readers.shutdown();
+            }
+            assertEquals(3000, store.size());
+        }
+    }
+
+    private static PagedStore<Service> open(Path path, int cachePages) throws IOException {
+        return new PagedStore<>(path, ServiceCsvStorage.SNAPSHOT_CODEC, cachePages);
+    }
+
+    /**
+     * Copie le fichier de pages et son journal tels qu'un arrêt brutal les laisserait
+     */
+    private static void copy(Path path, Path target) throws IOException {
+        Files.copy(path, target);
+        Files.copy(WriteAheadLog.pathOf(path), WriteAheadLog.pathOf(target));
+    }
+
+    private static Service service(int n, int descriptionLength) {
+        return new Service(id(n), "Service " + n, description(n, descriptionLength), "Coiffure",
+            new BigDecimal("25.00"), 30, "P1");
+    }
+
+    private static String description(int n, int length) {
+        return String.valueOf((char) ('a' + n % 26)).repeat(length);
+    }
+
+    private static String id(int n) {
+        return String.format("S%05d", n);
+    }
+}
@@ -0,0 +1,62 @@
+package com.reservation.ui;
+
+import com.reservation.model.Service;
+import com.reservation.repository.ServiceRepository;
+import com.reservation.service.ServiceSearchService;
+import com.reservation.storage.InMemoryStorageBackend;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReservationPanelTest {
+
+    @BeforeAll
+    static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    /**
+     * Recherche qui compte les relectures complètes des services
+     */
+    private static final class CountingSearchService extends ServiceSearchService {
+        private final AtomicInteger searches = new AtomicInteger();
+
+        CountingSearchService(ServiceRepository serviceRepository) {
+            super(serviceRepository);
+        }
+
+        @Override
+        public List<Service> searchAll() {
+            searches.incrementAndGet();
+            return super.searchAll();
+        }
+    }
+
+    @Test
+    void refreshRereadsServicesOnlyAfterAChange() {
+        ServiceRepository repository = new ServiceRepository(new InMemoryStorageBackend(), 0);
+        repository.save(service("S1"));
+        CountingSearchService searchService = new CountingSearchService(repository);
+        // La façade ne sert qu'aux réservations, jamais au rafraîchissement
+        ReservationPanel panel = new ReservationPanel(null, searchService);
+        assertEquals(1, searchService.searches.get());
+
+        panel.refresh();
+        panel.refresh();
+        assertEquals(1, searchService.searches.get());
+
+        repository.save(service("S2"));
+        panel.refresh();
+        panel.refresh();
+        assertEquals(2, searchService.searches.get());
+    }
+
+    private static Service service(String id) {
+        return new Service(id, "Service " + id, "Description", "Coiffure", new BigDecimal("30.00"), 45, "P1");
+    }
+}